@@ -0,0 +1,9 @@
+package com.adam.medipathbackend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+
+@Configuration
+@PropertySource("classpath:actuator.properties")
+public class ActuatorConfig {
+}
@@ -1,18 +1,71 @@
 package com.adam.medipathbackend.config;
 
 import com.adam.medipathbackend.models.City;
+import com.adam.medipathbackend.models.Institution;
+import com.adam.medipathbackend.models.Notification;
+import com.adam.medipathbackend.models.User;
+import com.adam.medipathbackend.repository.ActiveEntityCache;
 import com.adam.medipathbackend.repository.CityRepository;
+import com.adam.medipathbackend.repository.NotificationRepository;
+import com.adam.medipathbackend.repository.RatingStatsRepository;
+import com.adam.medipathbackend.services.AvailabilityService;
+import com.adam.medipathbackend.services.DoctorSearchIndexService;
+import com.adam.medipathbackend.services.EmploymentService;
+import com.adam.medipathbackend.services.SearchIndexService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+
 @Component
 public class DataLoader implements CommandLineRunner {
 
+    private static final Logger log = LoggerFactory.getLogger(DataLoader.class);
+
+    private static final String MIGRATIONS = "Migration";
+
+    private static final String RATING_STATS_MIGRATION = "ratingStats";
+
+    private static final String EMBEDDED_NOTIFICATIONS_MIGRATION = "embeddedNotifications";
+
     @Autowired
     private CityRepository cityRepository;
 
+    @Autowired
+    private DoctorSearchIndexService doctorSearchIndexService;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private EmploymentService employmentService;
+
+    @Autowired
+    private AvailabilityService availabilityService;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ActiveEntityCache activeEntityCache;
+
+    @Autowired
+    private RatingStatsRepository ratingStatsRepository;
+
 
     @Override
     public void run(String... args) throws Exception {
@@ -23,5 +76,74 @@ public class DataLoader implements CommandLineRunner {
             cityRepository.save(new City("Gdańsk"));
             cityRepository.save(new City("Gdynia"));
         }
+        if(Arrays.asList(args).contains("--rebuild-doctor-index") || doctorSearchIndexService.isEmpty()) {
+            doctorSearchIndexService.rebuild();
+        }
+        if(Arrays.asList(args).contains("--rebuild-employments")) {
+            employmentService.rebuild();
+        } else {
+            int reconciled = employmentService.reconcile();
+            if(reconciled > 0) {
+                log.info("Reconciled {} employment(s) with institution staff lists", reconciled);
+            }
+        }
+        searchIndexService.rebuild();
+        availabilityService.rebuild();
+        if(!isMigrated(EMBEDDED_NOTIFICATIONS_MIGRATION)) {
+            migrateEmbeddedNotifications();
+        }
+        if(Arrays.asList(args).contains("--rebuild-rating-stats") || !isMigrated(RATING_STATS_MIGRATION)) {
+            migrateRatingStats();
+        }
+    }
+
+    private void migrateRatingStats() {
+        int rated = ratingStatsRepository.rebuild();
+        Query legacy = new Query(new Criteria().orOperator(Criteria.where("rating").exists(true),
+                Criteria.where("numOfRatings").exists(true), Criteria.where("ratingStats").exists(true)));
+        Update unset = new Update().unset("rating").unset("numOfRatings").unset("ratingStats");
+        mongoTemplate.updateMulti(legacy, unset, User.class);
+        mongoTemplate.updateMulti(legacy, unset, Institution.class);
+        activeEntityCache.clear();
+        markMigrated(RATING_STATS_MIGRATION);
+        log.info("Rebuilt rating stats for {} doctor(s) and institution(s)", rated);
+    }
+
+    private boolean isMigrated(String migration) {
+        return mongoTemplate.exists(new Query(Criteria.where("_id").is(migration)), MIGRATIONS);
+    }
+
+    private void markMigrated(String migration) {
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(migration)),
+                new Update().set("appliedAt", LocalDateTime.now()), MIGRATIONS);
+    }
+
+    private void migrateEmbeddedNotifications() {
+        // Each user is detached from its array before the notifications are inserted, so a crash part way
+        // through never leaves a user that would be copied a second time on the next start.
+        Query withNotifications = new Query(Criteria.where("notifications").exists(true));
+        withNotifications.fields().include("notifications");
+        Update unset = new Update().unset("notifications");
+        int migrated = 0;
+        Document user;
+        while((user = mongoTemplate.findAndModify(withNotifications, unset, Document.class, "User")) != null) {
+            String userId = user.getObjectId("_id").toHexString();
+            ArrayList<Notification> notifications = new ArrayList<>();
+            for(Document embedded: user.getList("notifications", Document.class, new ArrayList<>())) {
+                Notification notification = mongoTemplate.getConverter().read(Notification.class, embedded);
+                notification.setUserId(userId);
+                notification.setSent(notification.getTimestamp().isBefore(LocalDateTime.now()));
+                notifications.add(notification);
+            }
+            if(!notifications.isEmpty()) {
+                notificationRepository.insert(notifications);
+            }
+            activeEntityCache.evict(User.class, userId);
+            migrated++;
+        }
+        markMigrated(EMBEDDED_NOTIFICATIONS_MIGRATION);
+        if(migrated > 0) {
+            log.info("Moved embedded notifications of {} user(s) to the Notification collection", migrated);
+        }
     }
 }
@@ -1,16 +1,9 @@
 package com.adam.medipathbackend.config;
 
-import org.springframework.context.annotation.Bean;
-import org.springframework.session.data.mongo.JdkMongoSessionConverter;
-import org.springframework.session.data.mongo.config.annotation.web.http.EnableMongoHttpSession;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
 
-import java.time.Duration;
-
-@EnableMongoHttpSession
+@Configuration
+@EnableSpringHttpSession
 public class HttpSessionConfig {
-
-    @Bean
-    public JdkMongoSessionConverter jdkMongoSessionConverter() {
-        return new JdkMongoSessionConverter(Duration.ofMinutes(30));
-    }
 }
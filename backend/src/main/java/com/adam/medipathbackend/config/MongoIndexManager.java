@@ -0,0 +1,174 @@
+package com.adam.medipathbackend.config;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.repository.Aggregation;
+import org.springframework.data.mongodb.repository.DeleteQuery;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.time.temporal.Temporal;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Component
+public class MongoIndexManager {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoIndexManager.class);
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\"\\?(\\d+)\"|\\?(\\d+)");
+
+    private static final String SAMPLE_ID = "000000000000000000000000";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Value("${medipath.mongo.verify-query-plans:true}")
+    private boolean verifyQueryPlans;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        ensureIndexes();
+        if(verifyQueryPlans) {
+            List<QueryPlan> collectionScans = verifyQueryPlans().stream().filter(QueryPlan::collectionScan).toList();
+            for(QueryPlan plan: collectionScans) {
+                log.warn("{}.{} runs as a COLLSCAN on {}", plan.repository(), plan.method(), plan.collection());
+            }
+            log.info("Query plan verification finished, {} collection scan(s) found", collectionScans.size());
+        }
+    }
+
+    public void ensureIndexes() {
+        MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> mappingContext =
+                mongoTemplate.getConverter().getMappingContext();
+        MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+
+        for(MongoPersistentEntity<?> entity: mappingContext.getPersistentEntities()) {
+            if(!entity.isAnnotationPresent(org.springframework.data.mongodb.core.mapping.Document.class)) continue;
+            IndexOperations indexOperations = mongoTemplate.indexOps(entity.getType());
+            for(IndexDefinition definition: resolver.resolveIndexFor(entity.getTypeInformation())) {
+                try {
+                    indexOperations.createIndex(definition);
+                } catch (RuntimeException e) {
+                    log.warn("Could not create index {} on {}: {}", definition.getIndexOptions().get("name"),
+                            entity.getCollection(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    public List<QueryPlan> verifyQueryPlans() {
+        ArrayList<QueryPlan> plans = new ArrayList<>();
+        Repositories repositories = new Repositories(applicationContext);
+        for(Class<?> domainType: repositories) {
+            Optional<RepositoryInformation> information = repositories.getRepositoryInformationFor(domainType);
+            if(information.isEmpty()) continue;
+            Class<?> repository = information.get().getRepositoryInterface();
+            String collection = mongoTemplate.getCollectionName(domainType);
+
+            for(Method method: repository.getDeclaredMethods()) {
+                Document command = buildExplainCommand(collection, method);
+                if(command == null) continue;
+                try {
+                    Document explain = mongoTemplate.getDb().runCommand(
+                            new Document("explain", command).append("verbosity", "queryPlanner"));
+                    plans.add(new QueryPlan(repository.getSimpleName(), method.getName(), collection,
+                            containsStage(explain, "COLLSCAN")));
+                } catch (RuntimeException e) {
+                    log.debug("Could not explain {}.{}: {}", repository.getSimpleName(), method.getName(), e.getMessage());
+                }
+            }
+        }
+        return plans;
+    }
+
+    private Document buildExplainCommand(String collection, Method method) {
+        try {
+            if(method.isAnnotationPresent(Aggregation.class)) {
+                ArrayList<Document> pipeline = new ArrayList<>();
+                for(String stage: method.getAnnotation(Aggregation.class).value()) {
+                    pipeline.add(Document.parse(bindSampleValues(stage, method)));
+                }
+                return new Document("aggregate", collection).append("pipeline", pipeline).append("cursor", new Document());
+            }
+            String filter = null;
+            if(method.isAnnotationPresent(Query.class)) {
+                filter = method.getAnnotation(Query.class).value();
+            } else if(method.isAnnotationPresent(DeleteQuery.class)) {
+                filter = method.getAnnotation(DeleteQuery.class).value();
+            }
+            if(filter == null || filter.isBlank()) return null;
+            return new Document("find", collection).append("filter", Document.parse(bindSampleValues(filter, method)));
+        } catch (RuntimeException e) {
+            log.debug("Could not build a sample query for {}: {}", method, e.getMessage());
+            return null;
+        }
+    }
+
+    private String bindSampleValues(String query, Method method) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        Matcher matcher = PLACEHOLDER.matcher(query);
+        StringBuilder bound = new StringBuilder();
+        while(matcher.find()) {
+            String replacement;
+            if(matcher.group(1) != null) {
+                replacement = "\"" + SAMPLE_ID + "\"";
+            } else {
+                int index = Integer.parseInt(matcher.group(2));
+                replacement = sampleValue(index < parameterTypes.length ? parameterTypes[index] : String.class);
+            }
+            matcher.appendReplacement(bound, Matcher.quoteReplacement(replacement));
+        }
+        matcher.appendTail(bound);
+        return bound.toString();
+    }
+
+    private static String sampleValue(Class<?> type) {
+        if(Temporal.class.isAssignableFrom(type) || Date.class.isAssignableFrom(type)) {
+            return "{\"$date\": \"2000-01-01T00:00:00Z\"}";
+        }
+        if(Collection.class.isAssignableFrom(type) || type.isArray()) {
+            return "[\"" + SAMPLE_ID + "\"]";
+        }
+        if(type == boolean.class || type == Boolean.class) {
+            return "false";
+        }
+        if(type.isPrimitive() || Number.class.isAssignableFrom(type)) {
+            return "0";
+        }
+        return "\"" + SAMPLE_ID + "\"";
+    }
+
+    private static boolean containsStage(Object node, String stage) {
+        if(node instanceof Document document) {
+            if(stage.equals(document.get("stage"))) return true;
+            return document.values().stream().anyMatch(value -> containsStage(value, stage));
+        }
+        if(node instanceof Collection<?> collection) {
+            return collection.stream().anyMatch(value -> containsStage(value, stage));
+        }
+        return false;
+    }
+
+    public record QueryPlan(String repository, String method, String collection, boolean collectionScan) {}
+}
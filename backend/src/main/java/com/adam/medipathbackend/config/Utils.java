@@ -1,5 +1,8 @@
 package com.adam.medipathbackend.config;
 
+import java.text.Normalizer;
+import java.util.Locale;
+
 public class Utils {
 
     static final int MINIMUM_ACCEPTABLE_SIMILARITY_THRESHOLD = 5;
@@ -49,4 +52,23 @@ public class Utils {
         }
         return true;
     }
+
+    public static String normalize(String value) {
+        if(value == null) return "";
+        String folded = Normalizer.normalize(value.toLowerCase(Locale.ROOT), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .replace('ł', 'l');
+        return folded.trim().replaceAll("\\s+", " ");
+    }
+
+    public static String toPrefixRegex(String value) {
+        StringBuilder regex = new StringBuilder("^");
+        for(char c: value.toCharArray()) {
+            if("\\^$.|?*+()[]{}".indexOf(c) >= 0) {
+                regex.append('\\');
+            }
+            regex.append(c);
+        }
+        return regex.toString();
+    }
 }
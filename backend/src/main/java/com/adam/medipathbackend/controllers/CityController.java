@@ -4,6 +4,7 @@ import com.adam.medipathbackend.models.City;
 import com.adam.medipathbackend.models.Specialisation;
 import com.adam.medipathbackend.repository.CityRepository;
 import com.adam.medipathbackend.repository.SpecialisationRepository;
+import com.adam.medipathbackend.services.SearchService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -19,6 +20,9 @@ public class CityController {
 
     @Autowired
     SpecialisationRepository specialisationRepository;
+
+    @Autowired
+    SearchService searchService;
     @GetMapping("/")
     public String home() {
         return "API OK";
@@ -31,7 +35,7 @@ public class CityController {
             returnedCities = cityRepository.findAll();
         } else {
 
-            returnedCities = cityRepository.findAll(name);
+            returnedCities = searchService.searchCities(name);
         }
 
         return new ResponseEntity<>(returnedCities, HttpStatus.OK);
@@ -102,17 +102,29 @@ public class CommentController {
     }
 
     @GetMapping(value = {"/doctor/{id}", "/doctor/{id}/"})
-    public ResponseEntity<Map<String, Object>> getCommentsForDoctor(@PathVariable String id) {
+    public ResponseEntity<Map<String, Object>> getCommentsForDoctor(@PathVariable String id,
+                                                                @RequestParam(value = "cursor", required = false) String cursor,
+                                                                @RequestParam(value = "limit", required = false) Integer limit) {
 
-        Map<String, Object> result = commentService.getCommentsForDoctor(id);
-        return new ResponseEntity<>(result, HttpStatus.OK);
+        try {
+            Map<String, Object> result = commentService.getCommentsForDoctor(id, cursor, limit);
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(Map.of("message", e.getMessage()), HttpStatus.BAD_REQUEST);
+        }
 
     }
     @GetMapping(value = {"/institution/{id}", "/institution/{id}/"})
-    public ResponseEntity<Map<String, Object>> getCommentsForInstitution(@PathVariable String id) {
+    public ResponseEntity<Map<String, Object>> getCommentsForInstitution(@PathVariable String id,
+                                                                @RequestParam(value = "cursor", required = false) String cursor,
+                                                                @RequestParam(value = "limit", required = false) Integer limit) {
 
-        Map<String, Object> result = commentService.getCommentsForInstitution(id);
-        return new ResponseEntity<>(result, HttpStatus.OK);
+        try {
+            Map<String, Object> result = commentService.getCommentsForInstitution(id, cursor, limit);
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(Map.of("message", e.getMessage()), HttpStatus.BAD_REQUEST);
+        }
 
     }
 
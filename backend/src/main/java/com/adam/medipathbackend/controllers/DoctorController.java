@@ -56,6 +56,50 @@ public class DoctorController {
 
     }
 
+    @GetMapping(value = {"/{doctorid}/availability/next", "/{doctorid}/availability/next/"})
+    public ResponseEntity<Map<String, Object>> getNextFreeSlot(@PathVariable String doctorid,
+                                                               @RequestParam(required = false) String institution,
+                                                               @RequestParam(required = false) String after) {
+
+        try {
+            Map<String, Object> result = doctorService.getNextFreeSlot(doctorid, institution, after);
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(Map.of("message", e.getMessage()), HttpStatus.BAD_REQUEST);
+        }
+
+    }
+
+    @GetMapping(value = {"/{doctorid}/availability", "/{doctorid}/availability/"})
+    public ResponseEntity<Map<String, Object>> getFreeSlots(@PathVariable String doctorid,
+                                                            @RequestParam(required = false) String institution,
+                                                            @RequestParam(required = false) String from,
+                                                            @RequestParam(required = false) Integer days) {
+
+        try {
+            Map<String, Object> result = doctorService.getFreeSlots(doctorid, institution, from, days);
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(Map.of("message", e.getMessage()), HttpStatus.BAD_REQUEST);
+        }
+
+    }
+
+    @GetMapping(value = {"/{doctorid}/availability/heatmap", "/{doctorid}/availability/heatmap/"})
+    public ResponseEntity<Map<String, Object>> getAvailabilityHeatmap(@PathVariable String doctorid,
+                                                                      @RequestParam(required = false) String institution,
+                                                                      @RequestParam(required = false) String from,
+                                                                      @RequestParam(required = false) String to) {
+
+        try {
+            Map<String, Object> result = doctorService.getAvailabilityHeatmap(doctorid, institution, from, to);
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(Map.of("message", e.getMessage()), HttpStatus.BAD_REQUEST);
+        }
+
+    }
+
     @GetMapping(value = {"/me/schedules", "/me/schedules/"})
     public ResponseEntity<Map<String, Object>> getMySchedules(HttpSession session) {
 
@@ -95,7 +139,10 @@ public class DoctorController {
     }
 
     @GetMapping(value = {"/me/visits/{date}", "/me/visits/{date}/", "/me/visits", "/me/visits/"})
-    public ResponseEntity<Map<String, Object>> getMyVisits(@PathVariable(required = false) String date, HttpSession session) {
+    public ResponseEntity<Map<String, Object>> getMyVisits(@PathVariable(required = false) String date,
+                                                           @RequestParam(value = "cursor", required = false) String cursor,
+                                                           @RequestParam(value = "limit", required = false) Integer limit,
+                                                           HttpSession session) {
 
         String loggedUserID = (String) session.getAttribute("id");
         if (loggedUserID == null) {
@@ -103,7 +150,7 @@ public class DoctorController {
         }
 
         try {
-            Map<String, Object> result = doctorService.getMyVisitsByDate(date, loggedUserID);
+            Map<String, Object> result = doctorService.getMyVisitsByDate(date, loggedUserID, cursor, limit);
             return new ResponseEntity<>(result, HttpStatus.OK);
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(Map.of("message", e.getMessage()), HttpStatus.BAD_REQUEST);
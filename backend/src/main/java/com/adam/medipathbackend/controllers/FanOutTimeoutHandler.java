@@ -0,0 +1,30 @@
+package com.adam.medipathbackend.controllers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Fan-out lookups that miss their request deadline surface as a TimeoutException wrapped in a CompletionException.
+ * Exception handlers are matched against the cause chain, so any endpoint using the fan-out gets a 503 instead of a 500.
+ */
+@RestControllerAdvice
+public class FanOutTimeoutHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(FanOutTimeoutHandler.class);
+
+    @ExceptionHandler(TimeoutException.class)
+    public ResponseEntity<Map<String, Object>> handleTimeout(TimeoutException e) {
+        log.warn("Request timed out: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("message", "server busy, try again later"));
+    }
+}
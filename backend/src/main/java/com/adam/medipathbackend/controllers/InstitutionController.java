@@ -3,18 +3,20 @@ package com.adam.medipathbackend.controllers;
 import com.adam.medipathbackend.forms.AddComboForm;
 import com.adam.medipathbackend.forms.AddEmployeeForm;
 import com.adam.medipathbackend.models.*;
+import com.adam.medipathbackend.repository.CursorPage;
 import com.adam.medipathbackend.repository.UserRepository;
 import com.adam.medipathbackend.services.*;
-import jakarta.mail.MessagingException;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.mail.MailException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.UnsupportedEncodingException;
 import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/institution")
@@ -32,6 +34,9 @@ public class InstitutionController {
   @Autowired
   private InstitutionQueryService queryService;
 
+  @Autowired
+  private InstitutionExportService exportService;
+
   @Autowired
   private EmailService emailService;
 
@@ -122,14 +127,7 @@ public class InstitutionController {
       PasswordResetEntry passwordResetEntry = employeeManagementService
           .createPasswordResetEntry(newUser.getEmail());
 
-      try {
-        emailService.sendEmployeeRegistrationEmail(newUser, institution, passwordResetEntry.getToken());
-      } catch (MailException | MessagingException | UnsupportedEncodingException e) {
-        employeeManagementService.deletePasswordResetEntry(passwordResetEntry);
-        return new ResponseEntity<>(
-            Map.of("message", "The mail service threw an error", "error", e.getMessage()),
-            HttpStatus.SERVICE_UNAVAILABLE);
-      }
+      emailService.sendEmployeeRegistrationEmail(newUser, institution, passwordResetEntry.getToken());
 
       return new ResponseEntity<>(Map.of("message", "Success"), HttpStatus.CREATED);
     } catch (IllegalArgumentException e) {
@@ -137,7 +135,8 @@ public class InstitutionController {
     } catch (IllegalStateException e) {
       return new ResponseEntity<>(Map.of("message", e.getMessage()), HttpStatus.CONFLICT);
     } catch (IllegalAccessException e) {
-      return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+      return new ResponseEntity<>(HttpStatus.FORBIDDEN);    } catch (RejectedExecutionException e) {
+      return new ResponseEntity<>(Map.of("message", e.getMessage()), HttpStatus.SERVICE_UNAVAILABLE);
     }
   }
 
@@ -221,7 +220,7 @@ public class InstitutionController {
       return new ResponseEntity<>(HttpStatus.FORBIDDEN);
     }
 
-    ArrayList<Visit> visits = queryService.getUpcomingVisits(institutionid);
+    ArrayList<VisitSummary> visits = queryService.getUpcomingVisits(institutionid);
     return new ResponseEntity<>(Map.of("visits", visits), HttpStatus.OK);
   }
 
@@ -252,7 +251,8 @@ public class InstitutionController {
   @GetMapping(value = { "/{institutionid}/schedules/{date}", "/{institutionid}/schedules/{date}/",
       "/{institutionid}/schedules/", "/{institutionid}/schedules" })
   public ResponseEntity<Map<String, Object>> getSchedulesForInstitution(@PathVariable String institutionid,
-      @PathVariable(required = false) String date, HttpSession session) {
+      @PathVariable(required = false) String date, @RequestParam(value = "cursor", required = false) String cursor,
+      @RequestParam(value = "limit", required = false) Integer limit, HttpSession session) {
     String loggedUserID = (String) session.getAttribute("id");
     if (loggedUserID == null) {
       return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
@@ -261,8 +261,8 @@ public class InstitutionController {
     try {
       authorizationService.startAuthChain(loggedUserID, institutionid).employeeOfInstitution().check();
 
-      ArrayList<Schedule> schedules = queryService.getSchedules(institutionid, date);
-      return new ResponseEntity<>(Map.of("schedules", schedules), HttpStatus.OK);
+      CursorPage<ScheduleSummary> schedules = queryService.getSchedules(institutionid, date, cursor, limit);
+      return new ResponseEntity<>(schedules.toResponse("schedules"), HttpStatus.OK);
     } catch (IllegalArgumentException e) {
       return new ResponseEntity<>(Map.of("message", e.getMessage()), HttpStatus.BAD_REQUEST);
     } catch (IllegalAccessException e) {
@@ -273,7 +273,43 @@ public class InstitutionController {
   @GetMapping(value = { "/{institutionid}/visits/{date}", "/{institutionid}/visits/{date}/",
       "/{institutionid}/visits/", "/{institutionid}/visits" })
   public ResponseEntity<Map<String, Object>> getVisitsForInstitution(@PathVariable String institutionid,
-      @PathVariable(required = false) String date, HttpSession session) {
+      @PathVariable(required = false) String date, @RequestParam(value = "cursor", required = false) String cursor,
+      @RequestParam(value = "limit", required = false) Integer limit, HttpSession session) {
+    String loggedUserID = (String) session.getAttribute("id");
+    if (loggedUserID == null) {
+      return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+    }
+
+    try {
+      authorizationService.startAuthChain(loggedUserID, institutionid).employeeOfInstitution().check();
+
+      CursorPage<VisitSummary> visits = queryService.getVisits(institutionid, date, cursor, limit);
+      return new ResponseEntity<>(visits.toResponse("visits"), HttpStatus.OK);
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(Map.of("message", e.getMessage()), HttpStatus.BAD_REQUEST);
+    } catch (IllegalAccessException e) {
+      return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+    }
+  }
+
+  @GetMapping(value = { "/{institutionid}/visits/export", "/{institutionid}/visits/export/" })
+  public ResponseEntity<?> exportVisits(@PathVariable String institutionid,
+      @RequestParam(value = "format", required = false) String format,
+      @RequestParam(value = "from", required = false) String from,
+      @RequestParam(value = "to", required = false) String to, HttpSession session) {
+    return export("visits", institutionid, format, from, to, session);
+  }
+
+  @GetMapping(value = { "/{institutionid}/schedules/export", "/{institutionid}/schedules/export/" })
+  public ResponseEntity<?> exportSchedules(@PathVariable String institutionid,
+      @RequestParam(value = "format", required = false) String format,
+      @RequestParam(value = "from", required = false) String from,
+      @RequestParam(value = "to", required = false) String to, HttpSession session) {
+    return export("schedules", institutionid, format, from, to, session);
+  }
+
+  private ResponseEntity<?> export(String kind, String institutionid, String format, String from, String to,
+      HttpSession session) {
     String loggedUserID = (String) session.getAttribute("id");
     if (loggedUserID == null) {
       return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
@@ -282,8 +318,15 @@ public class InstitutionController {
     try {
       authorizationService.startAuthChain(loggedUserID, institutionid).employeeOfInstitution().check();
 
-      ArrayList<Visit> visits = queryService.getVisits(institutionid, date);
-      return new ResponseEntity<>(Map.of("visits", visits), HttpStatus.OK);
+      InstitutionExportService.Format exportFormat = InstitutionExportService.Format.parse(format);
+      StreamingResponseBody body = kind.equals("visits")
+          ? exportService.exportVisits(institutionid, from, to, exportFormat)
+          : exportService.exportSchedules(institutionid, from, to, exportFormat);
+      return ResponseEntity.ok()
+          .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+          .header(HttpHeaders.CONTENT_DISPOSITION,
+              "attachment; filename=\"" + kind + "-" + institutionid + "." + exportFormat.getExtension() + "\"")
+          .body(body);
     } catch (IllegalArgumentException e) {
       return new ResponseEntity<>(Map.of("message", e.getMessage()), HttpStatus.BAD_REQUEST);
     } catch (IllegalAccessException e) {
@@ -48,5 +48,29 @@ public class SearchController {
 
     }
 
+    @GetMapping(value = {"/autocomplete/{query}"})
+    public ResponseEntity<Map<String, Object>> autocomplete(@PathVariable String query,
+                                                            @RequestParam(value = "limit", defaultValue = "5") int limit) {
+        if(limit < 1 || limit > 50) {
+            return new ResponseEntity<>(Map.of("message", "invalid limit"), HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(Map.of("result", searchService.autocomplete(query, limit)), HttpStatus.OK);
+    }
+
+    @GetMapping(value = {"/search/earliest", "/search/earliest/"})
+    public ResponseEntity<Map<String, Object>> searchEarliest(@RequestParam(required = false) String specialisation,
+                                                              @RequestParam(required = false) String city,
+                                                              @RequestParam(required = false) String after,
+                                                              @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        if(limit < 1 || limit > 50) {
+            return new ResponseEntity<>(Map.of("message", "invalid limit"), HttpStatus.BAD_REQUEST);
+        }
+        try {
+            return new ResponseEntity<>(Map.of("result",
+                    searchService.searchEarliestSlots(specialisation, city, after, limit)), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(Map.of("message", e.getMessage()), HttpStatus.BAD_REQUEST);
+        }
+    }
 
 }
@@ -14,6 +14,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.awt.*;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 import org.springframework.web.bind.annotation.RestController;
 
 
@@ -37,6 +38,8 @@ public class UserController {
             return new ResponseEntity<>(Map.of("message", e.getMessage()), HttpStatus.BAD_REQUEST);
         } catch (IllegalStateException e) {
             return new ResponseEntity<>(Map.of("message", e.getMessage()), HttpStatus.CONFLICT);
+        } catch (RejectedExecutionException e) {
+            return new ResponseEntity<>(Map.of("message", e.getMessage()), HttpStatus.SERVICE_UNAVAILABLE);
         }
     }
 
@@ -51,6 +54,8 @@ public class UserController {
             return new ResponseEntity<>(Map.of("message", e.getMessage()), HttpStatus.BAD_REQUEST);
         } catch (IllegalAccessException e) {
             return new ResponseEntity<>(Map.of("message", e.getMessage()), HttpStatus.UNAUTHORIZED);
+        } catch (RejectedExecutionException e) {
+            return new ResponseEntity<>(Map.of("message", e.getMessage()), HttpStatus.SERVICE_UNAVAILABLE);
         }
     }
 
@@ -144,12 +149,18 @@ public class UserController {
     }
 
     @GetMapping(value = {"/me/visits", "/me/visits/"})
-    public ResponseEntity<Map<String, Object>> getMyVisits(HttpSession session, @RequestParam(value = "upcoming", defaultValue = "") String upcoming) {
+    public ResponseEntity<Map<String, Object>> getMyVisits(HttpSession session, @RequestParam(value = "upcoming", defaultValue = "") String upcoming,
+                                                           @RequestParam(value = "cursor", required = false) String cursor,
+                                                           @RequestParam(value = "limit", required = false) Integer limit) {
         String loggedUserID = (String) session.getAttribute("id");
         if(loggedUserID == null) {
             return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
         }
-        return new ResponseEntity<>(Map.of("visits", userService.getMyVisits(loggedUserID, upcoming)), HttpStatus.OK);
+        try {
+            return new ResponseEntity<>(userService.getMyVisits(loggedUserID, upcoming, cursor, limit).toResponse("visits"), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(Map.of("message", e.getMessage()), HttpStatus.BAD_REQUEST);
+        }
 
     }
 
@@ -174,6 +185,8 @@ public class UserController {
             return new ResponseEntity<>(Map.of("message", e.getMessage()), HttpStatus.GONE);
         } catch(IllegalWriteException e) {
             return new ResponseEntity<>(Map.of("message", e.getMessage()), HttpStatus.INTERNAL_SERVER_ERROR);
+        } catch(RejectedExecutionException e) {
+            return new ResponseEntity<>(Map.of("message", e.getMessage()), HttpStatus.SERVICE_UNAVAILABLE);
         }
     }
 
@@ -186,10 +199,10 @@ public class UserController {
         try {
             userService.resetMyPassword(loggedUserID, form);
             return new ResponseEntity<>(HttpStatus.OK);
-        } catch (IllegalWriteException e) {
-            return new ResponseEntity<>(Map.of("message", e.getMessage()), HttpStatus.SERVICE_UNAVAILABLE);
         } catch(IllegalAccessException e) {
             return new ResponseEntity<>(Map.of("message", e.getMessage()), HttpStatus.UNAUTHORIZED);
+        } catch(RejectedExecutionException e) {
+            return new ResponseEntity<>(Map.of("message", e.getMessage()), HttpStatus.SERVICE_UNAVAILABLE);
         }
 
 
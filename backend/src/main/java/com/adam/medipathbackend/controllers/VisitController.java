@@ -5,6 +5,7 @@ import com.adam.medipathbackend.forms.CompleteVisitForm;
 import com.adam.medipathbackend.models.*;
 import com.adam.medipathbackend.repository.UserRepository;
 import com.adam.medipathbackend.services.CodeService;
+import com.adam.medipathbackend.services.ScheduleBookingService;
 import com.adam.medipathbackend.services.VisitService;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,12 +39,18 @@ public class VisitController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ScheduleBookingService scheduleBookingService;
+
     @PostMapping(value = {"/add", "/add/"})
     public ResponseEntity<Map<String, Object>> add(@RequestBody AddVisitForm visit, HttpSession session) {
         String loggedUserID = (String) session.getAttribute("id");
         if(loggedUserID == null) {
             return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
         }
+        if(visit.getScheduleID() != null && scheduleBookingService.isKnownBooked(visit.getScheduleID())) {
+            return new ResponseEntity<>(Map.of("message", "visit time is invalid or booked"), HttpStatus.BAD_REQUEST);
+        }
         Optional<User> optionalUser = userRepository.findById(loggedUserID);
         if(optionalUser.isEmpty()) {
             return new ResponseEntity<>(HttpStatus.FORBIDDEN);
@@ -2,12 +2,19 @@ package com.adam.medipathbackend.models;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 @Document("Comment")
+@CompoundIndexes({
+        @CompoundIndex(name = "author_userId", def = "{'author.userId': 1}"),
+        @CompoundIndex(name = "doctorDigest_createdAt", def = "{'doctorDigest.userId': 1, 'createdAt': -1, '_id': -1}"),
+        @CompoundIndex(name = "institution_createdAt", def = "{'institution.institutionId': 1, 'createdAt': -1, '_id': -1}")
+})
 public class Comment {
 
     @Id
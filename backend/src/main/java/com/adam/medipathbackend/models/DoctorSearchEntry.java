@@ -0,0 +1,135 @@
+package com.adam.medipathbackend.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.ArrayList;
+
+@Document("DoctorSearchEntry")
+@CompoundIndexes({
+        @CompoundIndex(name = "city_nameKeys", def = "{'city': 1, 'nameKeys': 1}"),
+        @CompoundIndex(name = "province_nameKeys", def = "{'province': 1, 'nameKeys': 1}"),
+        @CompoundIndex(name = "nameKeys_specialisations", def = "{'nameKeys': 1, 'specialisations': 1}")
+})
+public class DoctorSearchEntry {
+
+    @Id
+    private String id;
+
+    @Indexed
+    private String userId;
+
+    @Indexed
+    private String institutionId;
+
+    private String name;
+
+    private String surname;
+
+    private ArrayList<String> specialisations;
+
+    private int roleCode;
+
+    private ArrayList<String> nameKeys;
+
+    private String city;
+
+    private String province;
+
+    public DoctorSearchEntry(String userId, String institutionId, String name, String surname,
+                             ArrayList<String> specialisations, int roleCode,
+                             ArrayList<String> nameKeys, String city, String province) {
+        this.userId = userId;
+        this.institutionId = institutionId;
+        this.name = name;
+        this.surname = surname;
+        this.specialisations = specialisations;
+        this.roleCode = roleCode;
+        this.nameKeys = nameKeys;
+        this.city = city;
+        this.province = province;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getInstitutionId() {
+        return institutionId;
+    }
+
+    public void setInstitutionId(String institutionId) {
+        this.institutionId = institutionId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getSurname() {
+        return surname;
+    }
+
+    public void setSurname(String surname) {
+        this.surname = surname;
+    }
+
+    public ArrayList<String> getSpecialisations() {
+        return specialisations;
+    }
+
+    public void setSpecialisations(ArrayList<String> specialisations) {
+        this.specialisations = specialisations;
+    }
+
+    public int getRoleCode() {
+        return roleCode;
+    }
+
+    public void setRoleCode(int roleCode) {
+        this.roleCode = roleCode;
+    }
+
+    public ArrayList<String> getNameKeys() {
+        return nameKeys;
+    }
+
+    public void setNameKeys(ArrayList<String> nameKeys) {
+        this.nameKeys = nameKeys;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public void setCity(String city) {
+        this.city = city;
+    }
+
+    public String getProvince() {
+        return province;
+    }
+
+    public void setProvince(String province) {
+        this.province = province;
+    }
+}
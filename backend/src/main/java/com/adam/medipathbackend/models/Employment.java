@@ -0,0 +1,131 @@
+package com.adam.medipathbackend.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+@Document("Employment")
+@CompoundIndexes({
+        @CompoundIndex(name = "userId_institutionId", def = "{'userId': 1, 'institutionId': 1}", unique = true),
+        @CompoundIndex(name = "institutionId_roleCode", def = "{'institutionId': 1, 'roleCode': 1}")
+})
+public class Employment {
+
+    public static final List<Integer> DOCTOR_ROLE_CODES = List.of(2, 3, 6, 7, 10, 11, 14, 15);
+
+    public static final List<Integer> STAFF_ROLE_CODES = List.of(4, 5, 6, 7, 12, 13, 14, 15);
+
+    public static final List<Integer> ADMIN_ROLE_CODES = List.of(8, 9, 10, 11, 12, 13, 14, 15);
+
+    @Id
+    private String id;
+
+    private String userId;
+
+    private String institutionId;
+
+    private String name;
+
+    private String surname;
+
+    private ArrayList<String> specialisations;
+
+    private int roleCode;
+
+    private String pfpimage;
+
+    public Employment(String userId, String institutionId, String name, String surname,
+                      ArrayList<String> specialisations, int roleCode, String pfpimage) {
+        this.userId = userId;
+        this.institutionId = institutionId;
+        this.name = name;
+        this.surname = surname;
+        this.specialisations = specialisations;
+        this.roleCode = roleCode;
+        this.pfpimage = pfpimage;
+    }
+
+    public static Employment of(String institutionId, StaffDigest digest) {
+        return new Employment(digest.getUserId(), institutionId, digest.getName(), digest.getSurname(),
+                digest.getSpecialisations(), digest.getRoleCode(), digest.getPfpimage());
+    }
+
+    public StaffDigest toStaffDigest() {
+        return new StaffDigest(userId, name, surname, specialisations, roleCode, pfpimage);
+    }
+
+    public boolean matches(StaffDigest digest) {
+        return Objects.equals(name, digest.getName()) && Objects.equals(surname, digest.getSurname())
+                && Objects.equals(specialisations, digest.getSpecialisations())
+                && roleCode == digest.getRoleCode() && Objects.equals(pfpimage, digest.getPfpimage());
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getInstitutionId() {
+        return institutionId;
+    }
+
+    public void setInstitutionId(String institutionId) {
+        this.institutionId = institutionId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getSurname() {
+        return surname;
+    }
+
+    public void setSurname(String surname) {
+        this.surname = surname;
+    }
+
+    public ArrayList<String> getSpecialisations() {
+        return specialisations;
+    }
+
+    public void setSpecialisations(ArrayList<String> specialisations) {
+        this.specialisations = specialisations;
+    }
+
+    public int getRoleCode() {
+        return roleCode;
+    }
+
+    public void setRoleCode(int roleCode) {
+        this.roleCode = roleCode;
+    }
+
+    public String getPfpimage() {
+        return pfpimage;
+    }
+
+    public void setPfpimage(String pfpimage) {
+        this.pfpimage = pfpimage;
+    }
+}
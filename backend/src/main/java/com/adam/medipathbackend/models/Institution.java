@@ -22,16 +22,8 @@ public class Institution {
 
     private ArrayList<StaffDigest> employees;
 
-    private float rating;
-
     private String image;
 
-    public int getNumOfRatings() {
-        return numOfRatings;
-    }
-
-    private int numOfRatings;
-
     private String description;
 
     private boolean isActive;
@@ -40,12 +32,10 @@ public class Institution {
         this.name = name;
         this.isPublic = isPublic;
         this.address = address;
-        this.rating = 0;
         this.image = image;
         this.types = types;
         this.description = description;
         this.employees = new ArrayList<>();
-        this.numOfRatings = 0;
         isActive = true;
     }
 
@@ -99,29 +89,6 @@ public class Institution {
         employees.add(staff);
     }
 
-    public float getRating() {
-        return rating;
-    }
-
-    public void addRating(float newRating) {
-        this.rating = ((this.rating * this.numOfRatings) + newRating) / (this.numOfRatings + 1);
-        this.numOfRatings += 1;
-    }
-
-    public void editRating(float newRating, float oldRating) {
-        this.rating = ((this.rating * this.numOfRatings) - oldRating + newRating) / this.numOfRatings;
-    }
-
-    public void subtractRating(float newRating) {
-        if(numOfRatings - 1 == 0) {
-            this.rating = 0;
-            this.numOfRatings = 0;
-        } else {
-            this.rating = ((this.rating * this.numOfRatings) - newRating) / (this.numOfRatings - 1);
-            this.numOfRatings -= 1;
-        }
-    }
-
     public String getImage() {
         return image;
     }
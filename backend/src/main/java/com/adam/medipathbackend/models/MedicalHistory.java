@@ -2,6 +2,7 @@ package com.adam.medipathbackend.models;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDate;
@@ -11,6 +12,7 @@ public class MedicalHistory {
     @Id
     private String id;
 
+    @Indexed
     private String userId;
 
     private String title;
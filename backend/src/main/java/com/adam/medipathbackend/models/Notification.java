@@ -1,13 +1,30 @@
 package com.adam.medipathbackend.models;
 
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
 import java.time.LocalDateTime;
 
+@Document("Notification")
+@CompoundIndexes({
+        @CompoundIndex(name = "userId_timestamp", def = "{'userId': 1, 'timestamp': 1}"),
+        @CompoundIndex(name = "timestamp_sent", def = "{'timestamp': 1, 'sent': 1}")
+})
 public class Notification {
+    @Id
+    private String id;
+    private String userId;
     private String title;
     private String content;
+    @Indexed(name = "timestamp_ttl", expireAfter = "30d")
     private LocalDateTime timestamp;
     private boolean isSystem;
     private boolean isRead;
+    private boolean sent;
+    private boolean missed;
 
     public Notification(String title, String content, LocalDateTime timestamp, boolean isSystem, boolean isRead) {
         this.title = title;
@@ -56,4 +73,36 @@ public class Notification {
     public void setRead(boolean read) {
         isRead = read;
     }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public boolean isSent() {
+        return sent;
+    }
+
+    public void setSent(boolean sent) {
+        this.sent = sent;
+    }
+
+    public boolean isMissed() {
+        return missed;
+    }
+
+    public void setMissed(boolean missed) {
+        this.missed = missed;
+    }
 }
@@ -1,6 +1,8 @@
 package com.adam.medipathbackend.models;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDate;
@@ -8,6 +10,7 @@ import java.time.LocalDateTime;
 
 
 @Document("PasswordReset")
+@CompoundIndex(name = "email_dateIssued", def = "{'email': 1, 'dateIssued': 1}")
 public class PasswordResetEntry {
 
     @Id
@@ -15,8 +18,10 @@ public class PasswordResetEntry {
 
     private final String email;
 
+    @Indexed
     private final String token;
     private final LocalDateTime dateIssued;
+    @Indexed(name = "dateExpiry_ttl", expireAfter = "0s")
     private LocalDateTime dateExpiry;
 
     private boolean gotUsed;
@@ -0,0 +1,69 @@
+package com.adam.medipathbackend.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Document("RatingStats")
+public class RatingStats {
+
+    public static final String SUM = "sum";
+
+    public static final String COUNT = "count";
+
+    public static final String HISTOGRAM = "histogram";
+
+    @Id
+    private String id;
+
+    private long sum;
+
+    private int count;
+
+    private Map<String, Integer> histogram;
+
+    public RatingStats() {
+        this.histogram = new HashMap<>();
+    }
+
+    public RatingStats(String id) {
+        this();
+        this.id = id;
+    }
+
+    public static int toHalfStars(float rating) {
+        return Math.round(rating * 2);
+    }
+
+    public static String bucket(float rating) {
+        return HISTOGRAM + "." + toHalfStars(rating);
+    }
+
+    public void add(float rating, int times) {
+        sum += (long) toHalfStars(rating) * times;
+        count += times;
+        histogram.merge(String.valueOf(toHalfStars(rating)), times, Integer::sum);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public float getAverage() {
+        return count == 0 ? 0 : sum / (2f * count);
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public Map<String, Integer> getHistogram() {
+        return histogram == null ? Map.of() : histogram;
+    }
+}
@@ -2,11 +2,19 @@ package com.adam.medipathbackend.models;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 
 @Document("Schedule")
+@CompoundIndexes({
+        @CompoundIndex(name = "doctor_startHour", def = "{'doctor.userId': 1, 'startHour': 1}"),
+        @CompoundIndex(name = "doctor_endHour_startHour", def = "{'doctor.userId': 1, 'endHour': 1, 'startHour': 1}"),
+        @CompoundIndex(name = "institution_startHour_id", def = "{'institution.institutionId': 1, 'startHour': 1, '_id': 1}"),
+        @CompoundIndex(name = "startHour_booked", def = "{'startHour': 1, 'booked': 1}")
+})
 public class Schedule {
     @Id
     private String id;
@@ -0,0 +1,13 @@
+package com.adam.medipathbackend.models;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+public record ScheduleSummary(String id,
+                              @JsonFormat(pattern="yyyy-MM-dd HH:mm:ss", timezone="Europe/Warsaw") LocalDateTime startHour,
+                              @JsonFormat(pattern="yyyy-MM-dd HH:mm:ss", timezone="Europe/Warsaw") LocalDateTime endHour,
+                              boolean booked, String visitId, DoctorDigest doctor, InstitutionDigest institution) {
+
+    public static final String FIELDS = "{ '_id': 1, 'startHour': 1, 'endHour': 1, 'booked': 1, 'visitId': 1, 'doctor': 1, 'institution': 1 }";
+}
@@ -44,18 +44,12 @@ public class User {
 
     private int roleCode;
 
-    private ArrayList<Notification> notifications;
-
-    private float rating;
-
     private boolean isActive;
 
     private ArrayList<InstitutionDigest> employers;
 
     private UserSettings userSettings;
 
-    private int numOfRatings;
-
     private String pfpimage;
 
     @Override
@@ -77,19 +71,12 @@ public class User {
         this.specialisations = new ArrayList<>();
         this.latestMedicalHistory = new LinkedList<>();
         this.roleCode = 1;
-        this.notifications = new ArrayList<>();
-        this.rating = 0;
         this.isActive = true;
         this.employers = new ArrayList<>();
         this.userSettings = userSettings;
-        this.numOfRatings = 0;
         this.pfpimage = "";
     }
 
-    public int getNumOfRatings() {
-        return numOfRatings;
-    }
-
     public UserSettings getUserSettings() {
         return userSettings;
     }
@@ -197,41 +184,6 @@ public class User {
         this.roleCode = roleCode;
     }
 
-    public ArrayList<Notification> getNotifications() {
-        return notifications;
-    }
-
-    public void addNotification(Notification notification) {
-        this.notifications.add(notification);
-    }
-
-    public void removeNotification(Notification notification) {
-        this.notifications.remove(notification);
-    }
-    public float getRating() {
-        return rating;
-    }
-
-    public void addRating(float newRating) {
-        this.rating = ((this.rating * this.numOfRatings) + newRating) / (this.numOfRatings + 1);
-        this.numOfRatings++;
-    }
-
-    public void editRating(float newRating, float oldRating) {
-        this.rating = ((this.rating * this.numOfRatings) - oldRating + newRating) / this.numOfRatings;
-    }
-
-    public void subtractRating(float newRating) {
-        if(numOfRatings - 1 == 0) {
-            this.rating = 0;
-            this.numOfRatings = 0;
-        } else {
-            this.rating = ((this.rating * this.numOfRatings) - newRating) / (this.numOfRatings - 1);
-            this.numOfRatings -= 1;
-        }
-
-    }
-
     public boolean isActive() {
         return isActive;
     }
@@ -261,8 +213,4 @@ public class User {
     public void setPfpimage(String pfpimage) {
         this.pfpimage = pfpimage;
     }
-
-    public void setNotifications(ArrayList<Notification> notifications) {
-        this.notifications = notifications;
-    }
 }
@@ -2,11 +2,18 @@ package com.adam.medipathbackend.models;
 
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.ArrayList;
 
 @Document("Visit")
+@CompoundIndexes({
+        @CompoundIndex(name = "patient_startTime_id", def = "{'patient.userId': 1, 'time.startTime': 1, '_id': 1}"),
+        @CompoundIndex(name = "doctor_startTime_id", def = "{'doctor.userId': 1, 'time.startTime': 1, '_id': 1}"),
+        @CompoundIndex(name = "institution_startTime_id", def = "{'institution.institutionId': 1, 'time.startTime': 1, '_id': 1}")
+})
 public class Visit {
 
     @Id
@@ -0,0 +1,7 @@
+package com.adam.medipathbackend.models;
+
+public record VisitSummary(String id, String status, PatientDigest patient, DoctorDigest doctor, VisitTime time,
+                           InstitutionDigest institution, String patientRemarks, String commentId) {
+
+    public static final String FIELDS = "{ '_id': 1, 'status': 1, 'patient': 1, 'doctor': 1, 'time': 1, 'institution': 1, 'patientRemarks': 1, 'commentId': 1 }";
+}
@@ -0,0 +1,142 @@
+package com.adam.medipathbackend.repository;
+
+import com.adam.medipathbackend.models.Institution;
+import com.adam.medipathbackend.models.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class ActiveEntityCache extends AbstractMongoEventListener<Object> {
+
+    private static final Set<Class<?>> CACHED_TYPES = Set.of(User.class, Institution.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    private final long ttlMillis;
+
+    private final Map<Class<?>, TypeCache> caches = new HashMap<>();
+
+    public ActiveEntityCache(MongoTemplate mongoTemplate, MeterRegistry meterRegistry,
+                             @Value("${medipath.cache.active-entities.max-size:10000}") int maxSize,
+                             @Value("${medipath.cache.active-entities.ttl:60000}") long ttlMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.ttlMillis = ttlMillis;
+        for(Class<?> type: CACHED_TYPES) {
+            String entity = type.getSimpleName();
+            TypeCache cache = new TypeCache(maxSize,
+                    Counter.builder("medipath.cache.active.hits").tag("entity", entity).register(meterRegistry),
+                    Counter.builder("medipath.cache.active.misses").tag("entity", entity).register(meterRegistry));
+            Gauge.builder("medipath.cache.active.size", cache, TypeCache::size).tag("entity", entity).register(meterRegistry);
+            caches.put(type, cache);
+        }
+    }
+
+    public <T> Optional<T> findActiveById(Class<T> type, String id) {
+        if(id == null || !ObjectId.isValid(id)) return Optional.empty();
+        TypeCache cache = caches.get(type);
+
+        Document document = cache.get(id);
+        if(document != null) {
+            cache.hits.increment();
+        } else {
+            cache.misses.increment();
+            long generation = cache.generation.get();
+            document = mongoTemplate.getCollection(mongoTemplate.getCollectionName(type))
+                    .find(new Document("_id", new ObjectId(id)).append("isActive", true)).first();
+            if(document == null) return Optional.empty();
+            cache.put(id, document, generation, System.currentTimeMillis() + ttlMillis);
+        }
+        return Optional.of(mongoTemplate.getConverter().read(type, document));
+    }
+
+    public void evict(Class<?> type, String id) {
+        TypeCache cache = caches.get(type);
+        if(cache != null) cache.remove(id);
+    }
+
+    public void clear() {
+        caches.values().forEach(TypeCache::clear);
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Object> event) {
+        Object id = event.getDocument() == null ? null : event.getDocument().get("_id");
+        if(id != null) evict(event.getSource().getClass(), id.toString());
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Object> event) {
+        if(event.getType() == null || !caches.containsKey(event.getType())) return;
+        Document query = event.getDocument();
+        if(query != null && query.get("_id") instanceof ObjectId id) {
+            evict(event.getType(), id.toHexString());
+        } else {
+            caches.get(event.getType()).clear();
+        }
+    }
+
+    private static class TypeCache {
+
+        private final LinkedHashMap<String, CachedDocument> entries;
+
+        private final AtomicLong generation = new AtomicLong();
+
+        private final Counter hits;
+
+        private final Counter misses;
+
+        TypeCache(int maxSize, Counter hits, Counter misses) {
+            this.hits = hits;
+            this.misses = misses;
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedDocument> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+
+        synchronized Document get(String id) {
+            CachedDocument cached = entries.get(id);
+            if(cached == null) return null;
+            if(cached.expiresAt() < System.currentTimeMillis()) {
+                entries.remove(id);
+                return null;
+            }
+            return cached.document();
+        }
+
+        synchronized void put(String id, Document document, long observedGeneration, long expiresAt) {
+            if(generation.get() != observedGeneration) return;
+            entries.put(id, new CachedDocument(document, expiresAt));
+        }
+
+        synchronized void remove(String id) {
+            generation.incrementAndGet();
+            entries.remove(id);
+        }
+
+        synchronized void clear() {
+            generation.incrementAndGet();
+            entries.clear();
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+
+    private record CachedDocument(Document document, long expiresAt) {}
+}
@@ -0,0 +1,255 @@
+package com.adam.medipathbackend.repository;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.MapSession;
+import org.springframework.session.SessionRepository;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mongo-backed session store with a per-instance near-cache and write-behind of access times.
+ * <p>
+ * The near-cache is not shared between instances. When a session is deleted or logged out on one
+ * instance, another instance can keep serving its cached copy for up to {@code medipath.session.cache.ttl}
+ * milliseconds. That is fine for a single instance or sticky sessions. Deployments behind a
+ * non-sticky load balancer should set the TTL to 0, which disables the near-cache and reads every
+ * session from Mongo.
+ */
+@Component
+public class CachingMongoSessionRepository implements SessionRepository<MapSession> {
+
+    private static final Logger log = LoggerFactory.getLogger(CachingMongoSessionRepository.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    private final MeterRegistry meterRegistry;
+
+    private final SessionDocumentCodec codec = new SessionDocumentCodec();
+
+    private final String collectionName;
+
+    private final Duration maxInactiveInterval;
+
+    private final long ttlMillis;
+
+    private final LinkedHashMap<String, CachedSession> cache;
+
+    private final ConcurrentHashMap<String, Touch> pendingTouches = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Counter writes;
+
+    private final Counter deferredWrites;
+
+    public CachingMongoSessionRepository(MongoTemplate mongoTemplate, MeterRegistry meterRegistry,
+                                         @Value("${medipath.session.collection:sessions}") String collectionName,
+                                         @Value("${medipath.session.timeout:1800}") long timeoutSeconds,
+                                         @Value("${medipath.session.cache.max-size:10000}") int maxSize,
+                                         @Value("${medipath.session.cache.ttl:30000}") long ttlMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.meterRegistry = meterRegistry;
+        this.collectionName = collectionName;
+        this.maxInactiveInterval = Duration.ofSeconds(timeoutSeconds);
+        this.ttlMillis = ttlMillis;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedSession> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.hits = Counter.builder("medipath.session.cache.hits").register(meterRegistry);
+        this.misses = Counter.builder("medipath.session.cache.misses").register(meterRegistry);
+        this.writes = Counter.builder("medipath.session.writes").register(meterRegistry);
+        this.deferredWrites = Counter.builder("medipath.session.writes.deferred").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void registerGauges() {
+        Gauge.builder("medipath.session.cache.size", this, CachingMongoSessionRepository::cacheSize).register(meterRegistry);
+        Gauge.builder("medipath.session.touches.pending", pendingTouches, Map::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void ensureIndexes() {
+        try {
+            mongoTemplate.indexOps(collectionName).createIndex(new Index(SessionDocumentCodec.EXPIRE_AT, Sort.Direction.ASC)
+                    .named(SessionDocumentCodec.EXPIRE_AT).expire(Duration.ZERO));
+        } catch (RuntimeException e) {
+            log.warn("Could not create the session expiry index: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public MapSession createSession() {
+        MapSession session = new MapSession();
+        session.setMaxInactiveInterval(maxInactiveInterval);
+        return session;
+    }
+
+    @Override
+    public void save(MapSession session) {
+        if(!session.getId().equals(session.getOriginalId())) {
+            deleteById(session.getOriginalId());
+        }
+
+        CachedSession cached = cached(session.getId());
+        if(cached == null && session.getAttributeNames().isEmpty()) return;
+        if(cached != null && cached.stored().sameState(session)) {
+            if(!cached.stored().accessed().equals(session.getLastAccessedTime())) {
+                pendingTouches.put(session.getId(), new Touch(session.getLastAccessedTime(), SessionDocumentCodec.expireAt(session)));
+                deferredWrites.increment();
+            }
+            remember(new MapSession(session), cached.stored());
+            return;
+        }
+
+        pendingTouches.remove(session.getId());
+        mongoTemplate.getCollection(collectionName).replaceOne(Filters.eq(SessionDocumentCodec.ID, session.getId()),
+                codec.encode(session), new ReplaceOptions().upsert(true));
+        writes.increment();
+        MapSession copy = new MapSession(session);
+        remember(copy, new StoredState(copy));
+    }
+
+    @Override
+    public MapSession findById(String id) {
+        CachedSession cached = cached(id);
+        if(cached != null) {
+            hits.increment();
+            if(cached.session().isExpired()) {
+                deleteById(id);
+                return null;
+            }
+            return new MapSession(cached.session());
+        }
+
+        misses.increment();
+        Document document = mongoTemplate.getCollection(collectionName).find(Filters.eq(SessionDocumentCodec.ID, id)).first();
+        if(document == null) return null;
+
+        MapSession session = codec.decode(document);
+        if(session.isExpired()) {
+            deleteById(id);
+            return null;
+        }
+        remember(new MapSession(session), new StoredState(session));
+        return session;
+    }
+
+    @Override
+    public void deleteById(String id) {
+        synchronized(cache) {
+            cache.remove(id);
+        }
+        pendingTouches.remove(id);
+        mongoTemplate.getCollection(collectionName).deleteOne(Filters.eq(SessionDocumentCodec.ID, id));
+    }
+
+    @Scheduled(fixedDelayString = "${medipath.session.flush-interval:10000}")
+    public void flushTouches() {
+        evictStale();
+        if(pendingTouches.isEmpty()) return;
+        ArrayList<WriteModel<Document>> updates = new ArrayList<>();
+        for(String id: new ArrayList<>(pendingTouches.keySet())) {
+            Touch touch = pendingTouches.remove(id);
+            if(touch == null) continue;
+            updates.add(new UpdateOneModel<>(Filters.eq(SessionDocumentCodec.ID, id), Updates.combine(
+                    Updates.max(SessionDocumentCodec.ACCESSED, Date.from(touch.accessed())),
+                    Updates.max(SessionDocumentCodec.EXPIRE_AT, touch.expireAt()))));
+        }
+        if(updates.isEmpty()) return;
+        try {
+            mongoTemplate.getCollection(collectionName).bulkWrite(updates);
+            writes.increment(updates.size());
+        } catch (RuntimeException e) {
+            log.warn("Could not flush {} session access times: {}", updates.size(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushTouches();
+    }
+
+    private void evictStale() {
+        long now = System.currentTimeMillis();
+        synchronized(cache) {
+            cache.values().removeIf(cached -> cached.expiresAt() < now);
+        }
+    }
+
+    private CachedSession cached(String id) {
+        synchronized(cache) {
+            CachedSession cached = cache.get(id);
+            if(cached == null) return null;
+            if(cached.expiresAt() < System.currentTimeMillis()) {
+                cache.remove(id);
+                return null;
+            }
+            return cached;
+        }
+    }
+
+    private void remember(MapSession session, StoredState stored) {
+        if(ttlMillis <= 0) return;
+        synchronized(cache) {
+            CachedSession previous = cache.get(session.getId());
+            long expiresAt = previous != null && previous.stored() == stored ? previous.expiresAt()
+                    : System.currentTimeMillis() + ttlMillis;
+            cache.put(session.getId(), new CachedSession(session, stored, expiresAt));
+        }
+    }
+
+    private int cacheSize() {
+        synchronized(cache) {
+            return cache.size();
+        }
+    }
+
+    private record CachedSession(MapSession session, StoredState stored, long expiresAt) {}
+
+    private record Touch(Instant accessed, Date expireAt) {}
+
+    private record StoredState(Instant accessed, Duration maxInactiveInterval, Map<String, Object> attributes) {
+
+        StoredState(MapSession session) {
+            this(session.getLastAccessedTime(), session.getMaxInactiveInterval(), attributesOf(session));
+        }
+
+        boolean sameState(MapSession session) {
+            return maxInactiveInterval.equals(session.getMaxInactiveInterval()) && attributes.equals(attributesOf(session));
+        }
+
+        private static Map<String, Object> attributesOf(MapSession session) {
+            HashMap<String, Object> attributes = new HashMap<>();
+            for(String name: session.getAttributeNames()) {
+                attributes.put(name, session.getAttribute(name));
+            }
+            return attributes;
+        }
+    }
+}
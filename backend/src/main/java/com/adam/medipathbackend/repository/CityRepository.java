@@ -8,9 +8,6 @@ import java.util.List;
 
 public interface CityRepository extends MongoRepository<City, String> {
 
-    @Query("{'name': {$regex : ?0, $options: 'i'}}")
-    List<City> findAll(String match);
-
     @Query("{}")
     List<City> findAll();
 
@@ -0,0 +1,20 @@
+package com.adam.medipathbackend.repository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+public record CursorPage<T>(List<T> items, String nextCursor) {
+
+    public <R> CursorPage<R> map(Function<T, R> mapper) {
+        return new CursorPage<>(items.stream().map(mapper).toList(), nextCursor);
+    }
+
+    public Map<String, Object> toResponse(String itemsKey) {
+        HashMap<String, Object> response = new HashMap<>();
+        response.put(itemsKey, items);
+        response.put("nextCursor", nextCursor);
+        return response;
+    }
+}
@@ -0,0 +1,26 @@
+package com.adam.medipathbackend.repository;
+
+import com.adam.medipathbackend.models.DoctorSearchEntry;
+import org.springframework.data.mongodb.repository.DeleteQuery;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+
+import java.util.ArrayList;
+
+public interface DoctorSearchEntryRepository extends MongoRepository<DoctorSearchEntry, String> {
+
+    @Query("{nameKeys: {$regex: ?0}}")
+    ArrayList<DoctorSearchEntry> findByName(String namePrefix);
+
+    @Query("{nameKeys: {$regex: ?0}, specialisations: {$in: ?1}}")
+    ArrayList<DoctorSearchEntry> findByNameAndSpec(String namePrefix, String[] specialisations);
+
+    @Query("{$or: [{city: {$regex: ?0}, nameKeys: {$regex: ?1}}, {province: {$regex: ?0}, nameKeys: {$regex: ?1}}]}")
+    ArrayList<DoctorSearchEntry> findByLocationAndName(String locationPrefix, String namePrefix);
+
+    @Query("{$or: [{city: {$regex: ?0}, nameKeys: {$regex: ?1}}, {province: {$regex: ?0}, nameKeys: {$regex: ?1}}], specialisations: {$in: ?2}}")
+    ArrayList<DoctorSearchEntry> findByLocationAndNameAndSpec(String locationPrefix, String namePrefix, String[] specialisations);
+
+    @DeleteQuery("{institutionId: ?0}")
+    void deleteByInstitutionId(String institutionId);
+}
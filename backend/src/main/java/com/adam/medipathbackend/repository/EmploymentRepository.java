@@ -0,0 +1,30 @@
+package com.adam.medipathbackend.repository;
+
+import com.adam.medipathbackend.models.Employment;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Optional;
+
+public interface EmploymentRepository extends MongoRepository<Employment, String> {
+
+    @Query("{userId: ?0, institutionId: ?1}")
+    Optional<Employment> findEmployment(String userId, String institutionId);
+
+    @Query("{userId: ?0}")
+    ArrayList<Employment> getEmploymentsOfUser(String userId);
+
+    @Query("{userId: ?0, roleCode: {$in: ?1}}")
+    ArrayList<Employment> getEmploymentsOfUserWithRoles(String userId, Collection<Integer> roleCodes);
+
+    @Query("{institutionId: ?0}")
+    ArrayList<Employment> getEmploymentsInInstitution(String institutionId);
+
+    @Query(value = "{institutionId: ?0, roleCode: {$in: ?1}}", sort = "{roleCode: 1}")
+    ArrayList<Employment> getEmploymentsInInstitutionWithRoles(String institutionId, Collection<Integer> roleCodes);
+
+    @Query(value = "{institutionId: {$nin: ?0}}", delete = true)
+    long deleteOutsideInstitutions(Collection<String> institutionIds);
+}
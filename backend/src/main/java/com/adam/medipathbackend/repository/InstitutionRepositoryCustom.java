@@ -0,0 +1,10 @@
+package com.adam.medipathbackend.repository;
+
+import com.adam.medipathbackend.models.Institution;
+
+import java.util.Optional;
+
+public interface InstitutionRepositoryCustom {
+
+    Optional<Institution> findActiveById(String id);
+}
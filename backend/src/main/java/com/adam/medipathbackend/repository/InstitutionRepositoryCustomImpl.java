@@ -0,0 +1,17 @@
+package com.adam.medipathbackend.repository;
+
+import com.adam.medipathbackend.models.Institution;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Optional;
+
+public class InstitutionRepositoryCustomImpl implements InstitutionRepositoryCustom {
+
+    @Autowired
+    private ActiveEntityCache activeEntityCache;
+
+    @Override
+    public Optional<Institution> findActiveById(String id) {
+        return activeEntityCache.findActiveById(Institution.class, id);
+    }
+}
@@ -0,0 +1,120 @@
+package com.adam.medipathbackend.repository;
+
+import com.adam.medipathbackend.models.Comment;
+import com.adam.medipathbackend.models.ScheduleSummary;
+import com.adam.medipathbackend.models.VisitSummary;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.RecordComponent;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+@Component
+public class KeysetPager {
+
+    public static final Keyset<VisitSummary> VISITS_BY_START = new Keyset<>("time.startTime", Sort.Direction.ASC,
+            visit -> visit.time().getStartTime(), VisitSummary::id);
+
+    public static final Keyset<ScheduleSummary> SCHEDULES_BY_START = new Keyset<>("startHour", Sort.Direction.ASC,
+            ScheduleSummary::startHour, ScheduleSummary::id);
+
+    public static final Keyset<Comment> COMMENTS_NEWEST_FIRST = new Keyset<>("createdAt", Sort.Direction.DESC,
+            Comment::getCreatedAt, Comment::getId);
+
+    private static final String SEPARATOR = "|";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${medipath.pagination.default-size:50}")
+    private int defaultSize;
+
+    @Value("${medipath.pagination.max-size:200}")
+    private int maxSize;
+
+    public <T> CursorPage<T> page(Class<?> entityType, Class<T> resultType, Criteria criteria, Keyset<T> keyset,
+                                  String cursor, Integer limit) {
+        int size = limit == null ? defaultSize : limit;
+        if(size < 1) throw new IllegalArgumentException("Invalid page size");
+        size = Math.min(size, maxSize);
+
+        Criteria filter = cursor == null || cursor.isBlank() ? criteria
+                : new Criteria().andOperator(criteria, keyset.after(decode(cursor)));
+        Query query = new Query(filter)
+                .with(Sort.by(keyset.direction(), keyset.field()).and(Sort.by(keyset.direction(), "_id")))
+                .limit(size + 1)
+                .cursorBatchSize(size + 1);
+        if(resultType.isRecord()) {
+            for(RecordComponent component: resultType.getRecordComponents()) {
+                query.fields().include(component.getName());
+            }
+        }
+
+        ArrayList<T> items = new ArrayList<>(size);
+        boolean hasMore = false;
+        try(Stream<T> stream = mongoTemplate.query(entityType).as(resultType).matching(query).stream()) {
+            Iterator<T> iterator = stream.iterator();
+            while(iterator.hasNext()) {
+                T item = iterator.next();
+                if(items.size() == size) {
+                    hasMore = true;
+                    break;
+                }
+                items.add(item);
+            }
+        }
+        String nextCursor = hasMore ? encode(keyset.position(items.getLast())) : null;
+        return new CursorPage<>(items, nextCursor);
+    }
+
+    private static String encode(Position position) {
+        String raw = position.sortKey() + SEPARATOR + position.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Position decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if(separator < 0) throw new IllegalArgumentException("Invalid cursor");
+            String id = raw.substring(separator + 1);
+            if(!ObjectId.isValid(id)) throw new IllegalArgumentException("Invalid cursor");
+            return new Position(LocalDateTime.parse(raw.substring(0, separator)), id);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public record Keyset<T>(String field, Sort.Direction direction, Function<T, LocalDateTime> sortKey,
+                            Function<T, String> id) {
+
+        Position position(T item) {
+            return new Position(sortKey.apply(item), id.apply(item));
+        }
+
+        Criteria after(Position position) {
+            ObjectId id = new ObjectId(position.id());
+            if(direction.isAscending()) {
+                return new Criteria().orOperator(Criteria.where(field).gt(position.sortKey()),
+                        Criteria.where(field).is(position.sortKey()).and("_id").gt(id));
+            }
+            return new Criteria().orOperator(Criteria.where(field).lt(position.sortKey()),
+                    Criteria.where(field).is(position.sortKey()).and("_id").lt(id));
+        }
+    }
+
+    private record Position(LocalDateTime sortKey, String id) {}
+}
@@ -0,0 +1,17 @@
+package com.adam.medipathbackend.repository;
+
+import com.adam.medipathbackend.models.MailOutboxEntry;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
+
+import java.time.LocalDateTime;
+
+public interface MailOutboxRepository extends MongoRepository<MailOutboxEntry, String> {
+
+    long countByStatus(String status);
+
+    @Query("{status: 'Sending', nextAttemptAt: {$lt: ?0}}")
+    @Update("{$set: {status: 'Pending'}}")
+    long releaseStaleClaims(LocalDateTime staleBefore);
+}
@@ -0,0 +1,56 @@
+package com.adam.medipathbackend.repository;
+
+import com.adam.medipathbackend.models.Notification;
+import org.springframework.data.mongodb.repository.DeleteQuery;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+
+public interface NotificationRepository extends MongoRepository<Notification, String> {
+
+    @Query(value = "{userId: ?0}", sort = "{timestamp: 1}")
+    ArrayList<Notification> getNotificationsForUser(String userId);
+
+    @Query(value = "{userId: ?0, timestamp: {$lt: ?1}}", sort = "{timestamp: 1}")
+    ArrayList<Notification> getReceivedNotificationsForUser(String userId, LocalDateTime now);
+
+    @Query(value = "{userId: ?0, timestamp: {$gt: ?1}}", sort = "{timestamp: 1}")
+    ArrayList<Notification> getUpcomingNotificationsForUser(String userId, LocalDateTime now);
+
+    @Query(value = "{timestamp: {$gte: ?0, $lt: ?1}, sent: false}", sort = "{timestamp: 1}")
+    ArrayList<Notification> getUnsentNotificationsBetween(LocalDateTime lower, LocalDateTime upper);
+
+    @Query("{_id: ?0, sent: false, missed: {$ne: true}}")
+    @Update("{$set: {sent: true}}")
+    long claimForSending(String id);
+
+    @Query("{_id: ?0, sent: false}")
+    @Update("{$set: {missed: true}}")
+    long markMissed(String id);
+
+    @Query("{timestamp: {$lt: ?0}, sent: false, missed: {$ne: true}}")
+    @Update("{$set: {missed: true}}")
+    long markMissedBefore(LocalDateTime cutoff);
+
+    @Query("{_id: ?0, sent: true}")
+    @Update("{$set: {sent: false}}")
+    long releaseClaim(String id);
+
+    @Query("{userId: ?0, title: ?1, timestamp: ?2}")
+    @Update("{$set: {isRead: true}}")
+    long markAsRead(String userId, String title, LocalDateTime timestamp);
+
+    @Query("{userId: ?0, timestamp: {$lte: ?1}, isRead: false}")
+    @Update("{$set: {isRead: true}}")
+    long markAllAsRead(String userId, LocalDateTime now);
+
+    @DeleteQuery("{userId: ?0, title: ?1, timestamp: {$in: ?2}}")
+    ArrayList<Notification> deleteNotifications(String userId, String title, Collection<LocalDateTime> timestamps);
+
+    @DeleteQuery("{userId: ?0, timestamp: ?1, isSystem: true}")
+    ArrayList<Notification> deleteSystemNotification(String userId, LocalDateTime timestamp);
+}
@@ -0,0 +1,102 @@
+package com.adam.medipathbackend.repository;
+
+import com.adam.medipathbackend.models.Comment;
+import com.adam.medipathbackend.models.RatingStats;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+@Component
+public class RatingStatsRepository {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    public RatingStats find(String targetId) {
+        RatingStats stats = targetId == null ? null : mongoTemplate.findById(targetId, RatingStats.class);
+        return stats == null ? new RatingStats(targetId) : stats;
+    }
+
+    public Map<String, RatingStats> findAll(Collection<String> targetIds) {
+        HashMap<String, RatingStats> stats = new HashMap<>();
+        if(targetIds.isEmpty()) return stats;
+        for(RatingStats found: mongoTemplate.find(Query.query(Criteria.where("_id").in(targetIds)), RatingStats.class)) {
+            stats.put(found.getId(), found);
+        }
+        for(String targetId: targetIds) {
+            stats.computeIfAbsent(targetId, RatingStats::new);
+        }
+        return stats;
+    }
+
+    public void recordDoctorRating(String doctorId, Float added, Float removed) {
+        record(doctorId, added, removed);
+    }
+
+    public void recordInstitutionRating(String institutionId, Float added, Float removed) {
+        record(institutionId, added, removed);
+    }
+
+    public int rebuild() {
+        HashMap<String, RatingStats> stats = new HashMap<>();
+        aggregate("doctorDigest.userId", "doctorRating", stats);
+        aggregate("institution.institutionId", "institutionRating", stats);
+
+        if(!stats.isEmpty()) {
+            BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RatingStats.class);
+            for(RatingStats entry: stats.values()) {
+                operations.upsert(Query.query(Criteria.where("_id").is(entry.getId())), new Update()
+                        .set(RatingStats.SUM, entry.getSum())
+                        .set(RatingStats.COUNT, entry.getCount())
+                        .set(RatingStats.HISTOGRAM, entry.getHistogram()));
+            }
+            operations.execute();
+        }
+        mongoTemplate.remove(Query.query(Criteria.where("_id").nin(stats.keySet())), RatingStats.class);
+        return stats.size();
+    }
+
+    private void record(String targetId, Float added, Float removed) {
+        if(added != null && removed != null && RatingStats.toHalfStars(added) == RatingStats.toHalfStars(removed)) return;
+
+        Update update = new Update();
+        long sum = 0;
+        int count = 0;
+        if(added != null) {
+            sum += RatingStats.toHalfStars(added);
+            count++;
+            update.inc(RatingStats.bucket(added), 1);
+        }
+        if(removed != null) {
+            sum -= RatingStats.toHalfStars(removed);
+            count--;
+            update.inc(RatingStats.bucket(removed), -1);
+        }
+        update.inc(RatingStats.SUM, sum).inc(RatingStats.COUNT, count);
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(targetId)), update, RatingStats.class);
+    }
+
+    private void aggregate(String target, String rating, Map<String, RatingStats> stats) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where(target).ne(null)),
+                Aggregation.group(target, rating).count().as("count"));
+
+        for(Document row: mongoTemplate.aggregate(aggregation, Comment.class, Document.class)) {
+            Document group = row.get("_id", Document.class);
+            String id = group.getString(target.substring(target.lastIndexOf('.') + 1));
+            Number score = group.get(rating, Number.class);
+            if(id == null || score == null) continue;
+            stats.computeIfAbsent(id, RatingStats::new).add(score.floatValue(), row.getInteger("count"));
+        }
+    }
+}
@@ -1,37 +1,53 @@
 package com.adam.medipathbackend.repository;
 
 import com.adam.medipathbackend.models.Schedule;
+import com.adam.medipathbackend.models.ScheduleSummary;
 import com.adam.medipathbackend.models.Visit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.*;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 
 public interface ScheduleRepository extends MongoRepository<Schedule, String> {
 
-    @Query("{'doctor.userId': ?0 }")
-    ArrayList<Schedule> getSchedulesByDoctor(String doctorID);
+    @Query(value = "{'doctor.userId': ?0, endHour: {$gt: ?1}, startHour: {$lt: ?2}}", fields = ScheduleSummary.FIELDS, sort = "{ 'startHour': 1 }")
+    ArrayList<ScheduleSummary> getScheduleWindow(String doctorID, LocalDateTime from, LocalDateTime to);
 
-    @Aggregation({"{ $match: { \"doctor.userId\": \"?0\", $expr: {  $gt: [\"$startHour\", { $dateTrunc: { date: \"$$NOW\",  unit: \"day\", binSize: 1 } } ] } } }"})
-    ArrayList<Schedule> getUpcomingSchedulesByDoctor(String doctorID);
+    @Query(value = "{'doctor.userId': ?0 }", fields = ScheduleSummary.FIELDS)
+    ArrayList<ScheduleSummary> getScheduleSummariesByDoctor(String doctorID);
 
-    @Aggregation({"{ $match: { \"doctor.userId\": \"?0\", \"institution.institutionId\": \"?1\", $expr: {  $gt: [\"$startHour\", { $dateTrunc: { date: \"$$NOW\",  unit: \"day\", binSize: 1 } } ] } } }"})
-    ArrayList<Schedule> getUpcomingSchedulesByDoctorInInstitution(String doctorID, String institutionId);
+    @Aggregation({"{ $match: { \"doctor.userId\": \"?0\", $expr: {  $gt: [\"$startHour\", { $dateTrunc: { date: \"$$NOW\",  unit: \"day\", binSize: 1 } } ] } } }",
+            "{ $project: " + ScheduleSummary.FIELDS + " }"})
+    ArrayList<ScheduleSummary> getUpcomingSchedulesByDoctor(String doctorID);
+
+    @Query(value = "{'doctor.userId': {$in: ?0}, 'startHour': {$gt: ?1}}", sort = "{'startHour': 1}")
+    ArrayList<Schedule> getUpcomingSchedulesByDoctors(Collection<String> doctorIDs, LocalDateTime after);
+
+    @Aggregation({"{ $match: { \"doctor.userId\": \"?0\", \"institution.institutionId\": \"?1\", $expr: {  $gt: [\"$startHour\", { $dateTrunc: { date: \"$$NOW\",  unit: \"day\", binSize: 1 } } ] } } }",
+            "{ $project: " + ScheduleSummary.FIELDS + " }"})
+    ArrayList<ScheduleSummary> getUpcomingSchedulesByDoctorInInstitution(String doctorID, String institutionId);
+
+    @Query(value = "{'doctor.userId': {$in: ?0}, 'institution.institutionId': ?1, 'startHour': {$gt: ?2}}",
+            fields = ScheduleSummary.FIELDS, sort = "{'startHour': 1}")
+    ArrayList<ScheduleSummary> getUpcomingSchedulesByDoctorsInInstitution(Collection<String> doctorIDs, String institutionId,
+                                                                          LocalDateTime after);
 
     @Query("{'doctor.userId': ?0, startHour: {$gte: ?1, $lte: ?2}}")
     ArrayList<Schedule> getSchedulesBetween(String doctorId, LocalDateTime date1, LocalDateTime date2);
 
-    @Query("{'institution.institutionId': ?0, 'startHour': {$gt: ?1, $lt: ?2}}")
-    ArrayList<Schedule> getInstitutionSchedulesOnDay(String institutionId, LocalDateTime date1, LocalDateTime date2);
-
-    @Query("{'institution.institutionId': ?0}}")
-    ArrayList<Schedule> getInstitutionSchedules(String institutionId);
+    @Query(value = "{'institution.institutionId': ?0, 'startHour': {$gt: ?1, $lt: ?2}}", fields = ScheduleSummary.FIELDS)
+    ArrayList<ScheduleSummary> getInstitutionSchedulesOnDay(String institutionId, LocalDateTime date1, LocalDateTime date2);
 
     @Query("{'doctor.userId': ?0}")
     @Update("{'$set': { booked: true }}")
     void deleteAllFutureSchedulesForDoctor(String doctorid);
 
-    @DeleteQuery("{ startHour: { $lt: ?0 }, booked: false}")
-    void deleteOldSchedules(LocalDateTime date);
+    @Query(value = "{ startHour: { $lt: ?0 }, booked: false}", fields = "{ _id: 1 }", sort = "{ startHour: 1 }")
+    ArrayList<Schedule> findOldSchedules(LocalDateTime date, Pageable batch);
+
+    @DeleteQuery("{ _id: { $in: ?0 }, startHour: { $lt: ?1 }, booked: false}")
+    long deleteOldSchedules(Collection<String> ids, LocalDateTime date);
 
 }
@@ -0,0 +1,100 @@
+package com.adam.medipathbackend.repository;
+
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.session.MapSession;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+
+public final class SessionDocumentCodec {
+
+    static final String ID = "_id";
+
+    static final String CREATED = "created";
+
+    static final String ACCESSED = "accessed";
+
+    static final String INTERVAL = "interval";
+
+    static final String EXPIRE_AT = "expireAt";
+
+    static final String ATTRIBUTES = "attrs";
+
+    private static final String LEGACY_ATTRIBUTES = "attr";
+
+    private static final char DOT = '.';
+
+    private static final char COVERED_DOT = '\uF607';
+
+    private final SerializingConverter serializer = new SerializingConverter();
+
+    private final DeserializingConverter deserializer = new DeserializingConverter();
+
+    public Document encode(MapSession session) {
+        Document attributes = new Document();
+        for(String name: session.getAttributeNames()) {
+            attributes.put(name.replace(DOT, COVERED_DOT), encodeValue(session.getAttribute(name)));
+        }
+        return new Document(ID, session.getId())
+                .append(CREATED, Date.from(session.getCreationTime()))
+                .append(ACCESSED, Date.from(session.getLastAccessedTime()))
+                .append(INTERVAL, session.getMaxInactiveInterval().toSeconds())
+                .append(EXPIRE_AT, expireAt(session))
+                .append(ATTRIBUTES, attributes);
+    }
+
+    public MapSession decode(Document document) {
+        MapSession session = new MapSession(document.getString(ID));
+        session.setCreationTime(toInstant(document.get(CREATED)));
+        session.setLastAccessedTime(toInstant(document.get(ACCESSED)));
+        session.setMaxInactiveInterval(toDuration(document.get(INTERVAL)));
+
+        if(document.get(ATTRIBUTES) instanceof Document attributes) {
+            for(Map.Entry<String, Object> attribute: attributes.entrySet()) {
+                session.setAttribute(attribute.getKey().replace(COVERED_DOT, DOT), decodeValue(attribute.getValue()));
+            }
+        } else if(document.get(LEGACY_ATTRIBUTES) instanceof Binary legacy) {
+            Object attributes = deserializer.convert(legacy.getData());
+            if(attributes instanceof Map<?, ?> map) {
+                map.forEach((name, value) -> session.setAttribute(name.toString(), value));
+            }
+        }
+        return session;
+    }
+
+    static Date expireAt(MapSession session) {
+        return Date.from(session.getLastAccessedTime().plus(session.getMaxInactiveInterval()));
+    }
+
+    private Object encodeValue(Object value) {
+        if(value == null || value instanceof String || value instanceof Boolean || value instanceof Integer
+                || value instanceof Long || value instanceof Double || value instanceof Date) {
+            return value;
+        }
+        return new Binary(serializer.convert(value));
+    }
+
+    private Object decodeValue(Object value) {
+        if(value instanceof Binary binary) {
+            return deserializer.convert(binary.getData());
+        }
+        return value;
+    }
+
+    private static Instant toInstant(Object value) {
+        if(value instanceof Date date) return date.toInstant();
+        if(value instanceof Instant instant) return instant;
+        return Instant.now();
+    }
+
+    private static Duration toDuration(Object value) {
+        if(value instanceof Number seconds) return Duration.ofSeconds(seconds.longValue());
+        if(value != null) return Duration.parse(value.toString());
+        return MapSession.DEFAULT_MAX_INACTIVE_INTERVAL;
+    }
+}
@@ -0,0 +1,10 @@
+package com.adam.medipathbackend.repository;
+
+import com.adam.medipathbackend.models.User;
+
+import java.util.Optional;
+
+public interface UserRepositoryCustom {
+
+    Optional<User> findActiveById(String id);
+}
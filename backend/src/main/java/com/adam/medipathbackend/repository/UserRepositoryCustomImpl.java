@@ -0,0 +1,17 @@
+package com.adam.medipathbackend.repository;
+
+import com.adam.medipathbackend.models.User;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Optional;
+
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    @Autowired
+    private ActiveEntityCache activeEntityCache;
+
+    @Override
+    public Optional<User> findActiveById(String id) {
+        return activeEntityCache.findActiveById(User.class, id);
+    }
+}
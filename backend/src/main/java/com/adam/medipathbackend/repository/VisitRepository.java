@@ -2,6 +2,7 @@ package com.adam.medipathbackend.repository;
 
 import com.adam.medipathbackend.models.User;
 import com.adam.medipathbackend.models.Visit;
+import com.adam.medipathbackend.models.VisitSummary;
 import org.springframework.data.mongodb.repository.Aggregation;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
@@ -13,8 +14,8 @@ import java.util.Optional;
 
 public interface VisitRepository extends MongoRepository<Visit, String> {
 
-  @Query("{'patient.userId': ?0, 'time.startTime': { $gt: new Date() }, 'status': 'Upcoming'}")
-  ArrayList<Visit> getUpcomingVisits(String patientID);
+  @Query(value = "{'patient.userId': ?0, 'time.startTime': { $gt: new Date() }, 'status': 'Upcoming'}", fields = VisitSummary.FIELDS)
+  ArrayList<VisitSummary> getUpcomingVisits(String patientID);
 
   @Query("{'patient.userId': ?0}")
   ArrayList<Visit> getAllVisitsForPatient(String patientID);
@@ -26,23 +27,20 @@ public interface VisitRepository extends MongoRepository<Visit, String> {
   @Query("{'patient.userId': ?0, 'doctor.userId': ?1}")
   ArrayList<Visit> getAllVisitsForPatientWithDoctor(String patientID, String doctorId);
 
-  @Query(value = "{ 'doctor.userId': ?0 }", fields = "{ '_id': 1, 'status': 1, 'note': 1, 'codes': 1, 'patient': 1, 'doctor': 1, 'time': 1, 'institution': 1, 'patientRemarks': 1, 'commentId': 1 }")
-  ArrayList<Visit> getAllVisitsForDoctor(String doctorId);
+  @Query(value = "{ 'doctor.userId': ?0 }", fields = VisitSummary.FIELDS)
+  ArrayList<VisitSummary> getAllVisitsForDoctor(String doctorId);
 
   @Query("{'patient.userId' : ?0, 'institution.institutionId' : ?1}")
   ArrayList<Visit> getAllVisitsForPatientInInstitution(String patientID, String institutionid);
 
-  @Query("{'institution.institutionId' : ?0, 'status': 'Upcoming' }}")
-  ArrayList<Visit> getUpcomingVisitsInInstitution(String institutionId);
+  @Query(value = "{'institution.institutionId' : ?0, 'status': 'Upcoming' }}", fields = VisitSummary.FIELDS)
+  ArrayList<VisitSummary> getUpcomingVisitsInInstitution(String institutionId);
 
-  @Query("{'doctor.userId': ?0, 'time.startTime': {$gt: ?1, $lt: ?2}}")
-  ArrayList<Visit> getDoctorVisitsOnDay(String userId, LocalDateTime date1, LocalDateTime date2);
+  @Query(value = "{'doctor.userId': ?0, 'time.startTime': {$gt: ?1, $lt: ?2}}", fields = VisitSummary.FIELDS)
+  ArrayList<VisitSummary> getDoctorVisitsOnDay(String userId, LocalDateTime date1, LocalDateTime date2);
 
-  @Query("{'institution.institutionId': ?0, 'time.startTime': {$gt: ?1, $lt: ?2}}")
-  ArrayList<Visit> getInstitutionVisitsOnDay(String userId, LocalDateTime date1, LocalDateTime date2);
-
-  @Query("{'institution.institutionId' : ?0}}")
-  ArrayList<Visit> getAllVisitsInInstitution(String institutionId);
+  @Query(value = "{'institution.institutionId': ?0, 'time.startTime': {$gt: ?1, $lt: ?2}}", fields = VisitSummary.FIELDS)
+  ArrayList<VisitSummary> getInstitutionVisitsOnDay(String userId, LocalDateTime date1, LocalDateTime date2);
 
     @Query("{ 'doctor.userId': ?0, 'patient.userId': ?1 }")
     ArrayList<Visit> findVisitsByDoctorAndPatient(String doctorId, String patientId);
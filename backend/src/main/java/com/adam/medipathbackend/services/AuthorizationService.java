@@ -2,7 +2,6 @@ package com.adam.medipathbackend.services;
 
 import com.adam.medipathbackend.config.Utils;
 import com.adam.medipathbackend.models.Visit;
-import com.adam.medipathbackend.repository.InstitutionRepository;
 import com.adam.medipathbackend.repository.VisitRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -12,7 +11,7 @@ public class AuthorizationService {
 
 
     @Autowired
-    private InstitutionRepository institutionRepository;
+    private PermissionCache permissionCache;
 
     @Autowired
     private VisitRepository visitRepository;
@@ -49,7 +48,7 @@ public class AuthorizationService {
 
 
     public AuthorizationService adminOfInstitution() throws IllegalAccessException {
-        if (institutionRepository.findAdminById(userId, institutionid).isEmpty()) {
+        if (!permissionCache.hasRole(userId, institutionid, PermissionCache.ADMIN)) {
             if (!allowAnyMatch) {
                 throw new IllegalAccessException();
             }
@@ -61,7 +60,7 @@ public class AuthorizationService {
     }
 
     public AuthorizationService employeeOfInstitution() throws IllegalAccessException {
-        if (institutionRepository.findStaffById(userId, institutionid).isEmpty()) {
+        if (!permissionCache.hasRole(userId, institutionid, PermissionCache.STAFF)) {
             if (!allowAnyMatch) {
                 throw new IllegalAccessException();
             }
@@ -72,7 +71,7 @@ public class AuthorizationService {
     }
 
     public AuthorizationService doctorOfInstitution() throws IllegalAccessException {
-        if (institutionRepository.findDoctorById(userId, institutionid).isEmpty()) {
+        if (!permissionCache.hasRole(userId, institutionid, PermissionCache.DOCTOR)) {
             if (!allowAnyMatch) {
                 throw new IllegalAccessException();
             }
@@ -0,0 +1,244 @@
+package com.adam.medipathbackend.services;
+
+import com.adam.medipathbackend.models.DoctorDigest;
+import com.adam.medipathbackend.models.Schedule;
+import com.adam.medipathbackend.models.ScheduleSummary;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+@Service
+public class AvailabilityService {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private EarliestSlotIndex earliestSlotIndex;
+
+    private volatile ConcurrentHashMap<String, DoctorCalendar> calendars = new ConcurrentHashMap<>();
+
+    public void addSchedule(Schedule schedule) {
+        put(schedule.getId(), schedule.getDoctor(), schedule.getInstitution().getInstitutionId(),
+                schedule.getStartHour(), schedule.isBooked());
+    }
+
+    public void addSchedules(Collection<Schedule> schedules) {
+        schedules.forEach(this::addSchedule);
+    }
+
+    public void markBooked(Schedule schedule) {
+        put(schedule.getId(), schedule.getDoctor(), schedule.getInstitution().getInstitutionId(),
+                schedule.getStartHour(), true);
+    }
+
+    public void markFree(Schedule schedule) {
+        put(schedule.getId(), schedule.getDoctor(), schedule.getInstitution().getInstitutionId(),
+                schedule.getStartHour(), false);
+    }
+
+    public void moveSchedule(Schedule schedule, LocalDateTime newStartHour) {
+        removeSchedule(schedule);
+        put(schedule.getId(), schedule.getDoctor(), schedule.getInstitution().getInstitutionId(),
+                newStartHour, schedule.isBooked());
+    }
+
+    public void removeSchedule(Schedule schedule) {
+        earliestSlotIndex.remove(schedule.getId());
+        DoctorCalendar calendar = calendars.get(schedule.getDoctor().getUserId());
+        if(calendar == null) return;
+        calendar.remove(schedule.getInstitution().getInstitutionId(), schedule.getStartHour(), schedule.getId());
+    }
+
+    public void removeDoctor(String doctorId) {
+        calendars.remove(doctorId);
+        earliestSlotIndex.removeDoctor(doctorId);
+    }
+
+    public Optional<Slot> getNextFreeSlot(String doctorId, String institutionId, LocalDateTime after) {
+        DoctorCalendar calendar = calendars.get(doctorId);
+        if(calendar == null) return Optional.empty();
+        LocalDateTime now = LocalDateTime.now();
+        return calendar.nextFree(doctorId, institutionId, after == null || after.isBefore(now) ? now : after);
+    }
+
+    public List<Slot> getFreeSlots(String doctorId, String institutionId, LocalDate from, LocalDate to) {
+        DoctorCalendar calendar = calendars.get(doctorId);
+        if(calendar == null) return List.of();
+        LocalDateTime now = LocalDateTime.now();
+        return calendar.freeSlots(doctorId, institutionId, from, to).stream()
+                .filter(slot -> slot.startHour().isAfter(now))
+                .toList();
+    }
+
+    public List<DaySummary> getHeatmap(String doctorId, String institutionId, LocalDate from, LocalDate to) {
+        DoctorCalendar calendar = calendars.get(doctorId);
+        if(calendar == null) return List.of();
+        return calendar.heatmap(institutionId, from, to);
+    }
+
+    public void rebuild() {
+        ConcurrentHashMap<String, DoctorCalendar> rebuilt = new ConcurrentHashMap<>();
+        earliestSlotIndex.clear();
+        Query query = new Query(Criteria.where("startHour").gte(LocalDate.now().atStartOfDay()));
+        for(String field: List.of("id", "startHour", "booked", "doctor", "institution")) {
+            query.fields().include(field);
+        }
+        try(Stream<ScheduleSummary> schedules = mongoTemplate.query(Schedule.class).as(ScheduleSummary.class)
+                .matching(query).stream()) {
+            schedules.forEach(schedule -> {
+                rebuilt.computeIfAbsent(schedule.doctor().getUserId(), id -> new DoctorCalendar())
+                        .put(schedule.institution().getInstitutionId(), schedule.startHour(), schedule.id(), schedule.booked());
+                if(!schedule.booked()) {
+                    earliestSlotIndex.add(schedule.id(), schedule.doctor(), schedule.institution().getInstitutionId(),
+                            schedule.startHour());
+                }
+            });
+        }
+        calendars = rebuilt;
+    }
+
+    @Scheduled(cron = "${medipath.availability.evict-cron:0 5 0 * * *}")
+    public void evictPastDays() {
+        LocalDate today = LocalDate.now();
+        calendars.values().forEach(calendar -> calendar.evictBefore(today));
+        calendars.values().removeIf(DoctorCalendar::isEmpty);
+    }
+
+    private void put(String scheduleId, DoctorDigest doctor, String institutionId, LocalDateTime startHour, boolean booked) {
+        if(startHour.toLocalDate().isBefore(LocalDate.now())) return;
+        calendars.computeIfAbsent(doctor.getUserId(), id -> new DoctorCalendar()).put(institutionId, startHour, scheduleId, booked);
+        if(booked) {
+            earliestSlotIndex.remove(scheduleId);
+        } else {
+            earliestSlotIndex.add(scheduleId, doctor, institutionId, startHour);
+        }
+    }
+
+    public record Slot(String scheduleId, String doctorId, String institutionId,
+                       @JsonFormat(pattern="yyyy-MM-dd HH:mm:ss", timezone="Europe/Warsaw") LocalDateTime startHour) {}
+
+    public record DaySummary(LocalDate date, int free, int booked) {}
+
+    private static final class DoctorCalendar {
+
+        private final TreeMap<LocalDate, Map<String, DayBits>> days = new TreeMap<>();
+
+        synchronized void put(String institutionId, LocalDateTime startHour, String scheduleId, boolean booked) {
+            days.computeIfAbsent(startHour.toLocalDate(), day -> new HashMap<>())
+                    .computeIfAbsent(institutionId, id -> new DayBits())
+                    .put(minuteOf(startHour), scheduleId, booked);
+        }
+
+        synchronized void remove(String institutionId, LocalDateTime startHour, String scheduleId) {
+            Map<String, DayBits> institutions = days.get(startHour.toLocalDate());
+            if(institutions == null) return;
+            DayBits bits = institutions.get(institutionId);
+            if(bits == null) return;
+            bits.remove(minuteOf(startHour), scheduleId);
+            if(bits.isEmpty()) institutions.remove(institutionId);
+            if(institutions.isEmpty()) days.remove(startHour.toLocalDate());
+        }
+
+        synchronized Optional<Slot> nextFree(String doctorId, String institutionId, LocalDateTime after) {
+            int fromMinute = minuteOf(after) + 1;
+            for(Map.Entry<LocalDate, Map<String, DayBits>> day: days.tailMap(after.toLocalDate(), true).entrySet()) {
+                int minute = day.getKey().equals(after.toLocalDate()) ? fromMinute : 0;
+                Slot earliest = null;
+                for(Map.Entry<String, DayBits> institution: day.getValue().entrySet()) {
+                    if(institutionId != null && !institutionId.equals(institution.getKey())) continue;
+                    int next = institution.getValue().free.nextSetBit(minute);
+                    if(next < 0 || (earliest != null && minuteOf(earliest.startHour()) <= next)) continue;
+                    earliest = institution.getValue().slot(doctorId, institution.getKey(), day.getKey(), next);
+                }
+                if(earliest != null) return Optional.of(earliest);
+            }
+            return Optional.empty();
+        }
+
+        synchronized List<Slot> freeSlots(String doctorId, String institutionId, LocalDate from, LocalDate to) {
+            ArrayList<Slot> slots = new ArrayList<>();
+            for(Map.Entry<LocalDate, Map<String, DayBits>> day: days.subMap(from, true, to, false).entrySet()) {
+                int dayStart = slots.size();
+                for(Map.Entry<String, DayBits> institution: day.getValue().entrySet()) {
+                    if(institutionId != null && !institutionId.equals(institution.getKey())) continue;
+                    BitSet free = institution.getValue().free;
+                    for(int minute = free.nextSetBit(0); minute >= 0; minute = free.nextSetBit(minute + 1)) {
+                        slots.add(institution.getValue().slot(doctorId, institution.getKey(), day.getKey(), minute));
+                    }
+                }
+                slots.subList(dayStart, slots.size()).sort(Comparator.comparing(Slot::startHour));
+            }
+            return slots;
+        }
+
+        synchronized List<DaySummary> heatmap(String institutionId, LocalDate from, LocalDate to) {
+            ArrayList<DaySummary> summaries = new ArrayList<>();
+            for(Map.Entry<LocalDate, Map<String, DayBits>> day: days.subMap(from, true, to, false).entrySet()) {
+                int free = 0;
+                int booked = 0;
+                for(Map.Entry<String, DayBits> institution: day.getValue().entrySet()) {
+                    if(institutionId != null && !institutionId.equals(institution.getKey())) continue;
+                    free += institution.getValue().free.cardinality();
+                    booked += institution.getValue().booked.cardinality();
+                }
+                if(free + booked > 0) summaries.add(new DaySummary(day.getKey(), free, booked));
+            }
+            return summaries;
+        }
+
+        synchronized void evictBefore(LocalDate day) {
+            days.headMap(day, false).clear();
+        }
+
+        synchronized boolean isEmpty() {
+            return days.isEmpty();
+        }
+
+        private static int minuteOf(LocalDateTime time) {
+            return time.getHour() * 60 + time.getMinute();
+        }
+    }
+
+    private static final class DayBits {
+
+        private final BitSet free = new BitSet(MINUTES_PER_DAY);
+
+        private final BitSet booked = new BitSet(MINUTES_PER_DAY);
+
+        private final HashMap<Integer, String> scheduleIds = new HashMap<>();
+
+        void put(int minute, String scheduleId, boolean isBooked) {
+            free.set(minute, !isBooked);
+            booked.set(minute, isBooked);
+            scheduleIds.put(minute, scheduleId);
+        }
+
+        void remove(int minute, String scheduleId) {
+            if(!Objects.equals(scheduleIds.get(minute), scheduleId)) return;
+            free.clear(minute);
+            booked.clear(minute);
+            scheduleIds.remove(minute);
+        }
+
+        boolean isEmpty() {
+            return scheduleIds.isEmpty();
+        }
+
+        Slot slot(String doctorId, String institutionId, LocalDate day, int minute) {
+            return new Slot(scheduleIds.get(minute), doctorId, institutionId, day.atStartOfDay().plusMinutes(minute));
+        }
+    }
+}
@@ -4,6 +4,10 @@ import com.adam.medipathbackend.forms.AddCommentForm;
 import com.adam.medipathbackend.models.*;
 import com.adam.medipathbackend.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import java.util.*;
 import java.util.stream.Stream;
@@ -18,6 +22,12 @@ public class CommentService {
     UserRepository userRepository;
     @Autowired
     InstitutionRepository institutionRepository;
+    @Autowired
+    KeysetPager keysetPager;
+    @Autowired
+    RatingStatsRepository ratingStatsRepository;
+    @Autowired
+    MongoTemplate mongoTemplate;
 
      
     public void addComment(AddCommentForm commentForm, String loggedUserID) 
@@ -44,22 +54,15 @@ public class CommentService {
                     visit.getDoctor(), visit.getInstitution(), 
                     visit.getPatient(), commentForm.getVisitID());
 
-        Optional<Institution> institutionOpt = institutionRepository.findActiveById(visit.getInstitution().getInstitutionId());
-        Optional<User> doctorOpt = userRepository.findActiveById(visit.getDoctor().getUserId());
-
-        if (institutionOpt.isEmpty()) 
+        if (institutionRepository.findActiveById(visit.getInstitution().getInstitutionId()).isEmpty())
             throw new IllegalArgumentException("Institution not found");
-        if (doctorOpt.isEmpty()) 
+        if (userRepository.findActiveById(visit.getDoctor().getUserId()).isEmpty())
             throw new IllegalArgumentException("Doctor not found");
-        User doctor = doctorOpt.get();
-        Institution institution = institutionOpt.get();
-        doctor.addRating(commentForm.getDoctorRating());
-        institution.addRating(commentForm.getInstitutionRating());
-        institutionRepository.save(institution);
-        userRepository.save(doctor);
         Comment savedComment = commentRepository.save(newComment);
         visit.setCommentId(savedComment.getId());
         visitRepository.save(visit);
+        ratingStatsRepository.recordDoctorRating(visit.getDoctor().getUserId(), commentForm.getDoctorRating(), null);
+        ratingStatsRepository.recordInstitutionRating(visit.getInstitution().getInstitutionId(), commentForm.getInstitutionRating(), null);
     }
 
      
@@ -81,30 +84,23 @@ public class CommentService {
         if (!comment.getAuthor().getUserId().equals(loggedUserID))
             throw new IllegalAccessException("User not authorized to edit this comment");
 
-        Optional<Institution> institutionOpt =
-                institutionRepository.findById(comment.getInstitution().getInstitutionId());
-        Optional<User> doctorOpt =
-                userRepository.findById(comment.getDoctorDigest().getUserId());
-
-        if (institutionOpt.isEmpty())
+        if (!institutionRepository.existsById(comment.getInstitution().getInstitutionId()))
             throw new IllegalArgumentException("Institution not found");
 
-        if (doctorOpt.isEmpty())
+        if (!userRepository.existsById(comment.getDoctorDigest().getUserId()))
             throw new IllegalArgumentException("Doctor not found");
 
-        User doctor = doctorOpt.get();
-        Institution institution = institutionOpt.get();
-
-        doctor.editRating(commentForm.getDoctorRating(), comment.getDoctorRating());
-        institution.editRating(commentForm.getInstitutionRating(), comment.getInstitutionRating());
-
-        comment.setContent(commentForm.getComment());
-        comment.setDoctorRating(commentForm.getDoctorRating());
-        comment.setInstitutionRating(commentForm.getInstitutionRating());
-
-        institutionRepository.save(institution);
-        userRepository.save(doctor);
-        commentRepository.save(comment);
+        // The rating delta is taken from the document the update replaced, so concurrent edits each subtract
+        // the rating they actually overwrote.
+        Update update = new Update()
+                .set("content", commentForm.getComment())
+                .set("doctorRating", commentForm.getDoctorRating())
+                .set("institutionRating", commentForm.getInstitutionRating());
+        Comment previous = mongoTemplate.findAndModify(authoredBy(commentid, loggedUserID), update, Comment.class);
+        if (previous == null) throw new IllegalAccessException("Comment not found");
+
+        ratingStatsRepository.recordDoctorRating(previous.getDoctorDigest().getUserId(), commentForm.getDoctorRating(), previous.getDoctorRating());
+        ratingStatsRepository.recordInstitutionRating(previous.getInstitution().getInstitutionId(), commentForm.getInstitutionRating(), previous.getInstitutionRating());
     }
 
      
@@ -118,31 +114,27 @@ public class CommentService {
         if (!comment.getAuthor().getUserId().equals(loggedUserID))
             throw new IllegalAccessException("User not authorized to delete this comment");
 
-        Optional<Institution> institutionOpt =
-                institutionRepository.findById(comment.getInstitution().getInstitutionId());
-
-        Optional<User> doctorOpt =
-                userRepository.findById(comment.getDoctorDigest().getUserId());
-
         Optional<Visit> visitOpt =
                 visitRepository.findById(comment.getVisitId());
 
-        if (institutionOpt.isEmpty()) throw new IllegalArgumentException("Institution not found");
-        if (doctorOpt.isEmpty()) throw new IllegalArgumentException("Doctor not found");
+        if (!institutionRepository.existsById(comment.getInstitution().getInstitutionId()))
+            throw new IllegalArgumentException("Institution not found");
+        if (!userRepository.existsById(comment.getDoctorDigest().getUserId()))
+            throw new IllegalArgumentException("Doctor not found");
         if (visitOpt.isEmpty()) throw new IllegalArgumentException("Visit not found");
 
-        User doctor = doctorOpt.get();
-        Institution institution = institutionOpt.get();
-        Visit visit = visitOpt.get();
+        // Only the request that actually removes the comment takes its ratings out of the stats.
+        Comment removed = mongoTemplate.findAndRemove(authoredBy(commentid, loggedUserID), Comment.class);
+        if (removed == null) throw new IllegalAccessException("Comment not found");
 
-        doctor.subtractRating(comment.getDoctorRating());
-        institution.subtractRating(comment.getInstitutionRating());
-        visit.setCommentId(null);
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(removed.getVisitId()).and("commentId").is(commentid)),
+                new Update().unset("commentId"), Visit.class);
+        ratingStatsRepository.recordDoctorRating(removed.getDoctorDigest().getUserId(), null, removed.getDoctorRating());
+        ratingStatsRepository.recordInstitutionRating(removed.getInstitution().getInstitutionId(), null, removed.getInstitutionRating());
+    }
 
-        institutionRepository.save(institution);
-        userRepository.save(doctor);
-        visitRepository.save(visit);
-        commentRepository.delete(comment);
+    private Query authoredBy(String commentid, String loggedUserID) {
+        return new Query(Criteria.where("_id").is(commentid).and("author.userId").is(loggedUserID));
     }
 
      
@@ -167,13 +159,14 @@ public class CommentService {
     }
 
      
-    public Map<String, Object> getCommentsForDoctor(String id) {
+    public Map<String, Object> getCommentsForDoctor(String id, String cursor, Integer limit) {
 
         if (!userRepository.existsById(id)) {
-            return Map.of("comments", new ArrayList<Comment>());
+            return new CursorPage<>(List.of(), null).toResponse("comments");
         }
 
-        return Map.of("comments", commentRepository.getCommentsForDoctor(id).stream().map(comment -> Map.of(
+        return keysetPager.page(Comment.class, Comment.class, Criteria.where("doctorDigest.userId").is(id),
+                KeysetPager.COMMENTS_NEWEST_FIRST, cursor, limit).map(comment -> Map.of(
                 "id", comment.getId(),
                 "author", comment.getAuthor().getName() + " " + comment.getAuthor().getSurname(),
                 "doctor", comment.getDoctorDigest().getDoctorName() + " " + comment.getDoctorDigest().getDoctorSurname(),
@@ -182,17 +175,18 @@ public class CommentService {
                 "institutionRating", comment.getInstitutionRating(),
                 "content", comment.getContent(),
                 "createdAt", comment.getCreatedAt().toString()
-        )));
+        )).toResponse("comments");
     }
 
      
-    public Map<String, Object> getCommentsForInstitution(String id) {
+    public Map<String, Object> getCommentsForInstitution(String id, String cursor, Integer limit) {
 
         if (institutionRepository.findActiveById(id).isEmpty()) {
-            return Map.of("comments", new ArrayList<Comment>());
+            return new CursorPage<>(List.of(), null).toResponse("comments");
         }
 
-        return Map.of("comments", commentRepository.getCommentsForInstitution(id).stream().map(comment -> Map.of(
+        return keysetPager.page(Comment.class, Comment.class, Criteria.where("institution.institutionId").is(id),
+                KeysetPager.COMMENTS_NEWEST_FIRST, cursor, limit).map(comment -> Map.of(
                 "id", comment.getId(),
                 "author", comment.getAuthor().getName() + " " + comment.getAuthor().getSurname(),
                 "doctor", comment.getDoctorDigest().getDoctorName() + " " + comment.getDoctorDigest().getDoctorSurname(),
@@ -201,6 +195,6 @@ public class CommentService {
                 "institutionRating", comment.getInstitutionRating(),
                 "content", comment.getContent(),
                 "createdAt", comment.getCreatedAt().toString()
-        )));
+        )).toResponse("comments");
     }
 }
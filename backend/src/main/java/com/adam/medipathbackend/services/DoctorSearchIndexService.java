@@ -0,0 +1,116 @@
+package com.adam.medipathbackend.services;
+
+import com.adam.medipathbackend.config.Utils;
+import com.adam.medipathbackend.models.DoctorSearchEntry;
+import com.adam.medipathbackend.models.Institution;
+import com.adam.medipathbackend.models.StaffDigest;
+import com.adam.medipathbackend.repository.DoctorSearchEntryRepository;
+import com.adam.medipathbackend.repository.InstitutionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+@Service
+public class DoctorSearchIndexService {
+
+    private static final Set<Integer> DOCTOR_ROLE_CODES = Set.of(2, 3, 6, 7, 14, 15);
+
+    @Autowired
+    private DoctorSearchEntryRepository doctorSearchEntryRepository;
+
+    @Autowired
+    private InstitutionRepository institutionRepository;
+
+    public void reindexInstitution(Institution institution) {
+        doctorSearchEntryRepository.deleteByInstitutionId(institution.getId());
+        List<DoctorSearchEntry> entries = buildEntries(institution);
+        if(!entries.isEmpty()) {
+            doctorSearchEntryRepository.saveAll(entries);
+        }
+    }
+
+    public void reindexInstitutions(Collection<Institution> institutions) {
+        for(Institution institution: institutions) {
+            reindexInstitution(institution);
+        }
+    }
+
+    public int rebuild() {
+        doctorSearchEntryRepository.deleteAll();
+        int count = 0;
+        for(Institution institution: institutionRepository.findAll()) {
+            List<DoctorSearchEntry> entries = buildEntries(institution);
+            if(!entries.isEmpty()) {
+                doctorSearchEntryRepository.saveAll(entries);
+                count += entries.size();
+            }
+        }
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return doctorSearchEntryRepository.count() == 0;
+    }
+
+    public List<String> findDoctorIds(String location, String name, String[] specialisations) {
+        String namePrefix = Utils.toPrefixRegex(normalizeQuery(name));
+        String[] locationParts = normalizeQuery(location).split(",", 2);
+        String locationKey = locationParts[0].trim();
+        String provinceKey = locationParts.length > 1 ? locationParts[1].trim() : "";
+        boolean withSpec = specialisations != null && specialisations.length > 0;
+
+        ArrayList<DoctorSearchEntry> entries;
+        if(locationKey.isEmpty()) {
+            entries = withSpec ? doctorSearchEntryRepository.findByNameAndSpec(namePrefix, specialisations)
+                    : doctorSearchEntryRepository.findByName(namePrefix);
+        } else {
+            String locationPrefix = Utils.toPrefixRegex(locationKey);
+            entries = withSpec ?
+                    doctorSearchEntryRepository.findByLocationAndNameAndSpec(locationPrefix, namePrefix, specialisations)
+                    : doctorSearchEntryRepository.findByLocationAndName(locationPrefix, namePrefix);
+        }
+        return entries.stream()
+                .filter(entry -> entry.getProvince().startsWith(provinceKey))
+                .map(DoctorSearchEntry::getUserId)
+                .distinct()
+                .toList();
+    }
+
+    private String normalizeQuery(String value) {
+        if(value == null || value.equals(".*")) {
+            return "";
+        }
+        return Utils.normalize(value);
+    }
+
+    private List<DoctorSearchEntry> buildEntries(Institution institution) {
+        if(!institution.isActive() || institution.getEmployees() == null) {
+            return List.of();
+        }
+        String city = Utils.normalize(institution.getAddress().getCity());
+        String province = Utils.normalize(institution.getAddress().getProvince());
+
+        ArrayList<DoctorSearchEntry> entries = new ArrayList<>();
+        for(StaffDigest employee: institution.getEmployees()) {
+            if(!DOCTOR_ROLE_CODES.contains(employee.getRoleCode())) continue;
+            String name = Utils.normalize(employee.getName());
+            String surname = Utils.normalize(employee.getSurname());
+            ArrayList<String> nameKeys = new ArrayList<>(List.of(name + " " + surname, surname + " " + name));
+            entries.add(new DoctorSearchEntry(
+                    employee.getUserId(),
+                    institution.getId(),
+                    employee.getName(),
+                    employee.getSurname(),
+                    employee.getSpecialisations() == null ? new ArrayList<>() : employee.getSpecialisations(),
+                    employee.getRoleCode(),
+                    nameKeys,
+                    city,
+                    province));
+        }
+        return entries;
+    }
+}
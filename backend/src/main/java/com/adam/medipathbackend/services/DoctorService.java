@@ -5,6 +5,7 @@ import com.adam.medipathbackend.models.*;
 import com.adam.medipathbackend.repository.*;
 import com.adam.medipathbackend.config.Utils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.stereotype.Service;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -23,6 +24,16 @@ public class DoctorService {
   ScheduleRepository scheduleRepository;
   @Autowired
   VisitRepository visitRepository;
+  @Autowired
+  EmploymentService employmentService;
+  @Autowired
+  KeysetPager keysetPager;
+  @Autowired
+  AvailabilityService availabilityService;
+  @Autowired
+  FanOutExecutor fanOutExecutor;
+  @Autowired
+  RatingStatsRepository ratingStatsRepository;
 
   public Map<String, Object> getDoctor(String id, String[] fields) throws IllegalArgumentException {
 
@@ -48,13 +59,15 @@ public class DoctorService {
     if (fieldsList.contains("specialisations"))
       outputFields.put("specialisations", foundDoctor.getSpecialisations());
 
+    RatingStats ratingStats = fieldsList.contains("rating") || fieldsList.contains("numofratings")
+        ? ratingStatsRepository.find(foundDoctor.getId()) : null;
     if (fieldsList.contains("rating"))
-      outputFields.put("rating", foundDoctor.getRating());
+      outputFields.put("rating", ratingStats.getAverage());
     if (fieldsList.contains("employers"))
       outputFields.put("employers", foundDoctor.getEmployers());
 
     if (fieldsList.contains("numofratings"))
-      outputFields.put("numofratings", foundDoctor.getNumOfRatings());
+      outputFields.put("numofratings", ratingStats.getCount());
     if (fieldsList.contains("image"))
       outputFields.put("image", foundDoctor.getPfpimage());
 
@@ -119,12 +132,67 @@ public class DoctorService {
 
   }
 
+  public Map<String, Object> getNextFreeSlot(String doctorid, String institution, String after)
+      throws IllegalArgumentException {
+
+    if (!Utils.isValidMongoOID(doctorid))
+      throw new IllegalArgumentException("Invalid doctor id");
+
+    LocalDateTime afterTime;
+    try {
+      afterTime = after == null ? null : LocalDateTime.parse(after);
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException("invalid date");
+    }
+
+    return Collections.singletonMap("slot",
+        availabilityService.getNextFreeSlot(doctorid, institution, afterTime).orElse(null));
+  }
+
+  public Map<String, Object> getFreeSlots(String doctorid, String institution, String from, Integer days)
+      throws IllegalArgumentException {
+
+    if (!Utils.isValidMongoOID(doctorid))
+      throw new IllegalArgumentException("Invalid doctor id");
+    int dayCount = days == null ? 7 : days;
+    if (dayCount < 1 || dayCount > 31)
+      throw new IllegalArgumentException("days must be between 1 and 31");
+
+    LocalDate startDate = parseDay(from, LocalDate.now());
+    return Map.of("slots", availabilityService.getFreeSlots(doctorid, institution, startDate,
+        startDate.plusDays(dayCount)));
+  }
+
+  public Map<String, Object> getAvailabilityHeatmap(String doctorid, String institution, String from, String to)
+      throws IllegalArgumentException {
+
+    if (!Utils.isValidMongoOID(doctorid))
+      throw new IllegalArgumentException("Invalid doctor id");
+
+    LocalDate startDate = parseDay(from, LocalDate.now());
+    LocalDate endDate = parseDay(to, startDate.plusDays(34));
+    if (endDate.isBefore(startDate) || endDate.isAfter(startDate.plusDays(92)))
+      throw new IllegalArgumentException("invalid date range");
+
+    return Map.of("days", availabilityService.getHeatmap(doctorid, institution, startDate, endDate.plusDays(1)));
+  }
+
+  private static LocalDate parseDay(String date, LocalDate fallback) {
+    if (date == null)
+      return fallback;
+    try {
+      return LocalDate.parse(date);
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException("invalid date");
+    }
+  }
+
   public Map<String, Object> getMySchedules(String loggedUserID)
       throws IllegalArgumentException, IllegalAccessException {
 
     if (userRepository.findDoctorById(loggedUserID).isEmpty())
       throw new IllegalAccessException("User is not a doctor");
-    ArrayList<Schedule> schedules = scheduleRepository.getSchedulesByDoctor(loggedUserID);
+    ArrayList<ScheduleSummary> schedules = scheduleRepository.getScheduleSummariesByDoctor(loggedUserID);
 
     return Map.of("schedules", schedules);
   }
@@ -147,7 +215,7 @@ public class DoctorService {
     userRepository.save(doctor);
   }
 
-  public Map<String, Object> getMyVisitsByDate(String date, String loggedUserID)
+  public Map<String, Object> getMyVisitsByDate(String date, String loggedUserID, String cursor, Integer limit)
       throws IllegalArgumentException, IllegalAccessException {
 
     if (!Utils.isValidMongoOID(loggedUserID))
@@ -158,8 +226,8 @@ public class DoctorService {
       throw new IllegalAccessException("Doctor not found");
 
     if (date == null) {
-      ArrayList<Visit> visits = visitRepository.getAllVisitsForDoctor(loggedUserID);
-      return Map.of("visits", visits);
+      return keysetPager.page(Visit.class, VisitSummary.class, Criteria.where("doctor.userId").is(loggedUserID),
+          KeysetPager.VISITS_BY_START, cursor, limit).toResponse("visits");
     }
 
     if (date.equals("today")) {
@@ -173,7 +241,7 @@ public class DoctorService {
       throw new IllegalArgumentException("invalid date");
     }
 
-    ArrayList<Visit> visits = visitRepository.getDoctorVisitsOnDay(loggedUserID, startDate.atStartOfDay(),
+    ArrayList<VisitSummary> visits = visitRepository.getDoctorVisitsOnDay(loggedUserID, startDate.atStartOfDay(),
         startDate.plusDays(1).atStartOfDay());
 
     return Map.of("visits", visits);
@@ -189,21 +257,21 @@ public class DoctorService {
     if (doctorOpt.isEmpty())
       throw new IllegalAccessException("Doctor not found");
 
-    ArrayList<Visit> visits = visitRepository.getAllVisitsForDoctor(loggedUserID);
+    ArrayList<VisitSummary> visits = visitRepository.getAllVisitsForDoctor(loggedUserID);
 
-    Map<String, List<Visit>> visitsByPatient = visits.stream()
-        .filter(visit -> "Completed".equals(visit.getStatus()))
-        .collect(Collectors.groupingBy(visit -> visit.getPatient().getUserId()));
+    Map<String, List<VisitSummary>> visitsByPatient = visits.stream()
+        .filter(visit -> "Completed".equals(visit.status()))
+        .collect(Collectors.groupingBy(visit -> visit.patient().getUserId()));
     
     DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     
     List<Map<String, Object>> patients = visitsByPatient.entrySet().stream()
         .map(entry -> {
-            List<Visit> patientVisits = entry.getValue();
-            PatientDigest patientDigest = patientVisits.get(0).getPatient();
+            List<VisitSummary> patientVisits = entry.getValue();
+            PatientDigest patientDigest = patientVisits.get(0).patient();
             
-            Visit lastVisit = patientVisits.stream()
-                .max(Comparator.comparing(v -> v.getTime().getStartTime()))
+            VisitSummary lastVisit = patientVisits.stream()
+                .max(Comparator.comparing(v -> v.time().getStartTime()))
                 .orElse(null);
             
             Map<String, Object> patientMap = new HashMap<>();
@@ -212,12 +280,12 @@ public class DoctorService {
             patientMap.put("name", patientDigest.getName());
             patientMap.put("surname", patientDigest.getSurname());
             patientMap.put("lastVisit", lastVisit != null ? Map.of(
-                "id", lastVisit.getId(),
-                "startTime", lastVisit.getTime().getStartTime().format(formatter),
-                "endTime", lastVisit.getTime().getEndTime().format(formatter),
-                "status", lastVisit.getStatus()
+                "id", lastVisit.id(),
+                "startTime", lastVisit.time().getStartTime().format(formatter),
+                "endTime", lastVisit.time().getEndTime().format(formatter),
+                "status", lastVisit.status()
             ) : null);
-            patientMap.put("_sortTime", lastVisit != null ? lastVisit.getTime().getStartTime() : null);
+            patientMap.put("_sortTime", lastVisit != null ? lastVisit.time().getStartTime() : null);
             
             return patientMap;
         })
@@ -280,14 +348,24 @@ public class DoctorService {
     if (!Utils.isValidMongoOID(doctorId))
       throw new IllegalArgumentException("Invalid doctor id");
 
-    Optional<User> doctorOpt = userRepository.findEmployeeById(doctorId);
+    Optional<User> doctorOpt;
+    ArrayList<Institution> institutions;
+    RatingStats ratingStats;
+    try (FanOutExecutor.Scope scope = fanOutExecutor.scope()) {
+      var doctorTask = scope.fork(() -> userRepository.findEmployeeById(doctorId));
+      // Pobierz wszystkie instytucje, w których pracuje lekarz
+      var institutionsTask = scope.fork(() -> employmentService.getInstitutionsOfEmployee(doctorId, null));
+      var ratingTask = scope.fork(() -> ratingStatsRepository.find(doctorId));
+      scope.join();
+      doctorOpt = doctorTask.get();
+      institutions = institutionsTask.get();
+      ratingStats = ratingTask.get();
+    }
     if (doctorOpt.isEmpty())
       throw new IllegalArgumentException("Doctor not found");
 
     User doctor = doctorOpt.get();
 
-    // Pobierz wszystkie instytucje, w których pracuje lekarz
-    ArrayList<Institution> institutions = institutionRepository.findInstitutionsByEmployeeId(doctorId);
     ArrayList<Map<String, Object>> institutionsList = new ArrayList<>();
     
     // Dane lekarza z pierwszej instytucji (lub wartości domyślne)
@@ -333,8 +411,8 @@ public class DoctorService {
     result.put("pwzNumber", doctor.getLicenceNumber());
     result.put("licenceNumber", doctor.getLicenceNumber());
     result.put("specialisations", specialisations);
-    result.put("rating", doctor.getRating());
-    result.put("numOfRatings", doctor.getNumOfRatings());
+    result.put("rating", ratingStats.getAverage());
+    result.put("numOfRatings", ratingStats.getCount());
     result.put("image", doctor.getPfpimage());
     result.put("institutionsEmployee", institutionsList);
     result.put("roleCode", roleCode != null ? roleCode : 0);
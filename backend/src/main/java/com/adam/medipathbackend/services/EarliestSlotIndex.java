@@ -0,0 +1,192 @@
+package com.adam.medipathbackend.services;
+
+import com.adam.medipathbackend.config.Utils;
+import com.adam.medipathbackend.models.DoctorDigest;
+import com.adam.medipathbackend.models.Institution;
+import com.adam.medipathbackend.repository.InstitutionRepository;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+@Service
+public class EarliestSlotIndex {
+
+    private static final Comparator<Entry> BY_START = Comparator.comparing(Entry::startHour)
+            .thenComparing(Entry::scheduleId);
+
+    @Autowired
+    private InstitutionRepository institutionRepository;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, ConcurrentSkipListSet<Entry>> buckets = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, Optional<Location>> locations = new ConcurrentHashMap<>();
+
+    public void add(String scheduleId, DoctorDigest doctor, String institutionId, LocalDateTime startHour) {
+        Optional<Location> location = locations.computeIfAbsent(institutionId, this::loadLocation);
+        if(location.isEmpty() || doctor.getSpecialisations() == null || doctor.getSpecialisations().isEmpty()) {
+            remove(scheduleId);
+            return;
+        }
+        Entry entry = new Entry(scheduleId, doctor.getUserId(), doctor.getDoctorName(), doctor.getDoctorSurname(),
+                institutionId, location.get().name(), startHour,
+                bucketKeys(doctor.getSpecialisations(), location.get()));
+        entries.compute(scheduleId, (id, previous) -> {
+            if(previous != null) unlink(previous);
+            link(entry);
+            return entry;
+        });
+    }
+
+    public void remove(String scheduleId) {
+        entries.computeIfPresent(scheduleId, (id, entry) -> {
+            unlink(entry);
+            return null;
+        });
+    }
+
+    public void removeDoctor(String doctorId) {
+        entries.values().stream()
+                .filter(entry -> entry.doctorId().equals(doctorId))
+                .map(Entry::scheduleId)
+                .toList()
+                .forEach(this::remove);
+    }
+
+    public void refreshInstitution(String institutionId) {
+        locations.remove(institutionId);
+        Optional<Location> location = locations.computeIfAbsent(institutionId, this::loadLocation);
+        List<Entry> affected = entries.values().stream()
+                .filter(entry -> entry.institutionId().equals(institutionId))
+                .toList();
+        for(Entry entry: affected) {
+            if(location.isEmpty()) {
+                remove(entry.scheduleId());
+                continue;
+            }
+            Entry moved = new Entry(entry.scheduleId(), entry.doctorId(), entry.doctorName(), entry.doctorSurname(),
+                    institutionId, location.get().name(), entry.startHour(),
+                    bucketKeys(specialisationsOf(entry), location.get()));
+            entries.computeIfPresent(entry.scheduleId(), (id, current) -> {
+                if(current != entry) return current;
+                unlink(current);
+                link(moved);
+                return moved;
+            });
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+        buckets.clear();
+        locations.clear();
+    }
+
+    public List<Slot> query(String specialisation, String location, LocalDateTime after, int limit) {
+        String spec = Utils.normalize(specialisation);
+        if(spec.isEmpty()) throw new IllegalArgumentException("Specialisation is required");
+
+        String[] parts = location == null ? new String[]{""} : location.split(",", 2);
+        String city = Utils.normalize(parts[0]);
+        String province = parts.length > 1 ? Utils.normalize(parts[1]) : "";
+        ConcurrentSkipListSet<Entry> bucket = buckets.get(bucketKey(spec, city, province));
+        if(bucket == null) return List.of();
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime from = after == null || after.isBefore(now) ? now : after;
+        Entry probe = new Entry("", null, null, null, null, null, from, List.of());
+        ArrayList<Slot> slots = new ArrayList<>(limit);
+        for(Entry entry: bucket.tailSet(probe, false)) {
+            if(!entry.startHour().isAfter(from)) continue;
+            slots.add(entry.toSlot());
+            if(slots.size() == limit) break;
+        }
+        return slots;
+    }
+
+    @Scheduled(cron = "${medipath.availability.earliest-evict-cron:0 */15 * * * *}")
+    public void evictPast() {
+        LocalDateTime now = LocalDateTime.now();
+        Entry probe = new Entry("", null, null, null, null, null, now, List.of());
+        for(ConcurrentSkipListSet<Entry> bucket: buckets.values()) {
+            for(Entry entry: bucket.headSet(probe, true)) {
+                entries.remove(entry.scheduleId(), entry);
+                bucket.remove(entry);
+            }
+        }
+        buckets.values().removeIf(Set::isEmpty);
+    }
+
+    private void link(Entry entry) {
+        for(String key: entry.keys()) {
+            buckets.computeIfAbsent(key, k -> new ConcurrentSkipListSet<>(BY_START)).add(entry);
+        }
+    }
+
+    private void unlink(Entry entry) {
+        for(String key: entry.keys()) {
+            ConcurrentSkipListSet<Entry> bucket = buckets.get(key);
+            if(bucket != null) bucket.remove(entry);
+        }
+    }
+
+    private Optional<Location> loadLocation(String institutionId) {
+        return institutionRepository.findActiveById(institutionId)
+                .filter(institution -> institution.getAddress() != null)
+                .map(this::toLocation);
+    }
+
+    private Location toLocation(Institution institution) {
+        return new Location(institution.getName(),
+                Utils.normalize(institution.getAddress().getCity()),
+                Utils.normalize(institution.getAddress().getProvince()));
+    }
+
+    private static List<String> specialisationsOf(Entry entry) {
+        return entry.keys().stream()
+                .filter(key -> key.indexOf('|') < 0)
+                .toList();
+    }
+
+    private static List<String> bucketKeys(List<String> specialisations, Location location) {
+        LinkedHashSet<String> keys = new LinkedHashSet<>();
+        for(String specialisation: specialisations) {
+            String spec = Utils.normalize(specialisation);
+            if(spec.isEmpty()) continue;
+            keys.add(spec);
+            keys.add(bucketKey(spec, location.city(), ""));
+            keys.add(bucketKey(spec, "", location.province()));
+            keys.add(bucketKey(spec, location.city(), location.province()));
+        }
+        return List.copyOf(keys);
+    }
+
+    private static String bucketKey(String spec, String city, String province) {
+        StringBuilder key = new StringBuilder(spec);
+        if(!city.isEmpty()) key.append("|c=").append(city);
+        if(!province.isEmpty()) key.append("|p=").append(province);
+        return key.toString();
+    }
+
+    public record Slot(String scheduleId,
+                       @JsonFormat(pattern="yyyy-MM-dd HH:mm:ss", timezone="Europe/Warsaw") LocalDateTime startHour,
+                       String doctorId, String doctorName, String doctorSurname,
+                       String institutionId, String institutionName) {}
+
+    private record Location(String name, String city, String province) {}
+
+    private record Entry(String scheduleId, String doctorId, String doctorName, String doctorSurname,
+                         String institutionId, String institutionName, LocalDateTime startHour, List<String> keys) {
+
+        Slot toSlot() {
+            return new Slot(scheduleId, startHour, doctorId, doctorName, doctorSurname, institutionId, institutionName);
+        }
+    }
+}
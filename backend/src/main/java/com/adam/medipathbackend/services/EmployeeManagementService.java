@@ -8,7 +8,6 @@ import com.adam.medipathbackend.repository.InstitutionRepository;
 import com.adam.medipathbackend.repository.PasswordResetEntryRepository;
 import com.adam.medipathbackend.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.security.SecureRandom;
@@ -30,6 +29,18 @@ public class EmployeeManagementService {
     @Autowired
     private PasswordResetEntryRepository preRepository;
 
+    @Autowired
+    private DoctorSearchIndexService doctorSearchIndexService;
+
+    @Autowired
+    private PermissionCache permissionCache;
+
+    @Autowired
+    private EmploymentService employmentService;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
     public void addEmployeesToInstitution(String institutionId, ArrayList<AddEmployeeForm> employees) {
         Institution institution = institutionRepository.findActiveById(institutionId)
                 .orElseThrow(() -> new IllegalArgumentException("Institution not found"));
@@ -47,7 +58,8 @@ public class EmployeeManagementService {
             addEmployeeToInstitution(institution, user, employeeForm);
         }
 
-        institutionRepository.save(institution);
+        saveInstitution(institution);
+        employees.forEach(employee -> permissionCache.invalidate(employee.getUserID(), institutionId));
     }
 
      
@@ -81,7 +93,8 @@ public class EmployeeManagementService {
                 comboForm.getEmployeeDetails().getRoleCode(),
                 savedUser.getPfpimage()));
 
-        institutionRepository.save(institution);
+        saveInstitution(institution);
+        permissionCache.invalidate(savedUser.getId(), institutionId);
 
         return savedUser;
     }
@@ -118,7 +131,8 @@ public class EmployeeManagementService {
         }
 
         updateEmployeeInInstitution(institution, employeeUpdate);
-        institutionRepository.save(institution);
+        saveInstitution(institution);
+        permissionCache.invalidate(employeeUpdate.getUserID(), institutionId);
 
         user.setRoleCode(recalculateRoleCode(user.getId()));
         userRepository.save(user);
@@ -151,7 +165,9 @@ public class EmployeeManagementService {
             institutionsToUpdate.add(employer);
         }
 
-        institutionRepository.saveAll(institutionsToUpdate);
+        List<Institution> savedInstitutions = institutionRepository.saveAll(institutionsToUpdate);
+        doctorSearchIndexService.reindexInstitutions(savedInstitutions);
+        employmentService.syncInstitutions(savedInstitutions);
     }
      
     public void removeEmployee(String institutionId, String userId, String adminId) {
@@ -172,22 +188,21 @@ public class EmployeeManagementService {
 
         removeEmployeeFromInstitution(institution, user, institutionId);
 
-        institutionRepository.save(institution);
+        saveInstitution(institution);
+        permissionCache.invalidate(userId, institutionId);
         user.setRoleCode(recalculateRoleCode(user.getId()));
         userRepository.save(user);
     }
 
     public int recalculateRoleCode(String userId) {
-        int code = 1;
-        ArrayList<Map<String, Object>> roleCodes = institutionRepository.getRoleCodes(userId);
+        return 1 | employmentService.getCombinedRoleCode(userId);
+    }
 
-        for (Map<String, Object> institution : roleCodes) {
-            String currentId = institution.get("_id").toString();
-            if (currentId != null) {
-                code |= (Integer) institution.getOrDefault("roleCode", 0);
-            }
-        }
-        return code;
+    private Institution saveInstitution(Institution institution) {
+        Institution savedInstitution = institutionRepository.save(institution);
+        doctorSearchIndexService.reindexInstitution(savedInstitution);
+        employmentService.syncInstitution(savedInstitution);
+        return savedInstitution;
     }
 
     private void addEmployeeToInstitution(Institution institution, User user, AddEmployeeForm form) {
@@ -305,9 +320,10 @@ public class EmployeeManagementService {
             ArrayList<StaffDigest> employees = institution.getEmployees();
             employees.removeIf(e -> e.getUserId().equals(user.getId()));
             institution.setEmployees(employees);
-            institutionRepository.save(institution);
+            saveInstitution(institution);
         }
         user.setEmployers(new ArrayList<>());
+        permissionCache.invalidateUser(user.getId());
     }
 
     private void validateEmployeeIds(ArrayList<AddEmployeeForm> employees) {
@@ -323,9 +339,8 @@ public class EmployeeManagementService {
     }
 
     private User createUserFromForm(RegistrationForm form) {
-        Argon2PasswordEncoder encoder = new Argon2PasswordEncoder(16, 32, 1, 60000, 10);
         SecureRandom secureRandom = new SecureRandom();
-        String passwordHash = encoder.encode(Long.toHexString(secureRandom.nextLong()));
+        String passwordHash = passwordHashingService.encode(Long.toHexString(secureRandom.nextLong()));
         UserSettings userSettings = new UserSettings("PL", true, true, 1);
 
         return new User(
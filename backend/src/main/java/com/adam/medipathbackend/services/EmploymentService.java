@@ -0,0 +1,131 @@
+package com.adam.medipathbackend.services;
+
+import com.adam.medipathbackend.models.Employment;
+import com.adam.medipathbackend.models.Institution;
+import com.adam.medipathbackend.models.StaffDigest;
+import com.adam.medipathbackend.repository.EmploymentRepository;
+import com.adam.medipathbackend.repository.InstitutionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+@Service
+public class EmploymentService {
+
+    @Autowired
+    private EmploymentRepository employmentRepository;
+
+    @Autowired
+    private InstitutionRepository institutionRepository;
+
+    public int syncInstitution(Institution institution) {
+        Map<String, Employment> existing = new HashMap<>();
+        for(Employment employment: employmentRepository.getEmploymentsInInstitution(institution.getId())) {
+            existing.put(employment.getUserId(), employment);
+        }
+
+        ArrayList<Employment> changed = new ArrayList<>();
+        if(institution.isActive()) {
+            for(StaffDigest digest: institution.getEmployees()) {
+                Employment current = existing.remove(digest.getUserId());
+                if(current != null && current.matches(digest)) continue;
+                Employment updated = Employment.of(institution.getId(), digest);
+                if(current != null) updated.setId(current.getId());
+                changed.add(updated);
+            }
+        }
+
+        if(!existing.isEmpty()) {
+            employmentRepository.deleteAllById(existing.values().stream().map(Employment::getId).toList());
+        }
+        if(!changed.isEmpty()) {
+            employmentRepository.saveAll(changed);
+        }
+        return existing.size() + changed.size();
+    }
+
+    public void syncInstitutions(Collection<Institution> institutions) {
+        for(Institution institution: institutions) {
+            syncInstitution(institution);
+        }
+    }
+
+    public int rebuild() {
+        employmentRepository.deleteAll();
+        int count = 0;
+        for(Institution institution: institutionRepository.findAll()) {
+            if(!institution.isActive()) continue;
+            ArrayList<Employment> employments = new ArrayList<>();
+            for(StaffDigest digest: institution.getEmployees()) {
+                employments.add(Employment.of(institution.getId(), digest));
+            }
+            if(!employments.isEmpty()) {
+                employmentRepository.insert(employments);
+                count += employments.size();
+            }
+        }
+        return count;
+    }
+
+    public int reconcile() {
+        int changed = 0;
+        ArrayList<String> institutionIds = new ArrayList<>();
+        for(Institution institution: institutionRepository.findAll()) {
+            institutionIds.add(institution.getId());
+            changed += syncInstitution(institution);
+        }
+        return changed + (int) employmentRepository.deleteOutsideInstitutions(institutionIds);
+    }
+
+    public Optional<Employment> findEmployment(String userId, String institutionId) {
+        return employmentRepository.findEmployment(userId, institutionId);
+    }
+
+    public int getCombinedRoleCode(String userId) {
+        int code = 0;
+        for(Employment employment: employmentRepository.getEmploymentsOfUser(userId)) {
+            code |= employment.getRoleCode();
+        }
+        return code;
+    }
+
+    public ArrayList<StaffDigest> getDoctorsInInstitution(String institutionId) {
+        return toDigests(employmentRepository.getEmploymentsInInstitutionWithRoles(institutionId, Employment.DOCTOR_ROLE_CODES));
+    }
+
+    public ArrayList<StaffDigest> getEmployeesInInstitution(String institutionId) {
+        return toDigests(employmentRepository.getEmploymentsInInstitution(institutionId).stream()
+                .filter(employment -> employment.getRoleCode() > 1).toList());
+    }
+
+    public ArrayList<Institution> getInstitutionsOfEmployee(String userId, Collection<Integer> roleCodes) {
+        ArrayList<Employment> employments = roleCodes == null ? employmentRepository.getEmploymentsOfUser(userId)
+                : employmentRepository.getEmploymentsOfUserWithRoles(userId, roleCodes);
+        Map<String, Employment> byInstitution = new LinkedHashMap<>();
+        for(Employment employment: employments) {
+            byInstitution.put(employment.getInstitutionId(), employment);
+        }
+
+        Map<String, Institution> institutions = new HashMap<>();
+        for(Institution institution: institutionRepository.findAllById(byInstitution.keySet())) {
+            institutions.put(institution.getId(), institution);
+        }
+        ArrayList<Institution> result = new ArrayList<>();
+        for(String institutionId: byInstitution.keySet()) {
+            Institution institution = institutions.get(institutionId);
+            if(institution != null && institution.isActive()) {
+                result.add(institution);
+            }
+        }
+        return result;
+    }
+
+    private ArrayList<StaffDigest> toDigests(List<Employment> employments) {
+        ArrayList<StaffDigest> digests = new ArrayList<>(employments.size());
+        for(Employment employment: employments) {
+            digests.add(employment.toStaffDigest());
+        }
+        return digests;
+    }
+}
@@ -0,0 +1,183 @@
+package com.adam.medipathbackend.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+@Component
+public class FanOutExecutor {
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("fan-out-", 1).factory());
+
+    @Value("${medipath.fanout.timeout:5000}")
+    private long timeoutMillis;
+
+    @Value("${medipath.fanout.max-concurrency:64}")
+    private int maxConcurrency;
+
+    private Semaphore permits;
+
+    @PostConstruct
+    public void init() {
+        permits = new Semaphore(maxConcurrency);
+    }
+
+    public Scope scope() {
+        return new Scope(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+    }
+
+    public <T, R> List<R> map(Collection<T> items, Function<T, R> mapper) {
+        try(Scope scope = scope()) {
+            ArrayList<Subtask<R>> subtasks = new ArrayList<>(items.size());
+            for(T item: items) {
+                subtasks.add(scope.fork(() -> mapper.apply(item)));
+            }
+            scope.join();
+            ArrayList<R> results = new ArrayList<>(subtasks.size());
+            for(Subtask<R> subtask: subtasks) {
+                results.add(subtask.get());
+            }
+            return results;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public interface Subtask<T> extends Supplier<T> {}
+
+    public class Scope implements AutoCloseable {
+
+        private final long deadline;
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final Condition changed = lock.newCondition();
+
+        private final ArrayList<Fork<?>> forks = new ArrayList<>();
+
+        private int pending;
+
+        private Throwable failure;
+
+        private boolean joined;
+
+        private Scope(long deadline) {
+            this.deadline = deadline;
+        }
+
+        public <T> Subtask<T> fork(Supplier<T> task) {
+            Fork<T> fork = new Fork<>(() -> {
+                if(!permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    throw new TimeoutException("Request deadline exceeded");
+                }
+                try {
+                    return task.get();
+                } finally {
+                    permits.release();
+                }
+            });
+            lock.lock();
+            try {
+                if(joined) throw new IllegalStateException("Scope already joined");
+                forks.add(fork);
+                pending++;
+            } finally {
+                lock.unlock();
+            }
+            executor.execute(fork);
+            return fork;
+        }
+
+        public void join() {
+            lock.lock();
+            try {
+                joined = true;
+                while(pending > 0 && failure == null) {
+                    long remaining = deadline - System.nanoTime();
+                    if(remaining <= 0) {
+                        failure = new TimeoutException("Request deadline exceeded");
+                        break;
+                    }
+                    changed.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = e;
+            } finally {
+                lock.unlock();
+            }
+            if(failure != null) {
+                cancelAll();
+                if(failure instanceof RuntimeException exception) throw exception;
+                if(failure instanceof Error error) throw error;
+                throw new CompletionException(failure);
+            }
+        }
+
+        @Override
+        public void close() {
+            cancelAll();
+        }
+
+        private void cancelAll() {
+            lock.lock();
+            try {
+                forks.forEach(fork -> fork.cancel(true));
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void onDone(Fork<?> fork) {
+            Throwable cause = fork.state() == Future.State.FAILED ? fork.exceptionNow() : null;
+            lock.lock();
+            try {
+                pending--;
+                if(cause != null && failure == null) failure = cause;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private class Fork<T> extends FutureTask<T> implements Subtask<T> {
+
+            Fork(Callable<T> callable) {
+                super(callable);
+            }
+
+            @Override
+            protected void done() {
+                onDone(this);
+            }
+
+            @Override
+            public T get() {
+                if(!isDone()) throw new IllegalStateException("Subtask has not completed, call join first");
+                try {
+                    return super.get();
+                } catch (ExecutionException e) {
+                    if(e.getCause() instanceof RuntimeException exception) throw exception;
+                    throw new CompletionException(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CompletionException(e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.adam.medipathbackend.services;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+public class HierarchicalTimingWheel<K, V> {
+
+    private final long tickMillis;
+
+    private final int[] wheelSizes;
+
+    private final long[] ticksPerSlot;
+
+    private final List<List<Map<K, Timer<K, V>>>> levels = new ArrayList<>();
+
+    private final Map<K, Timer<K, V>> timers = new HashMap<>();
+
+    private long currentTick;
+
+    public HierarchicalTimingWheel(long tickMillis, long startMillis, int... wheelSizes) {
+        this.tickMillis = tickMillis;
+        this.wheelSizes = wheelSizes;
+        this.ticksPerSlot = new long[wheelSizes.length];
+        long ticks = 1;
+        for(int level = 0; level < wheelSizes.length; level++) {
+            ticksPerSlot[level] = ticks;
+            ticks *= wheelSizes[level];
+            ArrayList<Map<K, Timer<K, V>>> slots = new ArrayList<>(wheelSizes[level]);
+            for(int slot = 0; slot < wheelSizes[level]; slot++) {
+                slots.add(new LinkedHashMap<>());
+            }
+            levels.add(slots);
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    public long getHorizonMillis() {
+        int top = wheelSizes.length - 1;
+        return ticksPerSlot[top] * wheelSizes[top] * tickMillis;
+    }
+
+    public boolean add(K key, V value, long deadlineMillis) {
+        remove(key);
+        Timer<K, V> timer = new Timer<>(key, value, deadlineMillis / tickMillis);
+        if(!place(timer)) {
+            return false;
+        }
+        timers.put(key, timer);
+        return true;
+    }
+
+    public V remove(K key) {
+        Timer<K, V> timer = timers.remove(key);
+        if(timer == null) return null;
+        levels.get(timer.level).get(timer.slot).remove(key);
+        return timer.value;
+    }
+
+    public int size() {
+        return timers.size();
+    }
+
+    public void advanceTo(long nowMillis, Consumer<V> expired) {
+        long targetTick = nowMillis / tickMillis;
+        while(currentTick < targetTick) {
+            currentTick++;
+            for(int level = levels.size() - 1; level > 0; level--) {
+                if(currentTick % ticksPerSlot[level] != 0) continue;
+                int slot = (int) ((currentTick / ticksPerSlot[level]) % wheelSizes[level]);
+                cascade(levels.get(level).get(slot), expired);
+            }
+            Map<K, Timer<K, V>> bucket = levels.get(0).get((int) (currentTick % wheelSizes[0]));
+            fire(bucket, expired);
+        }
+    }
+
+    private void cascade(Map<K, Timer<K, V>> bucket, Consumer<V> expired) {
+        if(bucket.isEmpty()) return;
+        ArrayList<Timer<K, V>> moved = new ArrayList<>(bucket.values());
+        bucket.clear();
+        for(Timer<K, V> timer: moved) {
+            if(!place(timer)) {
+                timers.remove(timer.key);
+                expired.accept(timer.value);
+            }
+        }
+    }
+
+    private void fire(Map<K, Timer<K, V>> bucket, Consumer<V> expired) {
+        if(bucket.isEmpty()) return;
+        ArrayList<Timer<K, V>> due = new ArrayList<>(bucket.values());
+        bucket.clear();
+        for(Timer<K, V> timer: due) {
+            timers.remove(timer.key);
+            expired.accept(timer.value);
+        }
+    }
+
+    private boolean place(Timer<K, V> timer) {
+        long delta = timer.deadlineTick - currentTick;
+        if(delta <= 0) {
+            return false;
+        }
+        int level = 0;
+        while(level < levels.size() - 1 && delta >= ticksPerSlot[level] * wheelSizes[level]) {
+            level++;
+        }
+        if(delta >= ticksPerSlot[level] * wheelSizes[level]) {
+            throw new IllegalArgumentException("deadline beyond the wheel horizon");
+        }
+        timer.level = level;
+        timer.slot = (int) ((timer.deadlineTick / ticksPerSlot[level]) % wheelSizes[level]);
+        levels.get(level).get(timer.slot).put(timer.key, timer);
+        return true;
+    }
+
+    private static class Timer<K, V> {
+        final K key;
+        final V value;
+        final long deadlineTick;
+        int level;
+        int slot;
+
+        Timer(K key, V value, long deadlineTick) {
+            this.key = key;
+            this.value = value;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
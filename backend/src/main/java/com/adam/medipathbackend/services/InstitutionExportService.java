@@ -0,0 +1,188 @@
+package com.adam.medipathbackend.services;
+
+import com.adam.medipathbackend.models.Schedule;
+import com.adam.medipathbackend.models.ScheduleSummary;
+import com.adam.medipathbackend.models.Visit;
+import com.adam.medipathbackend.models.VisitSummary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.*;
+import java.lang.reflect.RecordComponent;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+@Service
+public class InstitutionExportService {
+
+    private static final DateTimeFormatter CSV_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final List<Column<VisitSummary>> VISIT_COLUMNS = List.of(
+            new Column<>("id", VisitSummary::id),
+            new Column<>("status", VisitSummary::status),
+            new Column<>("startTime", visit -> visit.time().getStartTime()),
+            new Column<>("endTime", visit -> visit.time().getEndTime()),
+            new Column<>("patientId", visit -> visit.patient().getUserId()),
+            new Column<>("patientName", visit -> visit.patient().getName()),
+            new Column<>("patientSurname", visit -> visit.patient().getSurname()),
+            new Column<>("doctorId", visit -> visit.doctor().getUserId()),
+            new Column<>("doctorName", visit -> visit.doctor().getDoctorName()),
+            new Column<>("doctorSurname", visit -> visit.doctor().getDoctorSurname()),
+            new Column<>("patientRemarks", VisitSummary::patientRemarks));
+
+    private static final List<Column<ScheduleSummary>> SCHEDULE_COLUMNS = List.of(
+            new Column<>("id", ScheduleSummary::id),
+            new Column<>("startHour", ScheduleSummary::startHour),
+            new Column<>("endHour", ScheduleSummary::endHour),
+            new Column<>("booked", ScheduleSummary::booked),
+            new Column<>("doctorId", schedule -> schedule.doctor().getUserId()),
+            new Column<>("doctorName", schedule -> schedule.doctor().getDoctorName()),
+            new Column<>("doctorSurname", schedule -> schedule.doctor().getDoctorSurname()));
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private InstitutionQueryService queryService;
+
+    @Value("${medipath.export.batch-size:500}")
+    private int batchSize;
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format parse(String format) {
+            if(format == null || format.isBlank()) return NDJSON;
+            for(Format value: values()) {
+                if(value.extension.equalsIgnoreCase(format)) return value;
+            }
+            throw new IllegalArgumentException("Invalid export format");
+        }
+    }
+
+    public StreamingResponseBody exportVisits(String institutionId, String from, String to, Format format) {
+        Criteria criteria = withinMonths(Criteria.where("institution.institutionId").is(institutionId),
+                "time.startTime", from, to);
+        return output -> export(Visit.class, VisitSummary.class, criteria, "time.startTime", VISIT_COLUMNS, format, output);
+    }
+
+    public StreamingResponseBody exportSchedules(String institutionId, String from, String to, Format format) {
+        Criteria criteria = withinMonths(Criteria.where("institution.institutionId").is(institutionId),
+                "startHour", from, to);
+        return output -> export(Schedule.class, ScheduleSummary.class, criteria, "startHour", SCHEDULE_COLUMNS, format, output);
+    }
+
+    private Criteria withinMonths(Criteria criteria, String field, String from, String to) {
+        LocalDate start = from == null ? null : queryService.parseMonthYearDate(from);
+        LocalDate end = to == null ? null : queryService.parseMonthYearDate(to).plusMonths(1);
+        if(start != null && end != null && !start.isBefore(end)) {
+            throw new IllegalArgumentException("Invalid date range");
+        }
+        if(start != null && end != null) {
+            return criteria.and(field).gte(start.atStartOfDay()).lt(end.atStartOfDay());
+        }
+        if(start != null) {
+            return criteria.and(field).gte(start.atStartOfDay());
+        }
+        if(end != null) {
+            return criteria.and(field).lt(end.atStartOfDay());
+        }
+        return criteria;
+    }
+
+    private <T> void export(Class<?> entityType, Class<T> resultType, Criteria criteria, String sortField,
+                            List<Column<T>> columns, Format format, OutputStream output) throws IOException {
+        Query query = new Query(criteria).with(Sort.by(sortField, "_id")).cursorBatchSize(batchSize);
+        for(RecordComponent component: resultType.getRecordComponents()) {
+            query.fields().include(component.getName());
+        }
+
+        try(Stream<T> stream = mongoTemplate.query(entityType).as(resultType).matching(query).stream()) {
+            Iterator<T> rows = stream.iterator();
+            if(format == Format.CSV) {
+                writeCsv(rows, columns, output);
+            } else {
+                writeNdjson(rows, resultType, output);
+            }
+        }
+    }
+
+    private <T> void writeNdjson(Iterator<T> rows, Class<T> type, OutputStream output) throws IOException {
+        try(SequenceWriter writer = objectMapper.writerFor(type).withRootValueSeparator("\n").writeValues(output)) {
+            output.flush();
+            int written = 0;
+            while(rows.hasNext()) {
+                writer.write(rows.next());
+                if(++written % batchSize == 0) writer.flush();
+            }
+        }
+    }
+
+    private <T> void writeCsv(Iterator<T> rows, List<Column<T>> columns, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        writer.write(String.join(",", columns.stream().map(Column::name).toList()));
+        writer.write("\r\n");
+        writer.flush();
+
+        int written = 0;
+        while(rows.hasNext()) {
+            T row = rows.next();
+            for(int i = 0; i < columns.size(); i++) {
+                if(i > 0) writer.write(',');
+                writer.write(csvValue(columns.get(i).value().apply(row)));
+            }
+            writer.write("\r\n");
+            if(++written % batchSize == 0) writer.flush();
+        }
+        writer.flush();
+    }
+
+    private static String csvValue(Object value) {
+        if(value == null) return "";
+        String text = value instanceof LocalDateTime time ? time.format(CSV_DATE_FORMAT) : value.toString();
+        if(!text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if(text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+
+    private record Column<T>(String name, Function<T, Object> value) {}
+}
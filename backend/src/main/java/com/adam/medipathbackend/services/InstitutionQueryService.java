@@ -1,14 +1,9 @@
 package com.adam.medipathbackend.services;
 
-import com.adam.medipathbackend.models.Schedule;
-import com.adam.medipathbackend.models.StaffDigest;
-import com.adam.medipathbackend.models.User;
-import com.adam.medipathbackend.models.Visit;
-import com.adam.medipathbackend.repository.InstitutionRepository;
-import com.adam.medipathbackend.repository.ScheduleRepository;
-import com.adam.medipathbackend.repository.UserRepository;
-import com.adam.medipathbackend.repository.VisitRepository;
+import com.adam.medipathbackend.models.*;
+import com.adam.medipathbackend.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
@@ -34,29 +29,43 @@ public class InstitutionQueryService {
   @Autowired
   private VisitRepository visitRepository;
 
+  @Autowired
+  private EmploymentService employmentService;
+
+  @Autowired
+  private KeysetPager keysetPager;
+
+  @Autowired
+  private RatingStatsRepository ratingStatsRepository;
+
   public List<Map<String, Object>> getDoctors(String institutionId, String specialisation) {
-    ArrayList<StaffDigest> doctors = institutionRepository.findDoctorsInInstitution(institutionId);
+    ArrayList<StaffDigest> doctors = employmentService.getDoctorsInInstitution(institutionId);
 
-    return doctors.stream()
+    List<StaffDigest> matching = doctors.stream()
         .filter(doctor -> specialisation == null || doctor.getSpecialisations().contains(specialisation))
+        .toList();
+    List<String> doctorIds = matching.stream().map(StaffDigest::getUserId).toList();
+    Map<String, User> profiles = getProfiles(doctorIds);
+    Map<String, List<ScheduleSummary>> schedules = getUpcomingSchedules(doctorIds, institutionId);
+    Map<String, RatingStats> ratings = ratingStatsRepository.findAll(doctorIds);
+
+    return matching.stream()
         .map(doctor -> {
 
-          Optional<User> doctorProfileOpt = userRepository.findActiveById(doctor.getUserId());
-          if (doctorProfileOpt.isEmpty()) {
+          User doctorProfile = profiles.get(doctor.getUserId());
+          if (doctorProfile == null || !doctorProfile.isActive()) {
             return null;
           }
-          User doctorProfile = doctorProfileOpt.get();
           Map<String, Object> doctorMap = new HashMap<>();
           doctorMap.put("doctorId", doctor.getUserId());
           doctorMap.put("doctorName", doctor.getName());
 
           doctorMap.put("doctorSurname", doctor.getSurname());
           doctorMap.put("doctorPfp", doctor.getPfpimage());
-          doctorMap.put("doctorSchedules", scheduleRepository.getUpcomingSchedulesByDoctorInInstitution(
-              doctor.getUserId(), institutionId));
+          doctorMap.put("doctorSchedules", schedules.getOrDefault(doctor.getUserId(), List.of()));
 
-          doctorMap.put("rating", doctorProfile.getRating());
-          doctorMap.put("numofratings", doctorProfile.getNumOfRatings());
+          doctorMap.put("rating", ratings.get(doctor.getUserId()).getAverage());
+          doctorMap.put("numofratings", ratings.get(doctor.getUserId()).getCount());
           doctorMap.put("licenceNumber", doctorProfile.getLicenceNumber());
 
           return doctorMap;
@@ -65,23 +74,26 @@ public class InstitutionQueryService {
   }
 
   public List<Map<String, Object>> getEmployees(String institutionId) {
-    ArrayList<StaffDigest> employees = institutionRepository.findEmployeesInInstitution(institutionId);
+    ArrayList<StaffDigest> employees = employmentService.getEmployeesInInstitution(institutionId);
+    List<String> employeeIds = employees.stream().map(StaffDigest::getUserId).toList();
+    Map<String, User> profiles = getProfiles(employeeIds);
+    Map<String, List<ScheduleSummary>> schedules = getUpcomingSchedules(employeeIds, institutionId);
+    Map<String, RatingStats> ratings = ratingStatsRepository.findAll(employeeIds);
 
     return employees.stream()
         .map(employee -> {
 
-          User employeeProfile = userRepository.findById(employee.getUserId()).get();
+          User employeeProfile = profiles.get(employee.getUserId());
           Map<String, Object> employeeMap = new HashMap<>();
           employeeMap.put("doctorId", employee.getUserId());
           employeeMap.put("doctorName", employee.getName());
 
           employeeMap.put("doctorSurname", employee.getSurname());
           employeeMap.put("doctorPfp", employeeProfile.getPfpimage());
-          employeeMap.put("doctorSchedules", scheduleRepository.getUpcomingSchedulesByDoctorInInstitution(
-              employee.getUserId(), institutionId));
+          employeeMap.put("doctorSchedules", schedules.getOrDefault(employee.getUserId(), List.of()));
 
-          employeeMap.put("rating", employeeProfile.getRating());
-          employeeMap.put("numofratings", employeeProfile.getNumOfRatings());
+          employeeMap.put("rating", ratings.get(employee.getUserId()).getAverage());
+          employeeMap.put("numofratings", ratings.get(employee.getUserId()).getCount());
           employeeMap.put("licenceNumber", employeeProfile.getLicenceNumber());
           employeeMap.put("roleCode", employee.getRoleCode());
           employeeMap.put("specialisations", employee.getSpecialisations());
@@ -90,32 +102,34 @@ public class InstitutionQueryService {
         .toList();
   }
 
-  public ArrayList<Schedule> getSchedules(String institutionId, String date) {
+  public CursorPage<ScheduleSummary> getSchedules(String institutionId, String date, String cursor, Integer limit) {
     if (date == null) {
-      return scheduleRepository.getInstitutionSchedules(institutionId);
+      return keysetPager.page(Schedule.class, ScheduleSummary.class,
+          Criteria.where("institution.institutionId").is(institutionId), KeysetPager.SCHEDULES_BY_START, cursor, limit);
     }
 
     LocalDate startDate = parseMonthYearDate(date);
-    return scheduleRepository.getInstitutionSchedulesOnDay(
+    return new CursorPage<>(scheduleRepository.getInstitutionSchedulesOnDay(
         institutionId,
         startDate.atStartOfDay(),
-        startDate.plusMonths(1).atStartOfDay());
+        startDate.plusMonths(1).atStartOfDay()), null);
   }
 
-  public ArrayList<Visit> getVisits(String institutionId, String date) {
+  public CursorPage<VisitSummary> getVisits(String institutionId, String date, String cursor, Integer limit) {
 
     if (date == null) {
-      return visitRepository.getAllVisitsInInstitution(institutionId);
+      return keysetPager.page(Visit.class, VisitSummary.class,
+          Criteria.where("institution.institutionId").is(institutionId), KeysetPager.VISITS_BY_START, cursor, limit);
     }
 
     LocalDate startDate = parseMonthYearDate(date);
-    return visitRepository.getInstitutionVisitsOnDay(
+    return new CursorPage<>(visitRepository.getInstitutionVisitsOnDay(
         institutionId,
         startDate.atStartOfDay(),
-        startDate.plusMonths(1).atStartOfDay());
+        startDate.plusMonths(1).atStartOfDay()), null);
   }
 
-  public ArrayList<Visit> getUpcomingVisits(String institutionId) {
+  public ArrayList<VisitSummary> getUpcomingVisits(String institutionId) {
     return visitRepository.getUpcomingVisitsInInstitution(institutionId);
   }
 
@@ -162,8 +176,11 @@ public class InstitutionQueryService {
       }
     }
 
+    RatingStats ratingStats = fieldsList.contains("rating") || fieldsList.contains("numofratings")
+        ? ratingStatsRepository.find(institution.getId()) : null;
+
     if (fieldsList.contains("rating")) {
-      outputFields.put("rating", institution.getRating());
+      outputFields.put("rating", ratingStats.getAverage());
     }
 
     if (fieldsList.contains("image")) {
@@ -175,13 +192,30 @@ public class InstitutionQueryService {
     }
 
     if (fieldsList.contains("numofratings")) {
-      outputFields.put("numofratings", institution.getNumOfRatings());
+      outputFields.put("numofratings", ratingStats.getCount());
     }
 
     return outputFields;
   }
 
-  private LocalDate parseMonthYearDate(String date) {
+  private Map<String, User> getProfiles(Collection<String> userIds) {
+    Map<String, User> profiles = new HashMap<>();
+    for (User profile : userRepository.findAllById(userIds)) {
+      profiles.put(profile.getId(), profile);
+    }
+    return profiles;
+  }
+
+  private Map<String, List<ScheduleSummary>> getUpcomingSchedules(Collection<String> doctorIds, String institutionId) {
+    Map<String, List<ScheduleSummary>> schedules = new HashMap<>();
+    for (ScheduleSummary schedule : scheduleRepository.getUpcomingSchedulesByDoctorsInInstitution(doctorIds,
+        institutionId, LocalDate.now().atStartOfDay())) {
+      schedules.computeIfAbsent(schedule.doctor().getUserId(), id -> new ArrayList<>()).add(schedule);
+    }
+    return schedules;
+  }
+
+  LocalDate parseMonthYearDate(String date) {
     if (date.equals("now")) {
       return LocalDate.now().withDayOfMonth(1);
     }
@@ -22,6 +22,21 @@ public class InstitutionService {
     @Autowired
     private EmployeeManagementService employeeManagementService;
 
+    @Autowired
+    private DoctorSearchIndexService doctorSearchIndexService;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private PermissionCache permissionCache;
+
+    @Autowired
+    private EmploymentService employmentService;
+
+    @Autowired
+    private EarliestSlotIndex earliestSlotIndex;
+
 
     public Institution createInstitution(Institution institution, User admin) {
         Institution validInstitution = validateInstitution(institution);
@@ -36,6 +51,8 @@ public class InstitutionService {
                 admin.getPfpimage()));
 
         Institution savedInstitution = institutionRepository.save(validInstitution);
+        doctorSearchIndexService.reindexInstitution(savedInstitution);
+        employmentService.syncInstitution(savedInstitution);
 
         admin.addEmployer(new InstitutionDigest(
                 savedInstitution.getId(),
@@ -64,7 +81,10 @@ public class InstitutionService {
         existing.setTypes(validInstitution.getTypes());
         existing.setAddress(validInstitution.getAddress());
 
-        return institutionRepository.save(existing);
+        Institution savedInstitution = institutionRepository.save(existing);
+        doctorSearchIndexService.reindexInstitution(savedInstitution);
+        earliestSlotIndex.refreshInstitution(institutionId);
+        return savedInstitution;
     }
 
     public Optional<Institution> getInstitution(String id) {
@@ -95,7 +115,8 @@ public class InstitutionService {
     }
 
     private void checkForDuplicates(Institution institution) {
-        ArrayList<Institution> possibleDuplicates = institutionRepository.findInstitutionByName(institution.getName());
+        Iterable<Institution> possibleDuplicates = institutionRepository.findAllById(
+                searchIndexService.searchInstitutionIds(institution.getName(), null, null));
 
         for (Institution duplicate : possibleDuplicates) {
             if (duplicate.isSimilar(institution)) {
@@ -112,6 +133,10 @@ public class InstitutionService {
         Institution institution = institutionOptional.get();
         employeeManagementService.removeAllEmployeesFromInstitution(institution);
         institution.setActive(false);
-        institutionRepository.save(institution);
+        Institution savedInstitution = institutionRepository.save(institution);
+        doctorSearchIndexService.reindexInstitution(savedInstitution);
+        employmentService.syncInstitution(savedInstitution);
+        permissionCache.invalidateInstitution(institutionId);
+        earliestSlotIndex.refreshInstitution(institutionId);
     }
 }
@@ -0,0 +1,248 @@
+package com.adam.medipathbackend.services;
+
+import com.adam.medipathbackend.models.MailOutboxEntry;
+import com.adam.medipathbackend.repository.MailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.UnsupportedEncodingException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class MailOutboxService {
+
+    private static final Logger log = LoggerFactory.getLogger(MailOutboxService.class);
+
+    private static final Duration CLAIM_LEASE = Duration.ofMinutes(5);
+
+    private static final Duration BASE_BACKOFF = Duration.ofSeconds(30);
+
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+
+    @Autowired
+    private MailOutboxRepository mailOutboxRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private JavaMailSender sender;
+
+    @Value("${medipath.mail.batch-size:20}")
+    private int batchSize;
+
+    @Value("${medipath.mail.max-attempts:6}")
+    private int maxAttempts;
+
+    private final ThreadPoolExecutor workers;
+
+    private final AtomicInteger activeDrains = new AtomicInteger();
+
+    private final Counter sentCounter;
+
+    private final Counter retriedCounter;
+
+    private final Counter failedCounter;
+
+    private final Counter drainErrorCounter;
+
+    private final MeterRegistry meterRegistry;
+
+    public MailOutboxService(MeterRegistry meterRegistry, @Value("${medipath.mail.workers:2}") int workerCount,
+                             @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = virtualThreads ? Thread.ofVirtual().name("mail-outbox-", 1).factory()
+                : runnable -> {
+                    Thread thread = new Thread(runnable, "mail-outbox-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                };
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(workerCount), threadFactory, new ThreadPoolExecutor.DiscardPolicy());
+
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("medipath.mail.outbox.workers.active", activeDrains, AtomicInteger::get)
+                .register(meterRegistry);
+        this.sentCounter = Counter.builder("medipath.mail.outbox.sent").register(meterRegistry);
+        this.retriedCounter = Counter.builder("medipath.mail.outbox.retried").register(meterRegistry);
+        this.failedCounter = Counter.builder("medipath.mail.outbox.failed").register(meterRegistry);
+        this.drainErrorCounter = Counter.builder("medipath.mail.outbox.drain.errors").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void registerGauges() {
+        Gauge.builder("medipath.mail.outbox.pending", this, service -> service.countByStatus(MailOutboxEntry.PENDING))
+                .description("Mails waiting in the outbox").register(meterRegistry);
+        Gauge.builder("medipath.mail.outbox.sending", this, service -> service.countByStatus(MailOutboxEntry.SENDING))
+                .description("Mails claimed by a worker").register(meterRegistry);
+    }
+
+    public MailOutboxEntry enqueue(String recipient, String subject, String content) {
+        MailOutboxEntry entry = mailOutboxRepository.save(new MailOutboxEntry(recipient, subject, content));
+        triggerDrain();
+        return entry;
+    }
+
+    public void triggerDrain() {
+        workers.execute(this::drain);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        triggerDrain();
+    }
+
+    @Scheduled(fixedDelay = 30000, initialDelay = 30000)
+    public void sweep() {
+        mailOutboxRepository.releaseStaleClaims(LocalDateTime.now());
+        triggerDrain();
+    }
+
+    @PreDestroy
+    public void stop() {
+        workers.shutdown();
+    }
+
+    private double countByStatus(String status) {
+        try {
+            return mailOutboxRepository.countByStatus(status);
+        } catch (RuntimeException e) {
+            return Double.NaN;
+        }
+    }
+
+    private void drain() {
+        activeDrains.incrementAndGet();
+        try {
+            List<MailOutboxEntry> batch;
+            while(!(batch = claimBatch()).isEmpty()) {
+                sendBatch(batch);
+            }
+        } catch (RuntimeException e) {
+            drainErrorCounter.increment();
+            log.warn("Mail outbox drain stopped, the remaining entries are picked up by the next sweep", e);
+        } finally {
+            activeDrains.decrementAndGet();
+        }
+    }
+
+    private List<MailOutboxEntry> claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        Query query = new Query(Criteria.where("status").is(MailOutboxEntry.PENDING).and("nextAttemptAt").lte(now))
+                .with(Sort.by("nextAttemptAt"));
+        Update claim = new Update().set("status", MailOutboxEntry.SENDING).set("nextAttemptAt", now.plus(CLAIM_LEASE));
+
+        ArrayList<MailOutboxEntry> batch = new ArrayList<>();
+        while(batch.size() < batchSize) {
+            MailOutboxEntry entry = mongoTemplate.findAndModify(query, claim,
+                    FindAndModifyOptions.options().returnNew(true), MailOutboxEntry.class);
+            if(entry == null) break;
+            batch.add(entry);
+        }
+        return batch;
+    }
+
+    private void sendBatch(List<MailOutboxEntry> batch) {
+        Map<MimeMessage, MailOutboxEntry> messages = new LinkedHashMap<>();
+        for(MailOutboxEntry entry: batch) {
+            try {
+                messages.put(buildMessage(entry), entry);
+            } catch (MessagingException | UnsupportedEncodingException e) {
+                markFailed(entry, e, true);
+            }
+        }
+        if(messages.isEmpty()) return;
+
+        Map<Object, Exception> failures = Map.of();
+        try {
+            sender.send(messages.keySet().toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            failures = e.getFailedMessages();
+            if(failures.isEmpty()) {
+                messages.values().forEach(entry -> markFailed(entry, e, false));
+                return;
+            }
+        } catch (MailException e) {
+            messages.values().forEach(entry -> markFailed(entry, e, false));
+            return;
+        }
+
+        for(Map.Entry<MimeMessage, MailOutboxEntry> message: messages.entrySet()) {
+            Exception failure = failures.get(message.getKey());
+            if(failure == null) {
+                markSent(message.getValue());
+            } else {
+                markFailed(message.getValue(), failure, false);
+            }
+        }
+    }
+
+    private MimeMessage buildMessage(MailOutboxEntry entry) throws MessagingException, UnsupportedEncodingException {
+        MimeMessage message = sender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message);
+
+        helper.setFrom(new InternetAddress("service@medipath.com", "MediPath"));
+        helper.setSubject(entry.getSubject());
+        helper.setTo(entry.getRecipient());
+        helper.setText(entry.getContent(), true);
+        return message;
+    }
+
+    private void markSent(MailOutboxEntry entry) {
+        entry.setStatus(MailOutboxEntry.SENT);
+        entry.setAttempts(entry.getAttempts() + 1);
+        entry.setSentAt(LocalDateTime.now());
+        entry.setContent(null);
+        entry.setLastError(null);
+        mailOutboxRepository.save(entry);
+        sentCounter.increment();
+    }
+
+    private void markFailed(MailOutboxEntry entry, Exception error, boolean permanent) {
+        int attempts = entry.getAttempts() + 1;
+        entry.setAttempts(attempts);
+        entry.setLastError(error.getMessage());
+        if(permanent || attempts >= maxAttempts) {
+            entry.setStatus(MailOutboxEntry.FAILED);
+            entry.setContent(null);
+            failedCounter.increment();
+        } else {
+            long backoff = Math.min(BASE_BACKOFF.toMillis() << (attempts - 1), MAX_BACKOFF.toMillis());
+            entry.setStatus(MailOutboxEntry.PENDING);
+            entry.setNextAttemptAt(LocalDateTime.now().plus(Duration.ofMillis(backoff)));
+            retriedCounter.increment();
+        }
+        mailOutboxRepository.save(entry);
+    }
+}
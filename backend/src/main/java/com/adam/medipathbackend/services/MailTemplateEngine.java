@@ -0,0 +1,177 @@
+package com.adam.medipathbackend.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+@Component
+public class MailTemplateEngine {
+
+    private static final String TEMPLATE_LOCATION = "classpath*:mail-templates/*.html";
+
+    private static final String LAYOUT_NAME = "layout.html";
+
+    private static final String DEFAULT_LANGUAGE = "EN";
+
+    private static final int MAX_POOLED_CAPACITY = 64 * 1024;
+
+    private final Map<String, CompiledTemplate> templates = new HashMap<>();
+
+    private final Map<String, String> globals;
+
+    private final ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(() -> new StringBuilder(4096));
+
+    public MailTemplateEngine(@Value("${medipath.app-url:http://localhost:4200}") String appUrl) {
+        this.globals = Map.of("appUrl", appUrl);
+        try {
+            Resource[] resources = new PathMatchingResourcePatternResolver().getResources(TEMPLATE_LOCATION);
+            String layout = null;
+            Map<String, String> sources = new HashMap<>();
+            for(Resource resource: resources) {
+                String fileName = resource.getFilename();
+                if(fileName == null) continue;
+                String text = stripTrailingNewline(resource.getContentAsString(StandardCharsets.UTF_8));
+                if(fileName.equals(LAYOUT_NAME)) {
+                    layout = text;
+                } else {
+                    sources.put(fileName.substring(0, fileName.length() - ".html".length()), text);
+                }
+            }
+            if(layout == null) {
+                throw new IllegalStateException("mail-templates/" + LAYOUT_NAME + " is missing");
+            }
+            for(Map.Entry<String, String> source: sources.entrySet()) {
+                templates.put(source.getKey().toLowerCase(), compileTemplate(source.getKey(), layout, source.getValue()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public boolean hasTemplate(String template, String language) {
+        return templates.containsKey(key(template, language));
+    }
+
+    public RenderedMail render(String template, String recipient, String language, Map<String, String> params) {
+        return render(lookup(template, language), recipient, params);
+    }
+
+    private RenderedMail render(CompiledTemplate template, String recipient, Map<String, String> params) {
+        StringBuilder buffer = buffers.get();
+        try {
+            buffer.setLength(0);
+            template.subject.appendTo(buffer, params, globals, false);
+            String subject = buffer.toString();
+            buffer.setLength(0);
+            template.content.appendTo(buffer, params, globals, true);
+            return new RenderedMail(recipient, subject, buffer.toString());
+        } finally {
+            if(buffer.capacity() > MAX_POOLED_CAPACITY) {
+                buffers.remove();
+            }
+        }
+    }
+
+    private CompiledTemplate lookup(String template, String language) {
+        CompiledTemplate compiled = templates.get(key(template, language));
+        if(compiled == null) {
+            compiled = templates.get(key(template, DEFAULT_LANGUAGE));
+        }
+        if(compiled == null) {
+            throw new IllegalArgumentException("no mail template named " + template);
+        }
+        return compiled;
+    }
+
+    private static String key(String template, String language) {
+        return (template + "_" + (language == null ? DEFAULT_LANGUAGE : language)).toLowerCase();
+    }
+
+    private static CompiledTemplate compileTemplate(String name, String layout, String source) {
+        int separator = source.indexOf("\n---\n");
+        if(separator < 0) {
+            throw new IllegalStateException("mail template " + name + " has no header section");
+        }
+        Map<String, String> headers = new HashMap<>();
+        for(String line: source.substring(0, separator).split("\n")) {
+            int colon = line.indexOf(':');
+            if(colon < 0) {
+                throw new IllegalStateException("malformed header line in mail template " + name + ": " + line);
+            }
+            headers.put(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+        }
+        if(!headers.containsKey("subject") || !headers.containsKey("header")) {
+            throw new IllegalStateException("mail template " + name + " must define subject and header");
+        }
+        String body = source.substring(separator + "\n---\n".length());
+        String content = layout.replace("{{header}}", headers.get("header")).replace("{{content}}", body);
+        return new CompiledTemplate(Segments.compile(name, headers.get("subject")), Segments.compile(name, content));
+    }
+
+    private static String stripTrailingNewline(String text) {
+        text = text.replace("\r\n", "\n");
+        return text.endsWith("\n") ? text.substring(0, text.length() - 1) : text;
+    }
+
+    private static void appendEscaped(StringBuilder buffer, String value) {
+        for(int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<' -> buffer.append("&lt;");
+                case '>' -> buffer.append("&gt;");
+                case '&' -> buffer.append("&amp;");
+                case '"' -> buffer.append("&quot;");
+                case '\'' -> buffer.append("&#39;");
+                default -> buffer.append(c);
+            }
+        }
+    }
+
+    public record RenderedMail(String recipient, String subject, String content) {}
+
+    private record CompiledTemplate(Segments subject, Segments content) {}
+
+    private record Segments(String[] literals, String[] params) {
+
+        static Segments compile(String name, String text) {
+            ArrayList<String> literals = new ArrayList<>();
+            ArrayList<String> params = new ArrayList<>();
+            int position = 0;
+            while(true) {
+                int open = text.indexOf("{{", position);
+                if(open < 0) break;
+                int close = text.indexOf("}}", open);
+                if(close < 0) {
+                    throw new IllegalStateException("unclosed placeholder in mail template " + name);
+                }
+                literals.add(text.substring(position, open));
+                params.add(text.substring(open + 2, close).trim());
+                position = close + 2;
+            }
+            literals.add(text.substring(position));
+            return new Segments(literals.toArray(new String[0]), params.toArray(new String[0]));
+        }
+
+        void appendTo(StringBuilder buffer, Map<String, String> values, Map<String, String> globals, boolean escape) {
+            buffer.append(literals[0]);
+            for(int i = 0; i < params.length; i++) {
+                String value = values.get(params[i]);
+                if(value == null) {
+                    value = globals.getOrDefault(params[i], "");
+                }
+                if(escape) {
+                    appendEscaped(buffer, value);
+                } else {
+                    buffer.append(value);
+                }
+                buffer.append(literals[i + 1]);
+            }
+        }
+    }
+}
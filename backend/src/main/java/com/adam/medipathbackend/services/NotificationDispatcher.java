@@ -0,0 +1,166 @@
+package com.adam.medipathbackend.services;
+
+import com.adam.medipathbackend.models.Notification;
+import com.adam.medipathbackend.repository.NotificationRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands due notifications to the message broker. A notification is claimed by flipping {@code sent}
+ * before it is sent, so only one instance sends it. If sending fails the claim is released and the
+ * notification is retried every {@link #RETRY_DELAY} until {@link #MISSED_GRACE} after its timestamp.
+ * The broker does not acknowledge delivery to the client, so this is at-least-once towards the broker:
+ * a send that reached the broker but still threw is sent again on retry. Notifications that are given up
+ * on, or that were already past the grace period when the dispatcher started, are marked {@code missed}
+ * so they do not look pending until the TTL removes them.
+ */
+@Component
+public class NotificationDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    private static final Duration HORIZON = Duration.ofHours(1);
+
+    private static final Duration MISSED_GRACE = Duration.ofMinutes(10);
+
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(30);
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Lazy
+    @Autowired
+    private NotificationService notificationService;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "notification-dispatcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private HierarchicalTimingWheel<String, Notification> wheel;
+
+    private LocalDateTime loadedUntil;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.execute(() -> {
+            wheel = new HierarchicalTimingWheel<>(1000, System.currentTimeMillis(), 60, 60, 24);
+            LocalDateTime now = LocalDateTime.now();
+            loadedUntil = now.minus(MISSED_GRACE);
+            markMissedBefore(loadedUntil);
+            loadUntil(now.plus(HORIZON));
+        });
+        executor.scheduleAtFixedRate(this::tick, 1, 1, TimeUnit.SECONDS);
+    }
+
+    @Scheduled(fixedRate = 15*60000, initialDelay = 15*60000)
+    public void extendHorizon() {
+        executor.execute(() -> loadUntil(LocalDateTime.now().plus(HORIZON)));
+    }
+
+    public void schedule(Notification notification) {
+        if(notification.getId() == null || notification.isSent()) return;
+        executor.execute(() -> {
+            if(wheel == null || !notification.getTimestamp().isBefore(loadedUntil)) return;
+            enqueue(notification);
+        });
+    }
+
+    public void cancel(String notificationId) {
+        executor.execute(() -> {
+            if(wheel != null) wheel.remove(notificationId);
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    private void loadUntil(LocalDateTime until) {
+        if(!until.isAfter(loadedUntil)) return;
+        for(Notification notification: notificationRepository.getUnsentNotificationsBetween(loadedUntil, until)) {
+            enqueue(notification);
+        }
+        loadedUntil = until;
+    }
+
+    private void markMissedBefore(LocalDateTime cutoff) {
+        try {
+            long missed = notificationRepository.markMissedBefore(cutoff);
+            if(missed > 0) log.warn("Marked {} notifications scheduled before {} as missed", missed, cutoff);
+        } catch (RuntimeException e) {
+            log.warn("Could not mark missed notifications: {}", e.getMessage());
+        }
+    }
+
+    private void enqueue(Notification notification) {
+        long deadline = notification.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        if(!wheel.add(notification.getId(), notification, deadline)) {
+            deliver(notification);
+        }
+    }
+
+    private void tick() {
+        if(wheel == null) return;
+        try {
+            wheel.advanceTo(Instant.now().toEpochMilli(), this::deliver);
+        } catch (RuntimeException e) {
+            log.warn("Notification wheel advance failed", e);
+        }
+    }
+
+    private void deliver(Notification notification) {
+        try {
+            if(notificationRepository.claimForSending(notification.getId()) == 0) return;
+        } catch (RuntimeException e) {
+            log.warn("Could not claim notification {}: {}", notification.getId(), e.getMessage());
+            retry(notification);
+            return;
+        }
+        notification.setSent(true);
+        try {
+            notificationService.sendNotificationToUser(notification.getUserId(), notification);
+        } catch (RuntimeException e) {
+            log.warn("Could not send notification {} to user {}: {}", notification.getId(), notification.getUserId(), e.getMessage());
+            notification.setSent(false);
+            try {
+                notificationRepository.releaseClaim(notification.getId());
+            } catch (RuntimeException releaseError) {
+                log.error("Could not release notification {} after a failed send, it will not be retried: {}",
+                        notification.getId(), releaseError.getMessage());
+                return;
+            }
+            retry(notification);
+        }
+    }
+
+    private void retry(Notification notification) {
+        if(notification.getTimestamp().plus(MISSED_GRACE).isBefore(LocalDateTime.now())) {
+            log.warn("Giving up on notification {} scheduled for {}", notification.getId(), notification.getTimestamp());
+            try {
+                notificationRepository.markMissed(notification.getId());
+            } catch (RuntimeException e) {
+                log.warn("Could not mark notification {} as missed: {}", notification.getId(), e.getMessage());
+            }
+            return;
+        }
+        wheel.add(notification.getId(), notification, System.currentTimeMillis() + RETRY_DELAY.toMillis());
+    }
+}
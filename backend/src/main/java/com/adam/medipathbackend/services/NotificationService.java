@@ -4,6 +4,7 @@ import com.adam.medipathbackend.forms.AddNotificationForm;
 import com.adam.medipathbackend.models.Notification;
 import com.adam.medipathbackend.models.User;
 import com.adam.medipathbackend.models.Visit;
+import com.adam.medipathbackend.repository.NotificationRepository;
 import com.adam.medipathbackend.repository.UserRepository;
 import com.adam.medipathbackend.repository.VisitRepository;
 
@@ -29,6 +30,12 @@ public class NotificationService {
     @Autowired
     VisitRepository visitRepository;
 
+    @Autowired
+    NotificationRepository notificationRepository;
+
+    @Autowired
+    NotificationDispatcher notificationDispatcher;
+
     @Autowired
     public NotificationService(SimpMessagingTemplate messagingTemplate) {
         this.messagingTemplate = messagingTemplate;
@@ -74,40 +81,36 @@ public class NotificationService {
         if (startDate.isBefore(java.time.LocalDate.now())) throw new IllegalArgumentException("Start date is not future");
         if (endDate.isBefore(startDate)) throw new IllegalArgumentException("End date is before start date");
 
+        ArrayList<Notification> notifications = new ArrayList<>();
         while (startDate.isBefore(endDate) || startDate.isEqual(endDate)) {
-            user.addNotification(new Notification(notificationForm.getTitle(), content, startDate.atTime(notificationForm.getReminderTime()), false, false));
+            Notification notification = new Notification(notificationForm.getTitle(), content, startDate.atTime(notificationForm.getReminderTime()), false, false);
+            notification.setUserId(user.getId());
+            notifications.add(notification);
             startDate = startDate.plusDays(1);
         }
 
-        userRepository.save(user);
+        notificationRepository.insert(notifications).forEach(notificationDispatcher::schedule);
     }
 
-    public void readNotification(Notification notifToChange, String loggedUserID) throws IllegalArgumentException, IllegalAccessException {
-
-        Optional<User> userOpt = userRepository.findActiveById(loggedUserID);
-        if (userOpt.isEmpty()) throw new IllegalAccessException("User not found");
-
-        User user = userOpt.get();
-        ArrayList<Notification> notifications = user.getNotifications();
+    public void scheduleNotification(String userId, Notification notification) {
+        notification.setUserId(userId);
+        notificationDispatcher.schedule(notificationRepository.insert(notification));
+    }
 
-        boolean found = false;
-        for (int i = 0; i < notifications.size(); i++) {
+    public void removeSystemNotification(String userId, LocalDateTime timestamp) {
+        notificationRepository.deleteSystemNotification(userId, timestamp)
+                .forEach(notification -> notificationDispatcher.cancel(notification.getId()));
+    }
 
-            Notification notification = notifications.get(i);
-            if (notification.getTimestamp().isEqual(notifToChange.getTimestamp()) && notification.getTitle().equals(notifToChange.getTitle())) {
+    public void readNotification(Notification notifToChange, String loggedUserID) throws IllegalArgumentException, IllegalAccessException {
 
-                if (notification.getTimestamp().isAfter(java.time.LocalDateTime.now())) throw new IllegalArgumentException("Notification set in future");
-                notification.setRead(true);
-                notifications.set(i, notification);
-                found = true;
-                break;
+        if (userRepository.findActiveById(loggedUserID).isEmpty()) throw new IllegalAccessException("User not found");
 
-            }
-        }
+        if (notifToChange.getTimestamp() == null || notifToChange.getTitle() == null) throw new IllegalArgumentException("Notification not found");
+        if (notifToChange.getTimestamp().isAfter(LocalDateTime.now())) throw new IllegalArgumentException("Notification set in future");
 
-        if (!found) throw new IllegalArgumentException("Notification not found");
-        user.setNotifications(notifications);
-        userRepository.save(user);
+        if (notificationRepository.markAsRead(loggedUserID, notifToChange.getTitle(), notifToChange.getTimestamp()) == 0)
+            throw new IllegalArgumentException("Notification not found");
 
     }
 
@@ -116,20 +119,7 @@ public class NotificationService {
         Optional<User> userOpt = userRepository.findActiveById(loggedUserID);
         if (userOpt.isEmpty()) throw new IllegalAccessException("User not found");
 
-        User user = userOpt.get();
-        ArrayList<Notification> notifications = user.getNotifications();
-
-        for (int i = 0; i < notifications.size(); i++) {
-            Notification notification = notifications.get(i);
-
-            if (!notification.getTimestamp().isAfter(java.time.LocalDateTime.now())) {
-                notification.setRead(true);
-                notifications.set(i, notification);
-            }
-        }
-
-        user.setNotifications(notifications);
-        userRepository.save(user);
+        notificationRepository.markAllAsRead(loggedUserID, LocalDateTime.now());
     }
 
     private static ArrayList<String> getMissingFields(AddNotificationForm notificationForm) {
@@ -143,14 +133,14 @@ public class NotificationService {
         return missingFields;
     }
 
-    private boolean isTimeBetween(LocalDateTime timeStamp, LocalDateTime lower, LocalDateTime upper) {
-        return !(timeStamp.isBefore(lower) || timeStamp.isAfter(upper));
-    }
-
-    private boolean notificationMatches(Notification notification, AddNotificationForm notificationForm) {
-        return isTimeBetween(notification.getTimestamp(), notificationForm.getStartDate().atStartOfDay(), notificationForm.getEndDate().plusDays(1).atStartOfDay())
-                && notification.getTitle().equals(notificationForm.getTitle())
-                && notification.getTimestamp().toLocalTime().equals(notificationForm.getReminderTime());
+    private ArrayList<LocalDateTime> reminderTimestamps(AddNotificationForm notificationForm) {
+        ArrayList<LocalDateTime> timestamps = new ArrayList<>();
+        LocalDate date = notificationForm.getStartDate();
+        while (!date.isAfter(notificationForm.getEndDate())) {
+            timestamps.add(date.atTime(notificationForm.getReminderTime()));
+            date = date.plusDays(1);
+        }
+        return timestamps;
     }
 
 
@@ -172,13 +162,10 @@ public class NotificationService {
         }
 
 
-        User user = userOpt.get();
-        ArrayList<Notification> notifications = user.getNotifications();
-
-        if (!notifications.removeIf(notification -> notificationMatches(notification, notificationForm)))
+        ArrayList<Notification> removed = notificationRepository.deleteNotifications(loggedUserID, notificationForm.getTitle(), reminderTimestamps(notificationForm));
+        if (removed.isEmpty())
             throw new IllegalArgumentException("No notification matches criteria");
 
-        user.setNotifications(notifications);
-        userRepository.save(user);
+        removed.forEach(notification -> notificationDispatcher.cancel(notification.getId()));
     }
 }
@@ -0,0 +1,160 @@
+package com.adam.medipathbackend.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Service
+public class PasswordHashingService {
+
+    private static final Pattern ARGON2_PARAMETERS = Pattern.compile("^\\$argon2id\\$v=19\\$m=(\\d+),t=(\\d+),p=(\\d+)\\$([^$]+)\\$([^$]+)$");
+
+    private final Argon2PasswordEncoder encoder;
+
+    private final int saltLength;
+
+    private final int hashLength;
+
+    private final int parallelism;
+
+    private final int memory;
+
+    private final int iterations;
+
+    private final long timeoutMillis;
+
+    private final ThreadPoolExecutor workers;
+
+    private final Timer queueWaitTimer;
+
+    private final Timer encodeTimer;
+
+    private final Timer matchTimer;
+
+    private final Counter rejectedCounter;
+
+    private final Counter rehashedCounter;
+
+    public PasswordHashingService(MeterRegistry meterRegistry,
+                                  @Value("${medipath.password.argon2.salt-length:16}") int saltLength,
+                                  @Value("${medipath.password.argon2.hash-length:32}") int hashLength,
+                                  @Value("${medipath.password.argon2.parallelism:1}") int parallelism,
+                                  @Value("${medipath.password.argon2.memory:60000}") int memory,
+                                  @Value("${medipath.password.argon2.iterations:10}") int iterations,
+                                  @Value("${medipath.password.hashing.threads:2}") int threads,
+                                  @Value("${medipath.password.hashing.queue-capacity:32}") int queueCapacity,
+                                  @Value("${medipath.password.hashing.timeout:10000}") long timeoutMillis) {
+        this.saltLength = saltLength;
+        this.hashLength = hashLength;
+        this.parallelism = parallelism;
+        this.memory = memory;
+        this.iterations = iterations;
+        this.timeoutMillis = timeoutMillis;
+        this.encoder = new Argon2PasswordEncoder(saltLength, hashLength, parallelism, memory, iterations);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("medipath.password.hashing.queue", workers, executor -> executor.getQueue().size())
+                .description("Password hashes waiting for a worker").register(meterRegistry);
+        Gauge.builder("medipath.password.hashing.active", workers, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("medipath.password.hashing.queue.wait")
+                .description("Time a hash waited for a worker").register(meterRegistry);
+        this.encodeTimer = Timer.builder("medipath.password.hashing.duration").tag("operation", "encode")
+                .register(meterRegistry);
+        this.matchTimer = Timer.builder("medipath.password.hashing.duration").tag("operation", "matches")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("medipath.password.hashing.rejected").register(meterRegistry);
+        this.rehashedCounter = Counter.builder("medipath.password.hashing.rehashed").register(meterRegistry);
+    }
+
+    public String encode(String rawPassword) {
+        return await(submit(() -> encodeTimer.record(() -> encoder.encode(rawPassword))));
+    }
+
+    public boolean matches(String rawPassword, String passwordHash) {
+        if(passwordHash == null || passwordHash.isEmpty()) return false;
+        return await(submit(() -> matchTimer.record(() -> encoder.matches(rawPassword, passwordHash))));
+    }
+
+    public boolean needsRehash(String passwordHash) {
+        if(passwordHash == null) return false;
+        Matcher matcher = ARGON2_PARAMETERS.matcher(passwordHash);
+        if(!matcher.matches()) return true;
+        return Integer.parseInt(matcher.group(1)) != memory
+                || Integer.parseInt(matcher.group(2)) != iterations
+                || Integer.parseInt(matcher.group(3)) != parallelism
+                || decodedLength(matcher.group(4)) != saltLength
+                || decodedLength(matcher.group(5)) != hashLength;
+    }
+
+    public void rehashInBackground(String rawPassword, Consumer<String> onRehashed) {
+        if(!workers.getQueue().isEmpty()) return;
+        try {
+            submit(() -> {
+                String passwordHash = encodeTimer.record(() -> encoder.encode(rawPassword));
+                onRehashed.accept(passwordHash);
+                rehashedCounter.increment();
+                return passwordHash;
+            });
+        } catch (RejectedExecutionException ignored) {
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    private <T> Future<T> submit(Supplier<T> task) {
+        long queuedAt = System.nanoTime();
+        try {
+            return workers.submit(() -> {
+                queueWaitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return task.get();
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new RejectedExecutionException("server busy, try again later");
+        }
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejectedCounter.increment();
+            throw new RejectedExecutionException("server busy, try again later");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("server busy, try again later");
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static int decodedLength(String base64) {
+        return base64.length() * 3 / 4;
+    }
+}
@@ -0,0 +1,77 @@
+package com.adam.medipathbackend.services;
+
+import com.adam.medipathbackend.models.Employment;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class PermissionCache {
+
+    public static final int DOCTOR = 2;
+
+    public static final int STAFF = 4;
+
+    public static final int ADMIN = 8;
+
+    @Autowired
+    private EmploymentService employmentService;
+
+    @Value("${medipath.cache.permissions.ttl:30000}")
+    private long ttlMillis;
+
+    @Value("${medipath.cache.permissions.max-size:50000}")
+    private int maxSize;
+
+    private final ConcurrentHashMap<Key, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    public boolean hasRole(String userId, String institutionId, int role) {
+        return (getRoleCode(userId, institutionId) & role) != 0;
+    }
+
+    public int getRoleCode(String userId, String institutionId) {
+        if(userId == null || institutionId == null) return 0;
+        Key key = new Key(userId, institutionId);
+        long now = System.currentTimeMillis();
+
+        Snapshot snapshot = snapshots.get(key);
+        if(snapshot != null && snapshot.expiresAt() > now) {
+            return snapshot.roleCode();
+        }
+
+        int roleCode = employmentService.findEmployment(userId, institutionId)
+                .map(Employment::getRoleCode).orElse(0);
+        if(snapshots.size() >= maxSize) {
+            evictExpired();
+        }
+        if(snapshots.size() < maxSize) {
+            snapshots.put(key, new Snapshot(roleCode, now + ttlMillis));
+        }
+        return roleCode;
+    }
+
+    public void invalidate(String userId, String institutionId) {
+        snapshots.remove(new Key(userId, institutionId));
+    }
+
+    public void invalidateInstitution(String institutionId) {
+        snapshots.keySet().removeIf(key -> key.institutionId().equals(institutionId));
+    }
+
+    public void invalidateUser(String userId) {
+        snapshots.keySet().removeIf(key -> key.userId().equals(userId));
+    }
+
+    @Scheduled(fixedDelay = 60000, initialDelay = 60000)
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        snapshots.values().removeIf(snapshot -> snapshot.expiresAt() <= now);
+    }
+
+    private record Key(String userId, String institutionId) {}
+
+    private record Snapshot(int roleCode, long expiresAt) {}
+}
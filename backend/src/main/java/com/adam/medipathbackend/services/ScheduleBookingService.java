@@ -0,0 +1,155 @@
+package com.adam.medipathbackend.services;
+
+import com.adam.medipathbackend.models.Schedule;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Books and frees schedule slots. Each Mongo write to a slot and the matching availability update happen under the
+ * slot's stripe lock, so the in-memory calendar applies them in the same order as Mongo.
+ */
+@Service
+public class ScheduleBookingService {
+
+    private static final int LOCK_STRIPES = 64;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private AvailabilityService availabilityService;
+
+    @Value("${medipath.booking.known-booked-ttl:30000}")
+    private long knownBookedTtlMillis;
+
+    @Value("${medipath.booking.known-booked-max:10000}")
+    private int knownBookedMax;
+
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    private final ConcurrentHashMap<String, Long> knownBooked = new ConcurrentHashMap<>();
+
+    public ScheduleBookingService() {
+        for(int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public boolean isKnownBooked(String scheduleId) {
+        Long expiry = knownBooked.get(scheduleId);
+        if(expiry == null) return false;
+        if(expiry < System.currentTimeMillis()) {
+            knownBooked.remove(scheduleId, expiry);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Books the slot for the visit in a single findAndModify. The stripe lock is held across the Mongo call, so
+     * callers queued behind the winner find the slot in the known-booked cache and fail without touching Mongo.
+     */
+    public Optional<Schedule> claim(String scheduleId, String visitId) {
+        ReentrantLock lock = lockFor(scheduleId);
+        lock.lock();
+        try {
+            if(isKnownBooked(scheduleId)) return Optional.empty();
+
+            AggregationUpdate update = AggregationUpdate.update()
+                    .set("visitId").toValue(ConditionalOperators.when(ComparisonOperators.valueOf("booked").equalToValue(true))
+                            .thenValueOf("visitId").otherwise(visitId))
+                    .set("booked").toValue(true);
+            Schedule previous = mongoTemplate.findAndModify(new Query(Criteria.where("_id").is(scheduleId)), update,
+                    Schedule.class);
+            if(previous == null) return Optional.empty();
+            rememberBooked(scheduleId);
+            if(previous.isBooked()) return Optional.empty();
+
+            previous.setBooked(true);
+            previous.setVisitId(visitId);
+            availabilityService.markBooked(previous);
+            return Optional.of(previous);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean release(String scheduleId, String visitId) {
+        Query query = new Query(Criteria.where("_id").is(scheduleId).and("visitId").is(visitId));
+        Update update = new Update().set("booked", false).set("visitId", null);
+        ReentrantLock lock = lockFor(scheduleId);
+        lock.lock();
+        try {
+            Schedule released = mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().returnNew(true), Schedule.class);
+            knownBooked.remove(scheduleId);
+            if(released == null) return false;
+            availabilityService.markFree(released);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean rescheduleIfFree(String scheduleId, LocalDateTime startHour, LocalDateTime endHour) {
+        Query query = new Query(Criteria.where("_id").is(scheduleId).and("booked").is(false));
+        Update update = new Update().set("startHour", startHour).set("endHour", endHour);
+        ReentrantLock lock = lockFor(scheduleId);
+        lock.lock();
+        try {
+            Schedule previous = mongoTemplate.findAndModify(query, update, Schedule.class);
+            if(previous == null) return false;
+            availabilityService.moveSchedule(previous, startHour);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean deleteIfFree(String scheduleId) {
+        Query query = new Query(Criteria.where("_id").is(scheduleId).and("booked").is(false));
+        ReentrantLock lock = lockFor(scheduleId);
+        lock.lock();
+        try {
+            Schedule removed = mongoTemplate.findAndRemove(query, Schedule.class);
+            if(removed == null) return false;
+            availabilityService.removeSchedule(removed);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelay = 60000, initialDelay = 60000)
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        knownBooked.values().removeIf(expiry -> expiry < now);
+    }
+
+    private void rememberBooked(String scheduleId) {
+        if(knownBooked.size() >= knownBookedMax) {
+            evictExpired();
+            if(knownBooked.size() >= knownBookedMax) return;
+        }
+        knownBooked.put(scheduleId, System.currentTimeMillis() + knownBookedTtlMillis);
+    }
+
+    private ReentrantLock lockFor(String scheduleId) {
+        return locks[Math.floorMod(scheduleId.hashCode(), LOCK_STRIPES)];
+    }
+}
@@ -0,0 +1,63 @@
+package com.adam.medipathbackend.services;
+
+import com.adam.medipathbackend.models.ScheduleSummary;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+public final class ScheduleIntervals {
+
+    private final ScheduleSummary[] intervals;
+
+    private final LocalDateTime[] maxEnd;
+
+    public ScheduleIntervals(Collection<ScheduleSummary> schedules) {
+        intervals = schedules.toArray(ScheduleSummary[]::new);
+        Arrays.sort(intervals, Comparator.comparing(ScheduleSummary::startHour));
+        maxEnd = new LocalDateTime[intervals.length];
+        for(int i = 0; i < intervals.length; i++) {
+            LocalDateTime end = intervals[i].endHour();
+            maxEnd[i] = i > 0 && maxEnd[i - 1].isAfter(end) ? maxEnd[i - 1] : end;
+        }
+    }
+
+    public boolean overlaps(LocalDateTime start, LocalDateTime end, Set<String> omitIds) {
+        for(int i = lastStartingBefore(end); i >= 0 && maxEnd[i].isAfter(start); i--) {
+            if(omitIds.contains(intervals[i].id())) continue;
+            if(intervals[i].endHour().isAfter(start)) return true;
+        }
+        return false;
+    }
+
+    public boolean overlapsAny(List<Interval> batch, Set<String> omitIds) {
+        List<Interval> sorted = batch.stream().sorted(Comparator.comparing(Interval::start)).toList();
+        for(int i = 0; i < sorted.size(); i++) {
+            Interval interval = sorted.get(i);
+            if(i > 0 && sorted.get(i - 1).end().isAfter(interval.start())) return true;
+            if(overlaps(interval.start(), interval.end(), omitIds)) return true;
+        }
+        return false;
+    }
+
+    private int lastStartingBefore(LocalDateTime time) {
+        int low = 0;
+        int high = intervals.length - 1;
+        int found = -1;
+        while(low <= high) {
+            int middle = (low + high) >>> 1;
+            if(intervals[middle].startHour().isBefore(time)) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return found;
+    }
+
+    public record Interval(LocalDateTime start, LocalDateTime end) {}
+}
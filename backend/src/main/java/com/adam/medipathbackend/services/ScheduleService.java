@@ -5,6 +5,8 @@ import com.adam.medipathbackend.forms.ManySchedulesUpdateForm;
 import com.adam.medipathbackend.models.*;
 import com.adam.medipathbackend.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
@@ -20,6 +22,12 @@ public class ScheduleService {
     InstitutionRepository institutionRepository;
     @Autowired
     AuthorizationService authorizationService;
+    @Autowired
+    ScheduleBookingService scheduleBookingService;
+    @Autowired
+    AvailabilityService availabilityService;
+    @Value("${medipath.reaper.schedules.batch-size:500}")
+    int pruneBatchSize;
 
      
     public Schedule addSchedule(AddScheduleForm schedule, String loggedUserID) throws IllegalArgumentException, IllegalAccessException, IllegalStateException {
@@ -37,12 +45,16 @@ public class ScheduleService {
         Optional<Institution> optInst = institutionRepository.findActiveById(schedule.getInstitutionID());
 
         if (optInst.isEmpty()) throw new IllegalArgumentException("Institution not found");
-        if (isScheduleOverlapping(schedule.getStartHour(), schedule.getEndHour(), schedule.getDoctorID(), null)) throw new IllegalStateException("Doctor is booked at this hour");
+        if (loadIntervals(schedule.getDoctorID(), schedule.getStartHour(), schedule.getEndHour())
+                .overlaps(schedule.getStartHour(), schedule.getEndHour(), Set.of()))
+            throw new IllegalStateException("Doctor is booked at this hour");
 
         User doctor = optUser.get();
         Schedule newSchedule = new Schedule(schedule.getStartHour(), schedule.getEndHour(), new DoctorDigest(schedule.getDoctorID(), doctor.getName(), doctor.getSurname(), doctor.getSpecialisations()), new InstitutionDigest(schedule.getInstitutionID(), optInst.get().getName()));
 
-        return scheduleRepository.save(newSchedule);
+        Schedule saved = scheduleRepository.save(newSchedule);
+        availabilityService.addSchedule(saved);
+        return saved;
     }
 
      
@@ -66,9 +78,6 @@ public class ScheduleService {
         ArrayList<Schedule> newSchedules = new ArrayList<>();
 
         User doctor = optUser.get();
-        if (isScheduleOverlapping(schedule.getStartHour(), schedule.getEndHour(), schedule.getDoctorID(), null))
-            throw new IllegalStateException("Doctor is booked in this time frame");
-
         while (start.plusSeconds(schedule.getInterval().toSecondOfDay()).isBefore(schedule.getEndHour()) || start.plusSeconds(schedule.getInterval().toSecondOfDay()).isEqual(schedule.getEndHour())) {
             newSchedules.add(new Schedule(start, start.plusSeconds(schedule.getInterval().toSecondOfDay()),
             new DoctorDigest(schedule.getDoctorID(), doctor.getName(), doctor.getSurname(), doctor.getSpecialisations()),
@@ -76,7 +85,11 @@ public class ScheduleService {
             start = start.plusSeconds(schedule.getInterval().toSecondOfDay());
         }
 
-        scheduleRepository.saveAll(newSchedules);
+        if (loadIntervals(schedule.getDoctorID(), schedule.getStartHour(), schedule.getEndHour())
+                .overlapsAny(toIntervals(newSchedules), Set.of()))
+            throw new IllegalStateException("Doctor is booked in this time frame");
+
+        availabilityService.addSchedules(scheduleRepository.saveAll(newSchedules));
     }
 
      
@@ -100,30 +113,33 @@ public class ScheduleService {
         for (Schedule schedule : schedulesToReset) {
             if (!schedule.getInstitution().getInstitutionId().equals(newSchedule.getInstitutionID()))
                 throw new IllegalArgumentException("Schedule overlaps with another institution's schedule");
-        }
-
-        if (isNotInsideOrEqual(newSchedule.getNewStartHour(), newSchedule.getNewEndHour(), newSchedule.getStartHour(), newSchedule.getEndHour())) {
-            if (newSchedule.getNewStartHour().isBefore(newSchedule.getStartHour())) {
-                if (isScheduleOverlapping(newSchedule.getNewStartHour(), newSchedule.getStartHour(), newSchedule.getDoctorID(), ""))
-                    throw new IllegalStateException("Schedule overlaps on start");
-            }
-            if (newSchedule.getNewEndHour().isAfter(newSchedule.getEndHour())) {
-                if (isScheduleOverlapping(newSchedule.getEndHour(), newSchedule.getNewEndHour(), newSchedule.getDoctorID(), ""))
-                    throw new IllegalStateException("Schedule overlaps on end");
-            }
+            if (schedule.isBooked()) throw new IllegalStateException("Schedule in this time frame is already booked");
         }
 
         LocalDateTime start = newSchedule.getNewStartHour();
         ArrayList<Schedule> newSchedules = new ArrayList<>();
         User doctor = optUser.get();
 
-        scheduleRepository.deleteAll(schedulesToReset);
         while (start.plusSeconds(newSchedule.getNewInterval().toSecondOfDay()).isBefore(newSchedule.getNewEndHour()) || start.plusSeconds(newSchedule.getNewInterval().toSecondOfDay()).isEqual(newSchedule.getNewEndHour())) {
             newSchedules.add(new Schedule(start, start.plusSeconds(newSchedule.getNewInterval().toSecondOfDay()), new DoctorDigest(newSchedule.getDoctorID(), doctor.getName(), doctor.getSurname(), doctor.getSpecialisations()), new InstitutionDigest(newSchedule.getInstitutionID(), optInst.get().getName())));
             start = start.plusSeconds(newSchedule.getNewInterval().toSecondOfDay());
         }
 
-        scheduleRepository.saveAll(newSchedules);
+        Set<String> resetIds = new HashSet<>();
+        for (Schedule schedule : schedulesToReset) resetIds.add(schedule.getId());
+        if (loadIntervals(newSchedule.getDoctorID(), newSchedule.getNewStartHour(), newSchedule.getNewEndHour())
+                .overlapsAny(toIntervals(newSchedules), resetIds))
+            throw new IllegalStateException("Schedule overlaps with another schedule");
+
+        ArrayList<Schedule> removed = new ArrayList<>();
+        for (Schedule schedule : schedulesToReset) {
+            if (!scheduleBookingService.deleteIfFree(schedule.getId())) {
+                availabilityService.addSchedules(scheduleRepository.saveAll(removed));
+                throw new IllegalStateException("Schedule in this time frame is already booked");
+            }
+            removed.add(schedule);
+        }
+        availabilityService.addSchedules(scheduleRepository.saveAll(newSchedules));
     }
 
      
@@ -141,12 +157,12 @@ public class ScheduleService {
         if (!missingFields.isEmpty()) throw new IllegalArgumentException("Missing fields: " + missingFields);
 
         if (schedule.isBooked()) throw new IllegalArgumentException("Schedule is already booked");
-        if (isScheduleOverlapping(newSchedule.getStartHour(), newSchedule.getEndHour(), schedule.getDoctor().getUserId(), schedule.getId()))
+        if (loadIntervals(schedule.getDoctor().getUserId(), newSchedule.getStartHour(), newSchedule.getEndHour())
+                .overlaps(newSchedule.getStartHour(), newSchedule.getEndHour(), Set.of(schedule.getId())))
             throw new IllegalStateException("Doctor is booked at this hour");
 
-        schedule.setStartHour(newSchedule.getStartHour());
-        schedule.setEndHour(newSchedule.getEndHour());
-        scheduleRepository.save(schedule);
+        if (!scheduleBookingService.rescheduleIfFree(schedule.getId(), newSchedule.getStartHour(), newSchedule.getEndHour()))
+            throw new IllegalArgumentException("Schedule is already booked");
     }
 
      
@@ -157,9 +173,8 @@ public class ScheduleService {
 
         Schedule schedule = scheduleOpt.get();
         authorizationService.startAuthChain(loggedUserID, schedule.getInstitution().getInstitutionId()).employeeOfInstitution();
-        if (schedule.isBooked()) throw new IllegalArgumentException("Schedule is already booked");
-
-        scheduleRepository.delete(schedule);
+        if (schedule.isBooked() || !scheduleBookingService.deleteIfFree(schedule.getId()))
+            throw new IllegalArgumentException("Schedule is already booked");
     }
 
     private static ArrayList<String> getMissingFields(AddScheduleForm schedule) {
@@ -203,35 +218,38 @@ public class ScheduleService {
         return missingFields;
     }
 
-    private boolean isNotInsideOrEqual(LocalDateTime insideStart, LocalDateTime insideEnd, LocalDateTime outsideStart, LocalDateTime outsideEnd) {
-        return !insideStart.isBefore(outsideStart) && !insideEnd.isAfter(outsideEnd);
+    private ScheduleIntervals loadIntervals(String doctorId, LocalDateTime from, LocalDateTime to) {
+        return new ScheduleIntervals(scheduleRepository.getScheduleWindow(doctorId, from, to));
     }
 
-    private boolean isScheduleOverlapping(LocalDateTime start, LocalDateTime end, String userId, String omitID) {
-        ArrayList<Schedule> schedules = scheduleRepository.getSchedulesByDoctor(userId);
-
-        for (Schedule schedule : schedules) {
-            if (schedule.getId().equals(omitID)) continue;
-            if (!schedule.getStartHour().toLocalDate().isEqual(start.toLocalDate())) continue;
-
-            boolean startOrEndSame = schedule.getStartHour().isEqual(start) || schedule.getEndHour().isEqual(end);
-            boolean startBetween = start.isAfter(schedule.getStartHour()) && start.isBefore(schedule.getEndHour());
-            boolean endBetween = end.isBefore(schedule.getEndHour()) && end.isAfter(schedule.getStartHour());
-            boolean completeOverlap = start.isBefore(schedule.getStartHour()) && end.isAfter(schedule.getEndHour());
-
-            if (startOrEndSame || startBetween || endBetween || completeOverlap) return true;
-        }
-
-        return false;
+    private static List<ScheduleIntervals.Interval> toIntervals(List<Schedule> schedules) {
+        return schedules.stream()
+                .map(schedule -> new ScheduleIntervals.Interval(schedule.getStartHour(), schedule.getEndHour()))
+                .toList();
     }
 
     public void deleteUpcomingSchedulesForDoctor(String doctorid) {
         scheduleRepository.deleteAllFutureSchedulesForDoctor(doctorid);
+        availabilityService.removeDoctor(doctorid);
     }
 
 
-    @Scheduled(cron = "@daily")
     public void pruneOldSchedules() {
-        scheduleRepository.deleteOldSchedules(LocalDateTime.now());
+        LocalDateTime cutoff = LocalDateTime.now();
+        while(pruneOldSchedulesBatch(cutoff) == pruneBatchSize);
+    }
+
+    @Scheduled(fixedDelayString = "${medipath.reaper.schedules.interval:10000}", initialDelay = 60000)
+    public void reapOldSchedules() {
+        pruneOldSchedulesBatch(LocalDateTime.now());
+    }
+
+    private int pruneOldSchedulesBatch(LocalDateTime cutoff) {
+        List<String> ids = scheduleRepository.findOldSchedules(cutoff, PageRequest.of(0, pruneBatchSize)).stream()
+                .map(Schedule::getId).toList();
+        if(!ids.isEmpty()) {
+            scheduleRepository.deleteOldSchedules(ids, cutoff);
+        }
+        return ids.size();
     }
 }
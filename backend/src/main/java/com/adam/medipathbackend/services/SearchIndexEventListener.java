@@ -0,0 +1,51 @@
+package com.adam.medipathbackend.services;
+
+import com.adam.medipathbackend.models.City;
+import com.adam.medipathbackend.models.Institution;
+import com.adam.medipathbackend.models.Specialisation;
+import com.adam.medipathbackend.models.User;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+@Component
+public class SearchIndexEventListener extends AbstractMongoEventListener<Object> {
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Object> event) {
+        Object source = event.getSource();
+        if(source instanceof Institution institution) {
+            searchIndexService.indexInstitution(institution);
+        } else if(source instanceof User user) {
+            searchIndexService.indexUser(user);
+        } else if(source instanceof City city) {
+            searchIndexService.indexCity(city);
+        } else if(source instanceof Specialisation specialisation) {
+            searchIndexService.indexSpecialisation(specialisation);
+        }
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Object> event) {
+        Document query = event.getDocument();
+        Class<Object> type = event.getType();
+        if(query == null || type == null || query.get("_id") == null) return;
+        String id = query.get("_id").toString();
+
+        if(Institution.class.equals(type)) {
+            searchIndexService.removeInstitution(id);
+        } else if(User.class.equals(type)) {
+            searchIndexService.removeUser(id);
+        } else if(City.class.equals(type)) {
+            searchIndexService.removeCity(id);
+        } else if(Specialisation.class.equals(type)) {
+            searchIndexService.removeSpecialisation(id);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.adam.medipathbackend.services;
+
+import com.adam.medipathbackend.config.Utils;
+import com.adam.medipathbackend.models.City;
+import com.adam.medipathbackend.models.Institution;
+import com.adam.medipathbackend.models.Specialisation;
+import com.adam.medipathbackend.models.User;
+import com.adam.medipathbackend.repository.CityRepository;
+import com.adam.medipathbackend.repository.InstitutionRepository;
+import com.adam.medipathbackend.repository.SpecialisationRepository;
+import com.adam.medipathbackend.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class SearchIndexService {
+
+    @Autowired
+    private InstitutionRepository institutionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CityRepository cityRepository;
+
+    @Autowired
+    private SpecialisationRepository specialisationRepository;
+
+    private final TextSearchIndex institutions = new TextSearchIndex();
+
+    private final TextSearchIndex doctors = new TextSearchIndex();
+
+    private final TextSearchIndex cities = new TextSearchIndex();
+
+    private final TextSearchIndex specialisations = new TextSearchIndex();
+
+    private final Map<String, InstitutionFacets> institutionFacets = new ConcurrentHashMap<>();
+
+    public void rebuild() {
+        institutions.clear();
+        institutionFacets.clear();
+        doctors.clear();
+        cities.clear();
+        specialisations.clear();
+
+        institutionRepository.findAll().forEach(this::indexInstitution);
+        userRepository.findAll().forEach(this::indexUser);
+        cityRepository.findAll().forEach(this::indexCity);
+        specialisationRepository.findAll().forEach(this::indexSpecialisation);
+    }
+
+    public void indexInstitution(Institution institution) {
+        if(institution.getId() == null) return;
+        if(!institution.isActive()) {
+            removeInstitution(institution.getId());
+            return;
+        }
+        institutionFacets.put(institution.getId(), new InstitutionFacets(
+                Utils.normalize(institution.getAddress().getCity()),
+                Utils.normalize(institution.getAddress().getProvince()),
+                institution.getTypes() == null ? Set.of() : new HashSet<>(institution.getTypes())));
+        institutions.put(institution.getId(), institution.getName(), institution.getName());
+    }
+
+    public void removeInstitution(String id) {
+        institutions.remove(id);
+        institutionFacets.remove(id);
+    }
+
+    public void indexUser(User user) {
+        if(user.getId() == null) return;
+        if(!user.isActive() || (user.getRoleCode() & 2) == 0) {
+            doctors.remove(user.getId());
+            return;
+        }
+        String fullName = user.getName() + " " + user.getSurname();
+        doctors.put(user.getId(), fullName, fullName, user.getSurname() + " " + user.getName());
+    }
+
+    public void removeUser(String id) {
+        doctors.remove(id);
+    }
+
+    public void indexCity(City city) {
+        if(city.getId() == null) return;
+        cities.put(city.getId(), city.getName(), city.getName());
+    }
+
+    public void removeCity(String id) {
+        cities.remove(id);
+    }
+
+    public void indexSpecialisation(Specialisation specialisation) {
+        if(specialisation.getId() == null) return;
+        specialisations.put(specialisation.getId(), specialisation.getName(), specialisation.getName());
+    }
+
+    public void removeSpecialisation(String id) {
+        specialisations.remove(id);
+    }
+
+    public List<String> searchInstitutionIds(String query, String location, String[] types) {
+        String[] locationParts = (isWildcard(location) ? "" : Utils.normalize(location)).split(",", 2);
+        String locationKey = locationParts[0].trim();
+        String provinceKey = locationParts.length > 1 ? locationParts[1].trim() : "";
+        Set<String> wantedTypes = types == null ? Set.of() : new HashSet<>(Arrays.asList(types));
+
+        return institutions.search(isWildcard(query) ? "" : query, 0).stream()
+                .filter(id -> {
+                    InstitutionFacets facets = institutionFacets.get(id);
+                    if(facets == null) return false;
+                    if(!locationKey.isEmpty() && !facets.city().startsWith(locationKey)
+                            && !facets.province().startsWith(locationKey)) return false;
+                    if(!facets.province().startsWith(provinceKey)) return false;
+                    return wantedTypes.isEmpty() || facets.types().stream().anyMatch(wantedTypes::contains);
+                })
+                .toList();
+    }
+
+    public List<String> searchCityIds(String query) {
+        return cities.search(query, 0);
+    }
+
+    public Map<String, Object> autocomplete(String query, int limit) {
+        return Map.of(
+                "institutions", suggestions(institutions, query, limit),
+                "doctors", suggestions(doctors, query, limit),
+                "cities", suggestions(cities, query, limit),
+                "specialisations", suggestions(specialisations, query, limit));
+    }
+
+    private List<Map<String, String>> suggestions(TextSearchIndex index, String query, int limit) {
+        ArrayList<Map<String, String>> result = new ArrayList<>();
+        for(String id: index.search(query, limit)) {
+            String display = index.getDisplay(id);
+            if(display != null) result.add(Map.of("id", id, "name", display));
+        }
+        return result;
+    }
+
+    private boolean isWildcard(String value) {
+        return value == null || value.isBlank() || value.equals(".*");
+    }
+
+    private record InstitutionFacets(String city, String province, Set<String> types) {
+    }
+}
@@ -1,7 +1,9 @@
 package com.adam.medipathbackend.services;
 
 import com.adam.medipathbackend.models.*;
+import com.adam.medipathbackend.repository.CityRepository;
 import com.adam.medipathbackend.repository.InstitutionRepository;
+import com.adam.medipathbackend.repository.RatingStatsRepository;
 import com.adam.medipathbackend.repository.ScheduleRepository;
 import com.adam.medipathbackend.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,6 +13,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
 import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 
 @Service
@@ -25,23 +30,46 @@ public class SearchService {
     @Autowired
     ScheduleRepository scheduleRepository;
 
+    @Autowired
+    DoctorSearchIndexService doctorSearchIndexService;
+
+    @Autowired
+    SearchIndexService searchIndexService;
+
+    @Autowired
+    CityRepository cityRepository;
+
+    @Autowired
+    RatingStatsRepository ratingStatsRepository;
+
+    @Autowired
+    EarliestSlotIndex earliestSlotIndex;
+
     public List<Map<String, Serializable>> searchInstitutions(String[] specialisations,
                                                               String city,
                                                               String query) {
 
-        ArrayList<Institution> institutions;
+        List<String> institutionIds = searchIndexService.searchInstitutionIds(query, city, specialisations);
+        if(institutionIds.isEmpty()) {
+            return List.of();
+        }
 
-        if(specialisations == null || specialisations.length == 0) {
-            institutions = institutionRepository.
-                    findInstitutionByCity(city + ".*", query);
-        } else {
-            institutions = institutionRepository.
-                    findInstitutionByCityAndSpec(city + ".*", query, specialisations);
+        Map<String, Institution> found = new HashMap<>();
+        for(Institution institution: institutionRepository.findAllById(institutionIds)) {
+            found.put(institution.getId(), institution);
         }
-        if(institutions.isEmpty()) {
-            return List.of();
+
+        List<Institution> institutions = new ArrayList<>();
+        for(String id: institutionIds) {
+            Institution institution = found.get(id);
+            if(institution == null || !institution.isActive()) {
+                searchIndexService.removeInstitution(id);
+                continue;
+            }
+            institutions.add(institution);
         }
 
+       Map<String, RatingStats> ratings = ratingStatsRepository.findAll(institutions.stream().map(Institution::getId).toList());
        return institutions.stream().map(institution ->
                Map.of("id", institution.getId(),
                        "name", institution.getName(),
@@ -49,8 +77,8 @@ public class SearchService {
                        "image", institution.getImage(),
                        "address", institution.getAddress().toString(),
                        "isPublic", institution.isPublic(),
-                       "rating", institution.getRating(),
-                       "numOfRatings", institution.getNumOfRatings()))
+                       "rating", ratings.get(institution.getId()).getAverage(),
+                       "numOfRatings", ratings.get(institution.getId()).getCount()))
                .toList();
 
     }
@@ -60,62 +88,66 @@ public class SearchService {
                                                               String city,
                                                               String query) {
 
-        ArrayList<StaffDigest> doctors;
+        List<String> doctorIds = doctorSearchIndexService.findDoctorIds(city, query, specialisations);
 
-        if(specialisations == null || specialisations.length == 0) {
-            doctors = institutionRepository
-                    .findDoctorsByCity(city + ".*", query);
-        } else {
-            doctors = institutionRepository
-                    .findDoctorsByCityAndSpec(city + ".*", query, specialisations);
+        if(doctorIds.isEmpty()) {
+           return List.of();
         }
 
-        if(doctors.isEmpty()) {
-           return List.of();
+        Map<String, User> profiles = new HashMap<>();
+        for(User profile: userRepository.findAllById(doctorIds)) {
+            profiles.put(profile.getId(), profile);
         }
 
-        Set<String> doctorIds = new HashSet<>();
-        for(StaffDigest doc: doctors) {
-            doctorIds.add(doc.getUserId());
+        Set<String> institutionIds = new HashSet<>();
+        for(User profile: profiles.values()) {
+            for(InstitutionDigest digest: profile.getEmployers()) {
+                institutionIds.add(digest.getInstitutionId());
+            }
         }
 
-        return doctorIds.stream().map(doctor -> {
-                    Optional<User> doctorOpt =  userRepository.findById(doctor);
-                    if(doctorOpt.isEmpty()) {
-                        return Map.of();
-                    }
-                    User doctorProfile = doctorOpt.get();
+        Map<String, Institution> institutions = new HashMap<>();
+        for(Institution institution: institutionRepository.findAllById(institutionIds)) {
+            institutions.put(institution.getId(), institution);
+        }
+
+        Map<String, List<Schedule>> schedules = new HashMap<>();
+        for(Schedule schedule: scheduleRepository.getUpcomingSchedulesByDoctors(profiles.keySet(),
+                LocalDate.now().atStartOfDay())) {
+            schedules.computeIfAbsent(schedule.getDoctor().getUserId(), id -> new ArrayList<>()).add(schedule);
+        }
+
+        Map<String, RatingStats> ratings = ratingStatsRepository.findAll(profiles.keySet());
+
+        return doctorIds.stream()
+                .filter(profiles::containsKey)
+                .<Map<?, Object>>map(doctor -> {
+                    User doctorProfile = profiles.get(doctor);
                     return Map.of("id", doctor,
                             "name", doctorProfile.getName(),
                             "surname", doctorProfile.getSurname(),
                             "specialisations", doctorProfile.getSpecialisations(),
-                            "addresses", getAddressesForDoctor(doctor),
-                            "schedules", getSchedulesTruncatedForDoctor(doctor),
+                            "addresses", getAddressesForDoctor(doctorProfile, institutions),
+                            "schedules", getSchedulesTruncated(schedules.getOrDefault(doctor, List.of())),
                             "image", doctorProfile.getPfpimage(),
-                            "rating", doctorProfile.getRating(),
-                            "numOfRatings", doctorProfile.getNumOfRatings());
+                            "rating", ratings.get(doctor).getAverage(),
+                            "numOfRatings", ratings.get(doctor).getCount());
                 }
 
         ).toList();
     }
 
-    private ArrayList<Pair<InstitutionDigest, String>> getAddressesForDoctor(String userId) {
-        Optional<User> userOptional = userRepository.findById(userId);
-        if(userOptional.isEmpty()) {
-            return new ArrayList<>();
-        }
-        User user = userOptional.get();
+    private ArrayList<Pair<InstitutionDigest, String>> getAddressesForDoctor(User user, Map<String, Institution> institutions) {
         ArrayList<Pair<InstitutionDigest ,String>> addresses = new ArrayList<>();
         for(InstitutionDigest digest: user.getEmployers()) {
-            Optional<Institution> institutionOptional = institutionRepository.findById(digest.getInstitutionId());
-            if(institutionOptional.isEmpty()) continue;
-            addresses.add(Pair.of(digest, institutionOptional.get().getAddress().toString()));
+            Institution institution = institutions.get(digest.getInstitutionId());
+            if(institution == null) continue;
+            addresses.add(Pair.of(digest, institution.getAddress().toString()));
         }
         return addresses;
     }
 
-    private Object getSchedulesTruncatedForDoctor(String userid) {
-        ArrayList<Schedule> schedules = scheduleRepository.getUpcomingSchedulesByDoctor(userid);
+    private Object getSchedulesTruncated(List<Schedule> schedules) {
         return schedules.stream().map(schedule ->
                 Map.of("id", schedule.getId(),
                         "startTime", schedule.getStartHour().toString(),
@@ -123,4 +155,40 @@ public class SearchService {
                         "institution", schedule.getInstitution())).toList();
     }
 
+    public List<City> searchCities(String query) {
+        List<String> cityIds = searchIndexService.searchCityIds(query);
+        Map<String, City> found = new HashMap<>();
+        for(City city: cityRepository.findAllById(cityIds)) {
+            found.put(city.getId(), city);
+        }
+
+        List<City> cities = new ArrayList<>();
+        for(String id: cityIds) {
+            City city = found.get(id);
+            if(city == null) {
+                searchIndexService.removeCity(id);
+                continue;
+            }
+            cities.add(city);
+        }
+        return cities;
+    }
+
+    public Map<String, Object> autocomplete(String query, int limit) {
+        return searchIndexService.autocomplete(query, limit);
+    }
+
+    public List<EarliestSlotIndex.Slot> searchEarliestSlots(String specialisation, String city, String after, int limit) {
+        if(specialisation == null || specialisation.isBlank()) {
+            throw new IllegalArgumentException("specialisation is required");
+        }
+        LocalDateTime afterTime;
+        try {
+            afterTime = after == null ? null : LocalDateTime.parse(after);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("invalid date");
+        }
+        return earliestSlotIndex.query(specialisation, city, afterTime, limit);
+    }
+
 }
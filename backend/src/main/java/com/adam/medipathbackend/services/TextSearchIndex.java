@@ -0,0 +1,182 @@
+package com.adam.medipathbackend.services;
+
+import com.adam.medipathbackend.config.Utils;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class TextSearchIndex {
+
+    private static final int EXACT = 0;
+    private static final int PREFIX = 1;
+    private static final int WORD_PREFIX = 2;
+    private static final int SUBSTRING = 3;
+    private static final int NO_MATCH = 4;
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    private final Map<String, Set<String>> postings = new HashMap<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long sequence = 0;
+
+    public void put(String id, String display, String... keys) {
+        ArrayList<String> folded = new ArrayList<>();
+        for(String key: keys) {
+            String normalized = Utils.normalize(key);
+            if(!normalized.isEmpty()) folded.add(normalized);
+        }
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.get(id);
+            long seq = previous == null ? sequence++ : previous.seq;
+            if(previous != null) unlink(previous);
+            Entry entry = new Entry(id, display, folded, seq, gramsOf(folded));
+            entries.put(id, entry);
+            for(String gram: entry.grams) {
+                postings.computeIfAbsent(gram, g -> new HashSet<>()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.remove(id);
+            if(previous != null) unlink(previous);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            postings.clear();
+            sequence = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public String getDisplay(String id) {
+        lock.readLock().lock();
+        try {
+            Entry entry = entries.get(id);
+            return entry == null ? null : entry.display;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<String> search(String query, int limit) {
+        String folded = Utils.normalize(query);
+        lock.readLock().lock();
+        try {
+            Collection<String> candidates = folded.isEmpty() ? entries.keySet() : candidatesFor(folded);
+            ArrayList<Match> matches = new ArrayList<>();
+            for(String id: candidates) {
+                Entry entry = entries.get(id);
+                int rank = folded.isEmpty() ? EXACT : rank(entry, folded);
+                if(rank != NO_MATCH) matches.add(new Match(entry, rank));
+            }
+            matches.sort(Comparator.comparingInt(Match::rank).thenComparingLong(match -> match.entry().seq));
+            return matches.stream()
+                    .limit(limit > 0 ? limit : Long.MAX_VALUE)
+                    .map(match -> match.entry().id)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Collection<String> candidatesFor(String folded) {
+        if(folded.length() < 3) {
+            return postings.getOrDefault("^" + folded, Set.of());
+        }
+        Set<String> smallest = null;
+        List<Set<String>> lists = new ArrayList<>();
+        for(int i = 0; i + 3 <= folded.length(); i++) {
+            Set<String> posting = postings.get(folded.substring(i, i + 3));
+            if(posting == null) return Set.of();
+            lists.add(posting);
+            if(smallest == null || posting.size() < smallest.size()) smallest = posting;
+        }
+        Set<String> result = new HashSet<>(smallest);
+        for(Set<String> posting: lists) {
+            if(posting != smallest) result.retainAll(posting);
+            if(result.isEmpty()) break;
+        }
+        return result;
+    }
+
+    private int rank(Entry entry, String folded) {
+        int best = NO_MATCH;
+        for(String key: entry.keys) {
+            int current;
+            if(key.equals(folded)) current = EXACT;
+            else if(key.startsWith(folded)) current = PREFIX;
+            else if(key.contains(" " + folded)) current = WORD_PREFIX;
+            else if(folded.length() >= 3 && key.contains(folded)) current = SUBSTRING;
+            else current = NO_MATCH;
+            best = Math.min(best, current);
+        }
+        return best;
+    }
+
+    private void unlink(Entry entry) {
+        for(String gram: entry.grams) {
+            Set<String> posting = postings.get(gram);
+            if(posting == null) continue;
+            posting.remove(entry.id);
+            if(posting.isEmpty()) postings.remove(gram);
+        }
+    }
+
+    private static Set<String> gramsOf(List<String> keys) {
+        Set<String> grams = new HashSet<>();
+        for(String key: keys) {
+            for(String word: key.split(" ")) {
+                if(word.isEmpty()) continue;
+                grams.add("^" + word.charAt(0));
+                if(word.length() > 1) grams.add("^" + word.substring(0, 2));
+            }
+            for(int i = 0; i + 3 <= key.length(); i++) {
+                grams.add(key.substring(i, i + 3));
+            }
+        }
+        return grams;
+    }
+
+    private record Match(Entry entry, int rank) {
+    }
+
+    private static class Entry {
+        final String id;
+        final String display;
+        final List<String> keys;
+        final long seq;
+        final Set<String> grams;
+
+        Entry(String id, String display, List<String> keys, long seq, Set<String> grams) {
+            this.id = id;
+            this.display = display;
+            this.keys = keys;
+            this.seq = seq;
+            this.grams = grams;
+        }
+    }
+}
@@ -4,19 +4,16 @@ import com.adam.medipathbackend.forms.*;
 import com.adam.medipathbackend.models.*;
 import com.adam.medipathbackend.repository.*;
 import jakarta.mail.IllegalWriteException;
-import jakarta.mail.MessagingException;
 import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.internet.MimeMessage;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.mail.MailException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import java.io.UnsupportedEncodingException;
 import java.security.SecureRandom;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -45,9 +42,18 @@ public class UserService {
     @Autowired
     UserRepository userRepository;
 
+    @Autowired
+    NotificationRepository notificationRepository;
+
     @Autowired
     CommentRepository commentRepository;
 
+    @Autowired
+    private ActiveEntityCache activeEntityCache;
+
+    @Autowired
+    private RatingStatsRepository ratingStatsRepository;
+
 
     @Autowired
     InstitutionRepository institutionRepository;
@@ -64,7 +70,17 @@ public class UserService {
     @Autowired
     private EmployeeManagementService employeeManagementService;
 
-    private Argon2PasswordEncoder argon2PasswordEncoder = new Argon2PasswordEncoder(16, 32, 1, 60000, 10);
+    @Autowired
+    private EmploymentService employmentService;
+
+    @Autowired
+    private KeysetPager keysetPager;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private FanOutExecutor fanOutExecutor;
 
 
     public Map<String, Object> resetPassword(String address) {
@@ -74,25 +90,12 @@ public class UserService {
 
         Optional<User> userOpt = userRepository.findByEmail(address);
         if (userOpt.isPresent()) {
-            PasswordResetEntry passwordResetEntry = null;
-            try {
+            SecureRandom secureRandom = new SecureRandom();
+            String token = Long.toHexString(secureRandom.nextLong());
 
-                SecureRandom secureRandom = new SecureRandom();
-                String token = Long.toHexString(secureRandom.nextLong());
+            preRepository.save(new PasswordResetEntry(address, token));
 
-                passwordResetEntry = 
-                        preRepository.save(new PasswordResetEntry(address, token));
-                
-                emailService.sendResetMail(userOpt.get(), token);
-
-            } catch (MessagingException | UnsupportedEncodingException e) {
-                if (passwordResetEntry != null) {
-                    preRepository.delete(passwordResetEntry);
-                }
-                throw new IllegalStateException(
-                    "the mail service threw an error: " + e.getMessage()
-                    );
-            }
+            emailService.sendResetMail(userOpt.get(), token);
         }
         return Map.of("message", "password reset mail has been sent, if the account exists");
     }
@@ -138,19 +141,27 @@ public class UserService {
             throw new IllegalArgumentException("Missing user or patient ID");
         }
 
-        Optional<User> doctorStaffOpt = userRepository.findDoctorOrStaffById(loggedUserID);
+        Optional<User> doctorStaffOpt;
+        Optional<User> patientOpt;
+        ArrayList<MedicalHistory> medicalHistory;
+        try (FanOutExecutor.Scope scope = fanOutExecutor.scope()) {
+            var doctorStaffTask = scope.fork(() -> userRepository.findDoctorOrStaffById(loggedUserID));
+            var patientTask = scope.fork(() -> userRepository.findActiveById(patientid));
+            var medicalHistoryTask = scope.fork(() -> mhRepository.getEntriesForPatient(patientid));
+            scope.join();
+            doctorStaffOpt = doctorStaffTask.get();
+            patientOpt = patientTask.get();
+            medicalHistory = medicalHistoryTask.get();
+        }
 
         if (doctorStaffOpt.isEmpty()) {
             throw new IllegalAccessException("User is not doctor or staff");
         }
 
-        boolean isAnyPresent = false;
-        Optional<User> patientOpt = userRepository.findActiveById(patientid);
         User doctor = doctorStaffOpt.get();
-
-        for (InstitutionDigest digest : doctor.getEmployers()) {
-            isAnyPresent |= !visitRepository.getAllVisitsForPatientInInstitution(patientid, digest.getInstitutionId()).isEmpty();
-        }
+        boolean isAnyPresent = patientOpt.isPresent() && fanOutExecutor.map(doctor.getEmployers(),
+                digest -> !visitRepository.getAllVisitsForPatientInInstitution(patientid, digest.getInstitutionId()).isEmpty())
+                .contains(true);
 
         if (patientOpt.isEmpty() || !isAnyPresent) {
             throw new IllegalAccessException("Patient not found or no visits");
@@ -165,7 +176,7 @@ public class UserService {
         result.put("birthDate", patient.getBirthDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
         result.put("phoneNumber", patient.getPhoneNumber());
         result.put("pfp", patient.getPfpimage());
-        result.put("medicalHistory", mhRepository.getEntriesForPatient(patientid));
+        result.put("medicalHistory", medicalHistory);
 
         return result;
     }
@@ -182,6 +193,7 @@ public class UserService {
         }
 
         User user = opt.get();
+        RatingStats ratingStats = ratingStatsRepository.find(id);
         HashMap<String, Object> data = new HashMap<>();
 
         data.put("name", user.getName());
@@ -196,9 +208,9 @@ public class UserService {
         data.put("latestMedicalHistory", user.getLatestMedicalHistory());
         data.put("roleCode", user.getRoleCode());
 
-        data.put("rating", user.getRating());
+        data.put("rating", ratingStats.getAverage());
         data.put("employers", user.getEmployers());
-        data.put("numOfRatings", user.getNumOfRatings());
+        data.put("numOfRatings", ratingStats.getCount());
         data.put("pfpImage", user.getPfpimage());
         data.put("userSettings", user.getUserSettings());
 
@@ -217,7 +229,7 @@ public class UserService {
             throw new IllegalStateException("this email or person is already registered");
         }
 
-        String passwordHash = argon2PasswordEncoder.encode(registrationForm.getPassword());
+        String passwordHash = passwordHashingService.encode(registrationForm.getPassword());
         UserSettings userSettings = new UserSettings("PL",
                 true, true, 1);
 
@@ -259,12 +271,22 @@ public class UserService {
         
         Optional<User> user = userRepository.findByEmail(loginForm.getEmail());
 
-        if(user.isEmpty() || !argon2PasswordEncoder.matches(loginForm.getPassword(),
+        if(user.isEmpty() || !passwordHashingService.matches(loginForm.getPassword(),
                         user.get().getPasswordHash()))
         {
             throw new IllegalAccessException("invalid email or password");
         }
-        return user.get().getId();
+        String userId = user.get().getId();
+        String currentHash = user.get().getPasswordHash();
+        if(passwordHashingService.needsRehash(currentHash)) {
+            passwordHashingService.rehashInBackground(loginForm.getPassword(),
+                    newHash -> {
+                        if(userRepository.replacePasswordHash(userId, currentHash, newHash) > 0) {
+                            activeEntityCache.evict(User.class, userId);
+                        }
+                    });
+        }
+        return userId;
     }
 
     private ArrayList<String> getMissingFields(RegistrationForm registrationForm) {
@@ -365,42 +387,36 @@ public class UserService {
         }
 
         User user = u.get();
-        String passwordHash = argon2PasswordEncoder.encode(resetForm.getPassword());
+        String passwordHash = passwordHashingService.encode(resetForm.getPassword());
 
         user.setPasswordHash(passwordHash);
         userRepository.save(user);
     }
 
-    public void resetMyPassword(String loggedUserID, ResetMyPasswordForm form) throws IllegalWriteException, IllegalAccessException {
+    public void resetMyPassword(String loggedUserID, ResetMyPasswordForm form) throws IllegalAccessException {
         Optional<User> userOpt = userRepository.findActiveById(loggedUserID);
 
-        if(userOpt.isEmpty() || !argon2PasswordEncoder.matches(form.getCurrentPassword(), userOpt.get().getPasswordHash())) {
+        if(userOpt.isEmpty() || !passwordHashingService.matches(form.getCurrentPassword(), userOpt.get().getPasswordHash())) {
             throw new IllegalAccessException("invalid password");
         }
 
-        String passwordHash = argon2PasswordEncoder.encode(form.getNewPassword());
+        String passwordHash = passwordHashingService.encode(form.getNewPassword());
 
         User user = userOpt.get();
         user.setPasswordHash(passwordHash);
-        try {
-
-            emailService.sendResetConfirmationMail(user);
-
-        } catch (MailException | MessagingException | UnsupportedEncodingException e) {
-            throw new IllegalWriteException("the mail service threw an error: " + e.getMessage());
-        }
-
         userRepository.save(user);
 
+        emailService.sendResetConfirmationMail(user);
+
     }
 
-    public List<Visit> getMyVisits(String loggedUserID, String upcoming) {
+    public CursorPage<VisitSummary> getMyVisits(String loggedUserID, String upcoming, String cursor, Integer limit) {
 
-        if(upcoming.isBlank()) {
-            return visitRepository.getAllVisitsForPatient(loggedUserID);
-        } else {
-            return visitRepository.getUpcomingVisits(loggedUserID);
+        Criteria criteria = Criteria.where("patient.userId").is(loggedUserID);
+        if(!upcoming.isBlank()) {
+            criteria = criteria.and("time.startTime").gt(LocalDateTime.now()).and("status").is("Upcoming");
         }
+        return keysetPager.page(Visit.class, VisitSummary.class, criteria, KeysetPager.VISITS_BY_START, cursor, limit);
 
     }
 
@@ -557,39 +573,23 @@ public class UserService {
             return new ArrayList<>();
         }
 
-        User user = userOpt.get();
-
+        ArrayList<Notification> notifications;
         if(filter == null) {
-
-            return user.getNotifications().stream()
-                    .map(notification -> Map.of("title", notification.getTitle(), "content",
-                            notification.getContent(), "timestamp", notification.getTimestamp().toString(), "read",
-                            notification.isRead(), "system", notification.isSystem())
-                    ).toList();
-
+            notifications = notificationRepository.getNotificationsForUser(loggedUserID);
         } else if(filter.equals("received")) {
-
-            return user.getNotifications().stream()
-                    .filter(notification -> notification.getTimestamp().isBefore(LocalDateTime.now()))
-                    .map(notification -> Map.of("title", notification.getTitle(), "content",
-                            notification.getContent(), "timestamp", notification.getTimestamp().toString(), "read",
-                            notification.isRead(), "system", notification.isSystem())
-                    ).toList();
-
+            notifications = notificationRepository.getReceivedNotificationsForUser(loggedUserID, LocalDateTime.now());
         } else if(filter.equals("upcoming")) {
-
-            return user.getNotifications().stream()
-                    .filter(notification -> notification.getTimestamp().isAfter(LocalDateTime.now()))
-                    .map(notification -> Map.of("title", notification.getTitle(), "content",
-                            notification.getContent(), "timestamp", notification.getTimestamp().toString(), "read",
-                            notification.isRead(), "system", notification.isSystem())
-                    ).toList();
-
+            notifications = notificationRepository.getUpcomingNotificationsForUser(loggedUserID, LocalDateTime.now());
         } else {
 
             throw new IllegalArgumentException("invalid filter");
         }
 
+        return notifications.stream()
+                .map(notification -> Map.of("title", notification.getTitle(), "content",
+                        notification.getContent(), "timestamp", notification.getTimestamp().toString(), "read",
+                        notification.isRead(), "system", notification.isSystem())
+                ).toList();
     }
 
 
@@ -606,19 +606,28 @@ public class UserService {
             if(admin.getRoleCode() < 8) {
                 return new ArrayList<>();
             }
-            return institutionRepository.findInstitutionsWhereAdmin(loggedUserID);
+            return getInstitutionsWithOwnEntry(loggedUserID, Employment.ADMIN_ROLE_CODES);
 
         } else if(role.equals("staff")) {
             if(admin.getRoleCode() < 4) {
                 return new ArrayList<>();
             }
-            return institutionRepository.findInstitutionsWhereStaff(loggedUserID);
+            return getInstitutionsWithOwnEntry(loggedUserID, Employment.STAFF_ROLE_CODES);
 
         } else {
             throw new IllegalArgumentException("invalid role");
         }
     }
 
+    private List<Institution> getInstitutionsWithOwnEntry(String userId, List<Integer> roleCodes) {
+        ArrayList<Institution> institutions = employmentService.getInstitutionsOfEmployee(userId, roleCodes);
+        for(Institution institution: institutions) {
+            institution.setEmployees(new ArrayList<>(institution.getEmployees().stream()
+                    .filter(employee -> employee.getUserId().equals(userId)).toList()));
+        }
+        return institutions;
+    }
+
     public void deactivateMe(String loggedUserId) throws IllegalAccessException {
         Optional<User> userOpt = userRepository.findActiveById(loggedUserId);
         if (userOpt.isEmpty()) {
@@ -7,13 +7,12 @@ import com.adam.medipathbackend.repository.InstitutionRepository;
 import com.adam.medipathbackend.repository.ScheduleRepository;
 import com.adam.medipathbackend.repository.UserRepository;
 import com.adam.medipathbackend.repository.VisitRepository;
-import jakarta.mail.MessagingException;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import com.adam.medipathbackend.config.Constants;
 import java.awt.*;
 import java.time.LocalDateTime;
-import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
@@ -32,52 +31,38 @@ public class VisitService {
     @Autowired
     private MedicalHistoryService medicalHistoryService;
 
-    public Schedule validateVisitForm(AddVisitForm visit) {
-
-        if(visit.getScheduleID() == null || visit.getScheduleID().isBlank()) {
-            throw new IllegalArgumentException("scheduleID is required");
-        }
+    @Autowired
+    private NotificationService notificationService;
 
-        Optional<Schedule> schedule = scheduleRepository.findById(visit.getScheduleID());
-        if(schedule.isEmpty() || schedule.get().isBooked()) {
-            throw new IllegalArgumentException("visit time is invalid or booked");
-        }
-        return schedule.get();
-    }
+    @Autowired
+    private ScheduleBookingService scheduleBookingService;
 
-    
     public void addVisit(AddVisitForm visit, User foundUser) {
         if(visit.getPatientRemarks() == null) {
             visit.setPatientRemarks("");
         }
-        Schedule foundSchedule = validateVisitForm(visit);
-        if(foundSchedule.getDoctor().getUserId().equals(foundUser.getId())){
-            throw new IllegalStateException("Doctor and patient is the same person");
-        }
-
-        if(userRepository.findActiveById(foundSchedule.getDoctor().getUserId()).isEmpty()) {
-            throw new IllegalStateException("doctor is inactive");
+        if(visit.getScheduleID() == null || visit.getScheduleID().isBlank()) {
+            throw new IllegalArgumentException("scheduleID is required");
         }
 
-        if(institutionRepository.findActiveById(foundSchedule.getInstitution().getInstitutionId()).isEmpty()) {
-            throw new IllegalStateException("institution is inactive");
-        }
+        String visitId = new ObjectId().toHexString();
+        Schedule foundSchedule = scheduleBookingService.claim(visit.getScheduleID(), visitId)
+                .orElseThrow(() -> new IllegalArgumentException("visit time is invalid or booked"));
 
+        try {
+            validateBooking(foundSchedule, foundUser);
 
-        if(foundSchedule.getStartHour().isBefore(LocalDateTime.now())) {
-            throw new IllegalArgumentException("schedule booked in the past");
+            PatientDigest foundUserDigest = new PatientDigest(foundUser.getId(), foundUser.getName(), foundUser.getSurname(), foundUser.getGovId());
+            VisitTime time = new VisitTime(foundSchedule.getId(), foundSchedule.getStartHour(), foundSchedule.getEndHour());
+            Visit newVisit = new Visit(foundUserDigest, foundSchedule.getDoctor(), time,foundSchedule.getInstitution(), visit.getPatientRemarks());
+            newVisit.setId(visitId);
+            newVisit.setCodes(new ArrayList<>());
+            visitRepository.insert(newVisit);
+        } catch (RuntimeException e) {
+            scheduleBookingService.release(foundSchedule.getId(), visitId);
+            throw e;
         }
 
-
-
-        PatientDigest foundUserDigest = new PatientDigest(foundUser.getId(), foundUser.getName(), foundUser.getSurname(), foundUser.getGovId());
-        VisitTime time = new VisitTime(foundSchedule.getId(), foundSchedule.getStartHour(), foundSchedule.getEndHour());
-        Visit newVisit = new Visit(foundUserDigest, foundSchedule.getDoctor(), time,foundSchedule.getInstitution(), visit.getPatientRemarks());
-
-
-        ArrayList<Code> codes = new ArrayList<>();
-        newVisit.setCodes(codes);
-
         if(foundUser.getUserSettings().isSystemNotifications()) {
             String content, title;
 
@@ -99,14 +84,26 @@ public class VisitService {
                     foundSchedule.getStartHour().minusDays(1).withHour(12).withMinute(0),
                     true, false);
 
-            foundUser.addNotification(notification);
-            userRepository.save(foundUser);
+            notificationService.scheduleNotification(foundUser.getId(), notification);
+        }
+    }
+
+    private void validateBooking(Schedule foundSchedule, User foundUser) {
+        if(foundSchedule.getDoctor().getUserId().equals(foundUser.getId())){
+            throw new IllegalStateException("Doctor and patient is the same person");
+        }
+
+        if(userRepository.findActiveById(foundSchedule.getDoctor().getUserId()).isEmpty()) {
+            throw new IllegalStateException("doctor is inactive");
         }
 
-        String savedVisitId = visitRepository.save(newVisit).getId();
-        foundSchedule.setBooked(true);
-        foundSchedule.setVisitId(savedVisitId);
-        scheduleRepository.save(foundSchedule);
+        if(institutionRepository.findActiveById(foundSchedule.getInstitution().getInstitutionId()).isEmpty()) {
+            throw new IllegalStateException("institution is inactive");
+        }
+
+        if(foundSchedule.getStartHour().isBefore(LocalDateTime.now())) {
+            throw new IllegalArgumentException("schedule booked in the past");
+        }
     }
 
 
@@ -137,18 +134,10 @@ public class VisitService {
         visitToCancel.setStatus("Cancelled");
 
         Schedule oldSchedule = scheduleOptional.get();
-        oldSchedule.setBooked(false);
-        oldSchedule.setVisitId(null);
 
         User patient = userOptional.get();
-        int foundIndex = 0;
-        for(int i = 0; i < patient.getNotifications().size(); i++) {
-
-            Notification notification = patient.getNotifications().get(i);
-            if(notification.getTimestamp().isEqual(oldSchedule.getStartHour().minusDays(1).withHour(12).withMinute(0)) && notification.isSystem()) {
-                foundIndex = i;
-            }
-        }
+        notificationService.removeSystemNotification(patient.getId(),
+                oldSchedule.getStartHour().minusDays(1).withHour(12).withMinute(0));
         if(patient.getUserSettings().isSystemNotifications()) {
             Notification cancellationNotification;
 
@@ -168,20 +157,13 @@ public class VisitService {
                         java.time.LocalDateTime.now().plusMinutes(5), true, false);
             }
 
-            patient.addNotification(cancellationNotification);
+            notificationService.scheduleNotification(patient.getId(), cancellationNotification);
         }
 
-        patient.removeNotification(patient.getNotifications().get(foundIndex));
-
-        userRepository.save(patient);
-        scheduleRepository.save(oldSchedule);
         visitRepository.save(visitToCancel);
+        scheduleBookingService.release(oldSchedule.getId(), visitToCancel.getId());
 
-        try {
-            emailService.sendVisitCancelMail(patient, visitToCancel);
-        } catch (MessagingException | UnsupportedEncodingException e) {
-            throw new IllegalStateException("the mail service threw an error: " + e.getMessage());
-        }
+        emailService.sendVisitCancelMail(patient, visitToCancel);
 
     }
 
@@ -212,48 +194,48 @@ public class VisitService {
             throw new IllegalArgumentException("this visit is already cancelled");
         }
 
-        Optional<Schedule> newScheduleOptional = scheduleRepository.findById(newScheduleId);
-        if(newScheduleOptional.isEmpty() || newScheduleOptional.get().isBooked()) {
-            throw new IllegalArgumentException("invalid new schedule id or schedule is booked");
-        }
-
-        Schedule newSchedule = newScheduleOptional.get();
         Optional<Schedule> scheduleOptional = scheduleRepository.findById(visitToReschedule.getTime().getScheduleId());
         if(scheduleOptional.isEmpty()) {
             throw new IllegalComponentStateException();
         }
 
-        if(userRepository.findActiveById(newSchedule.getDoctor().getUserId()).isEmpty()) {
-            throw new IllegalStateException("new schedule doctor is inactive");
-        }
-
-        if(institutionRepository.findActiveById(newSchedule.getInstitution().getInstitutionId()).isEmpty()) {
-            throw new IllegalStateException("new schedule institution is inactive");
-        }
-
-
-        if(newSchedule.getStartHour().isBefore(LocalDateTime.now())) {
-            throw new IllegalArgumentException("new schedule booked in the past");
-        }
-
         Optional<User> userOptional = userRepository.findActiveById(visitToReschedule.getPatient().getUserId());
         if(userOptional.isEmpty()) {
             throw new IllegalComponentStateException();
         }
 
+        Schedule newSchedule = scheduleBookingService.claim(newScheduleId, visitToReschedule.getId())
+                .orElseThrow(() -> new IllegalArgumentException("invalid new schedule id or schedule is booked"));
+
         Schedule oldSchedule = scheduleOptional.get();
         User patient = userOptional.get();
-        if(patient.getUserSettings().isSystemNotifications()) {
+        try {
+            if(userRepository.findActiveById(newSchedule.getDoctor().getUserId()).isEmpty()) {
+                throw new IllegalStateException("new schedule doctor is inactive");
+            }
 
-            int foundIndex = 0;
-            for(int i = 0; i < patient.getNotifications().size(); i++) {
-                Notification notification = patient.getNotifications().get(i);
-                if(notification.getTimestamp().isEqual(oldSchedule.getStartHour().minusDays(1).withHour(12).withMinute(0)) && notification.isSystem()) {
-                    foundIndex = i;
-                }
+            if(institutionRepository.findActiveById(newSchedule.getInstitution().getInstitutionId()).isEmpty()) {
+                throw new IllegalStateException("new schedule institution is inactive");
+            }
+
+            if(newSchedule.getStartHour().isBefore(LocalDateTime.now())) {
+                throw new IllegalArgumentException("new schedule booked in the past");
             }
 
-            patient.removeNotification(patient.getNotifications().get(foundIndex));
+            visitToReschedule.setTime(new VisitTime(newSchedule.getId(), newSchedule.getStartHour(), newSchedule.getEndHour()));
+            visitToReschedule.setDoctor(newSchedule.getDoctor());
+            visitToReschedule.setInstitution(newSchedule.getInstitution());
+            visitRepository.save(visitToReschedule);
+        } catch (RuntimeException e) {
+            scheduleBookingService.release(newSchedule.getId(), visitToReschedule.getId());
+            throw e;
+        }
+        scheduleBookingService.release(oldSchedule.getId(), visitToReschedule.getId());
+
+        if(patient.getUserSettings().isSystemNotifications()) {
+
+            notificationService.removeSystemNotification(patient.getId(),
+                    oldSchedule.getStartHour().minusDays(1).withHour(12).withMinute(0));
             String content, title;
 
             if(patient.getUserSettings().getLanguage().equals("PL")) {
@@ -274,30 +256,10 @@ public class VisitService {
 
             Notification notification = new Notification(title,  content,
                     newSchedule.getStartHour().minusDays(1).withHour(12).withMinute(0), true, false);
-            patient.addNotification(notification);
+            notificationService.scheduleNotification(patient.getId(), notification);
         }
 
-        oldSchedule.setBooked(false);
-        newSchedule.setBooked(true);
-
-        oldSchedule.setVisitId(null);
-        newSchedule.setVisitId(visitToReschedule.getId());
-
-        visitToReschedule.setTime(new VisitTime(newSchedule.getId(), newSchedule.getStartHour(), newSchedule.getEndHour()));
-        visitToReschedule.setDoctor(newSchedule.getDoctor());
-        visitToReschedule.setInstitution(newSchedule.getInstitution());
-
-        scheduleRepository.save(oldSchedule);
-        scheduleRepository.save(newSchedule);
-
-        userRepository.save(patient);
-        visitRepository.save(visitToReschedule);
-
-        try {
-            emailService.sendVisitRescheduleMail(patient, oldSchedule, newSchedule);
-        } catch (MessagingException | UnsupportedEncodingException e) {
-            throw new IllegalStateException("the mail service threw an error: " + e.getMessage());
-        }
+        emailService.sendVisitRescheduleMail(patient, oldSchedule, newSchedule);
     }
 
 
@@ -355,8 +317,15 @@ public class VisitService {
         String institutionId = visit.getInstitution().getInstitutionId();
         String doctorId = visit.getDoctor().getUserId();
 
-        Optional<User> doctorOpt = userRepository.findDoctorById(doctorId);
-        Optional<Institution> institutionOpt = institutionRepository.findActiveById(institutionId);
+        Optional<User> doctorOpt;
+        Optional<Institution> institutionOpt;
+        try(FanOutExecutor.Scope scope = fanOutExecutor.scope()) {
+            var doctorTask = scope.fork(() -> userRepository.findDoctorById(doctorId));
+            var institutionTask = scope.fork(() -> institutionRepository.findActiveById(institutionId));
+            scope.join();
+            doctorOpt = doctorTask.get();
+            institutionOpt = institutionTask.get();
+        }
 
         if(doctorOpt.isEmpty()) {
             throw new IllegalComponentStateException("doctor id corrupted");
@@ -437,8 +406,7 @@ public class VisitService {
 
                 Notification notification = new Notification(title, content,
                         LocalDateTime.now().plusMinutes(5), true, false);
-                patient.addNotification(notification);
-                userRepository.save(patient);
+                notificationService.scheduleNotification(patient.getId(), notification);
             }
         }
 
@@ -458,4 +426,6 @@ public class VisitService {
     private UserRepository userRepository;
     @Autowired
     private InstitutionRepository institutionRepository;
+    @Autowired
+    private FanOutExecutor fanOutExecutor;
 }
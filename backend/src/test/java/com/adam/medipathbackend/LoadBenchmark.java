@@ -0,0 +1,132 @@
+package com.adam.medipathbackend;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load generator for comparing the platform and virtual thread modes on the same dataset.
+ * Start the backend once with {@code spring.threads.virtual.enabled=false} and once with {@code true},
+ * then run this class against each with identical arguments:
+ * {@code baseUrl concurrency seconds path [path...]}. Set {@code -Demail} and {@code -Dpassword}
+ * to log in before the run so authenticated endpoints can be included.
+ */
+public class LoadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if(args.length < 4) {
+            System.err.println("usage: LoadBenchmark <baseUrl> <concurrency> <seconds> <path> [path...]");
+            System.exit(1);
+        }
+        String baseUrl = args[0];
+        int concurrency = Integer.parseInt(args[1]);
+        Duration duration = Duration.ofSeconds(Long.parseLong(args[2]));
+        List<String> paths = Arrays.asList(args).subList(3, args.length);
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        String cookie = login(client, baseUrl);
+
+        warmUp(client, baseUrl, paths, cookie);
+
+        AtomicLong errors = new AtomicLong();
+        List<Samples> latencies = new ArrayList<>();
+        long deadline = System.nanoTime() + duration.toNanos();
+        long started = System.nanoTime();
+        try(ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for(int worker = 0; worker < concurrency; worker++) {
+                Samples samples = new Samples();
+                latencies.add(samples);
+                int offset = worker;
+                workers.submit(() -> {
+                    int next = offset;
+                    while(System.nanoTime() < deadline) {
+                        HttpRequest request = request(baseUrl + paths.get(next++ % paths.size()), cookie);
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if(response.statusCode() >= 500) errors.incrementAndGet();
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        samples.add(System.nanoTime() - start);
+                    }
+                    return null;
+                });
+            }
+        }
+        double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+
+        int total = latencies.stream().mapToInt(Samples::size).sum();
+        long[] all = new long[total];
+        int position = 0;
+        for(Samples samples: latencies) {
+            System.arraycopy(samples.values, 0, all, position, samples.size);
+            position += samples.size;
+        }
+        Arrays.sort(all);
+
+        System.out.printf("requests: %d, errors: %d, throughput: %.1f req/s%n", total, errors.get(), total / elapsedSeconds);
+        System.out.printf("latency ms p50: %.2f, p90: %.2f, p99: %.2f, max: %.2f%n",
+                percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99), percentile(all, 1.0));
+        System.exit(0);
+    }
+
+    private static String login(HttpClient client, String baseUrl) throws Exception {
+        String email = System.getProperty("email");
+        String password = System.getProperty("password");
+        if(email == null || password == null) return null;
+
+        String body = "{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}";
+        HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/users/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.discarding());
+        if(response.statusCode() != 200) throw new IllegalStateException("login failed: " + response.statusCode());
+        return response.headers().firstValue("Set-Cookie").map(value -> value.split(";", 2)[0]).orElse(null);
+    }
+
+    private static void warmUp(HttpClient client, String baseUrl, List<String> paths, String cookie) throws Exception {
+        for(int i = 0; i < 200; i++) {
+            client.send(request(baseUrl + paths.get(i % paths.size()), cookie), HttpResponse.BodyHandlers.discarding());
+        }
+    }
+
+    private static HttpRequest request(String url, String cookie) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(30)).GET();
+        if(cookie != null) builder.header("Cookie", cookie);
+        return builder.build();
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if(sorted.length == 0) return 0;
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    private static class Samples {
+
+        private long[] values = new long[1024];
+
+        private int size;
+
+        void add(long value) {
+            if(size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
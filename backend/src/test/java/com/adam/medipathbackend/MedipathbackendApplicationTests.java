@@ -1,17 +1,28 @@
 package com.adam.medipathbackend;
 
+import com.adam.medipathbackend.config.DataLoader;
+import com.adam.medipathbackend.forms.AddCommentForm;
+import com.adam.medipathbackend.forms.AddEmployeeForm;
+import com.adam.medipathbackend.forms.AddScheduleForm;
+import com.adam.medipathbackend.forms.AddVisitForm;
+import com.adam.medipathbackend.forms.ManySchedulesUpdateForm;
 import com.adam.medipathbackend.models.*;
-import com.adam.medipathbackend.repository.CityRepository;
-import com.adam.medipathbackend.repository.PasswordResetEntryRepository;
-import com.adam.medipathbackend.repository.ScheduleRepository;
-import com.adam.medipathbackend.repository.UserRepository;
+import com.adam.medipathbackend.repository.*;
+import com.adam.medipathbackend.services.CommentService;
+import com.adam.medipathbackend.services.EmployeeManagementService;
+import com.adam.medipathbackend.services.EmploymentService;
+import com.adam.medipathbackend.services.FanOutExecutor;
+import com.adam.medipathbackend.services.InstitutionQueryService;
 import com.adam.medipathbackend.services.ScheduleService;
+import com.adam.medipathbackend.services.VisitService;
 import com.icegreen.greenmail.configuration.GreenMailConfiguration;
 import com.icegreen.greenmail.junit5.GreenMailExtension;
 
 import com.icegreen.greenmail.util.ServerSetupTest;
 import jakarta.mail.internet.MimeMessage;
+import jakarta.servlet.http.Cookie;
 import org.awaitility.Awaitility;
+import org.bson.Document;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -24,19 +35,34 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 
 
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.MediaType;
 import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.test.context.*;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -64,6 +90,12 @@ class MedipathbackendApplicationTests {
         registry.add("spring.data.mongodb.uri", () -> "mongodb://localhost:27017/test");
     }
 
+    @DynamicPropertySource
+    static void managementProperties(DynamicPropertyRegistry registry) {
+        // Same port as the server, so MockMvc reaches the actuator endpoints.
+        registry.add("management.server.port", () -> "8080");
+    }
+
     @Autowired
     private MockMvc mvc;
 
@@ -85,6 +117,48 @@ class MedipathbackendApplicationTests {
     @Autowired
     private ScheduleService scheduleService;
 
+    @Autowired
+    private VisitService visitService;
+
+    @Autowired
+    private VisitRepository visitRepository;
+
+    @Autowired
+    private InstitutionRepository institutionRepository;
+
+    @Autowired
+    private ActiveEntityCache activeEntityCache;
+
+    @Autowired
+    private EmployeeManagementService employeeManagementService;
+
+    @Autowired
+    private EmploymentService employmentService;
+
+    @Autowired
+    private KeysetPager keysetPager;
+
+    @Autowired
+    private RatingStatsRepository ratingStatsRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private DataLoader dataLoader;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private InstitutionQueryService institutionQueryService;
+
+    @Autowired
+    private FanOutExecutor fanOutExecutor;
+
     private final String EXAMPLE_MAIL = "test@mail.com";
 
     private final String EXAMPLE_TOKEN = "1234567890abcdef";
@@ -96,16 +170,25 @@ class MedipathbackendApplicationTests {
     private final String TEST_PASSWORD = "passwordpassword";
 
     @BeforeEach
-    void setUp() {
+    void setUp() throws Exception {
         mongoTemplate.getCollectionNames().stream()
                 .filter(name -> !name.startsWith("system."))
                 .forEach(name -> mongoTemplate.dropCollection(name));
+        activeEntityCache.clear();
+        greenMail.purgeEmailFromAllMailboxes();
     }
 
     @Test
     void contextLoads() {
     }
 
+    @Test
+    public void givenActuatorExposed_WhenGetCustomMeter_ThenReported() throws Exception {
+        mvc.perform(get("/actuator/metrics/medipath.cache.active.size").param("tag", "entity:User"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("medipath.cache.active.size"));
+    }
+
     @Test
     public void givenCities_whenGetAllCities_ReturnAll() throws Exception {
 
@@ -378,6 +461,7 @@ class MedipathbackendApplicationTests {
                 .andExpect(jsonPath("$.message").value("password reset mail has been sent, if the account exists"));
 
         Awaitility.await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> {
+            assertTrue(greenMail.getReceivedMessages().length > 0);
             MimeMessage receivedMessage = greenMail.getReceivedMessages()[0];
 
             assertEquals(1, receivedMessage.getAllRecipients().length);
@@ -479,4 +563,456 @@ class MedipathbackendApplicationTests {
 
     }
 
+    @Test
+    public void givenFreeSchedule_WhenBookedConcurrently_ThenExactlyOneVisit() throws Exception {
+
+        int threads = 32;
+        Schedule schedule = scheduleRepository.save(createBookableSchedule(LocalDateTime.now().plusDays(1).withNano(0)));
+        List<User> patients = createPatients(threads);
+
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        runConcurrently(threads, patients.size(), i -> {
+            try {
+                visitService.addVisit(new AddVisitForm(schedule.getId(), null, ""), patients.get(i));
+                booked.incrementAndGet();
+            } catch (IllegalArgumentException e) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        assertEquals(1, booked.get());
+        assertEquals(threads - 1, rejected.get());
+        assertEquals(1, visitRepository.count());
+
+        Schedule bookedSchedule = scheduleRepository.findById(schedule.getId()).orElseThrow();
+        assertTrue(bookedSchedule.isBooked());
+        assertEquals(visitRepository.findAll().getFirst().getId(), bookedSchedule.getVisitId());
+    }
+
+    @Test
+    public void givenBookedSchedule_WhenSummariesByDoctor_ThenVisitIdIncluded() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+        Schedule booked = createBookableSchedule(start);
+        scheduleRepository.saveAll(List.of(booked,
+                new Schedule(start.plusMinutes(15), start.plusMinutes(30), booked.getDoctor(), booked.getInstitution())));
+        User patient = createPatients(1).getFirst();
+
+        visitService.addVisit(new AddVisitForm(booked.getId(), null, ""), patient);
+
+        Map<String, ScheduleSummary> summaries = new HashMap<>();
+        scheduleRepository.getScheduleSummariesByDoctor(booked.getDoctor().getUserId())
+                .forEach(summary -> summaries.put(summary.id(), summary));
+        assertEquals(2, summaries.size());
+        assertTrue(summaries.get(booked.getId()).booked());
+        assertEquals(visitRepository.findAll().getFirst().getId(), summaries.get(booked.getId()).visitId());
+        assertNull(summaries.values().stream().filter(summary -> !summary.booked()).findFirst().orElseThrow().visitId());
+    }
+
+    @Test
+    public void givenManyFreeSchedules_WhenBookedConcurrently_ThenEveryScheduleBookedOnce() throws Exception {
+
+        int threads = 16;
+        int slots = 200;
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+        Schedule template = createBookableSchedule(start);
+        List<Schedule> schedules = new ArrayList<>();
+        for(int i = 0; i < slots; i++) {
+            schedules.add(new Schedule(start.plusMinutes(15L * i), start.plusMinutes(15L * (i + 1)),
+                    template.getDoctor(), template.getInstitution()));
+        }
+        scheduleRepository.saveAll(schedules);
+        List<User> patients = createPatients(threads);
+
+        AtomicInteger booked = new AtomicInteger();
+        runConcurrently(threads, slots * 2, i -> {
+            try {
+                visitService.addVisit(new AddVisitForm(schedules.get(i % slots).getId(), null, ""), patients.get(i % threads));
+                booked.incrementAndGet();
+            } catch (IllegalArgumentException ignored) {
+            }
+        });
+
+        assertEquals(slots, booked.get());
+        assertEquals(slots, visitRepository.count());
+        assertTrue(scheduleRepository.findAll().stream().allMatch(Schedule::isBooked));
+    }
+
+    @Test
+    public void givenEmployeeAddedUpdatedAndRemoved_WhenGetCombinedRoleCode_ThenFollowsInstitutions() {
+        User employee = userRepository.save(new User(EXAMPLE_MAIL, "Name", "Surname", "1234567890",
+                LocalDate.of(1990, 1, 1), new Address("Province", "City", "Street", "Number", "00-000"),
+                "123456789", "", new UserSettings("PL", false, false, 1)));
+        Institution first = institutionRepository.save(new Institution("First", true,
+                new Address("Province", "City", "Street", "Number", "00-000"), "", new ArrayList<>(), ""));
+        Institution second = institutionRepository.save(new Institution("Second", true,
+                new Address("Province", "City", "Street", "Number", "00-000"), "", new ArrayList<>(), ""));
+
+        employeeManagementService.addEmployeesToInstitution(first.getId(),
+                new ArrayList<>(List.of(new AddEmployeeForm(employee.getId(), 2, new ArrayList<>(List.of("Kardiologia"))))));
+        assertEquals(2, employmentService.getCombinedRoleCode(employee.getId()));
+
+        employeeManagementService.addEmployeesToInstitution(second.getId(),
+                new ArrayList<>(List.of(new AddEmployeeForm(employee.getId(), 4, null))));
+        assertEquals(6, employmentService.getCombinedRoleCode(employee.getId()));
+
+        employeeManagementService.updateEmployee(first.getId(), new AddEmployeeForm(employee.getId(), 4, null), "admin");
+        assertEquals(4, employmentService.getCombinedRoleCode(employee.getId()));
+        assertEquals(5, userRepository.findById(employee.getId()).get().getRoleCode());
+
+        employeeManagementService.removeEmployee(second.getId(), employee.getId(), "admin");
+        assertEquals(4, employmentService.getCombinedRoleCode(employee.getId()));
+
+        employeeManagementService.removeEmployee(first.getId(), employee.getId(), "admin");
+        assertEquals(0, employmentService.getCombinedRoleCode(employee.getId()));
+        assertEquals(1, userRepository.findById(employee.getId()).get().getRoleCode());
+    }
+
+    @Test
+    public void givenDoctorsWithSchedules_WhenGetInstitutionDoctors_ThenSchedulesGroupedPerDoctor() {
+        Schedule first = createBookableSchedule(LocalDateTime.now().plusDays(1));
+        User second = userRepository.save(new User("second@mail.com", "Second", "Doctor", "1122334455",
+                LocalDate.of(1980, 1, 1), new Address("Province", "City", "Street", "Number", "00-000"),
+                "123456789", "", new UserSettings("PL", false, false, 1)));
+        Institution other = institutionRepository.save(new Institution("Other", true,
+                new Address("Province", "City", "Street", "Number", "00-000"), "", new ArrayList<>(), ""));
+        String institutionId = first.getInstitution().getInstitutionId();
+        String firstId = first.getDoctor().getUserId();
+        employeeManagementService.addEmployeesToInstitution(institutionId, new ArrayList<>(List.of(
+                new AddEmployeeForm(firstId, 2, new ArrayList<>(List.of("Kardiologia"))),
+                new AddEmployeeForm(second.getId(), 2, new ArrayList<>(List.of("Kardiologia"))))));
+        scheduleRepository.saveAll(List.of(first,
+                new Schedule(first.getStartHour().plusHours(1), first.getEndHour().plusHours(1), first.getDoctor(),
+                        first.getInstitution()),
+                new Schedule(first.getStartHour().plusHours(2), first.getEndHour().plusHours(2), first.getDoctor(),
+                        new InstitutionDigest(other.getId(), other.getName())),
+                new Schedule(first.getStartHour().minusDays(3), first.getEndHour().minusDays(3), first.getDoctor(),
+                        first.getInstitution())));
+
+        Map<Object, Map<String, Object>> doctors = new HashMap<>();
+        institutionQueryService.getDoctors(institutionId, null).forEach(doctor -> doctors.put(doctor.get("doctorId"), doctor));
+
+        assertEquals(2, doctors.size());
+        assertEquals(2, ((List<?>) doctors.get(firstId).get("doctorSchedules")).size());
+        assertEquals(0, ((List<?>) doctors.get(second.getId()).get("doctorSchedules")).size());
+    }
+
+    @Test
+    public void givenFanOutDeadlineExceeded_WhenRequested_ThenServiceUnavailable() throws Exception {
+        userRepository.save(new User(EXAMPLE_MAIL, "Example", "Example", "1234567890", LocalDate.of(2000, 1, 1),
+                new Address("Province", "City", "Street", "Number", "00-000"), "123456789",
+                argon2PasswordEncoder.encode(TEST_PASSWORD), new UserSettings("PL", false, false, 1)));
+        Cookie session = mvc.perform(post("/api/users/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\": \"" + EXAMPLE_MAIL + "\", \"password\": \"" + TEST_PASSWORD + "\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getCookie("SESSION");
+
+        Semaphore permits = (Semaphore) ReflectionTestUtils.getField(fanOutExecutor, "permits");
+        long timeout = (long) ReflectionTestUtils.getField(fanOutExecutor, "timeoutMillis");
+        ReflectionTestUtils.setField(fanOutExecutor, "permits", new Semaphore(0));
+        ReflectionTestUtils.setField(fanOutExecutor, "timeoutMillis", 50L);
+        try {
+            mvc.perform(get("/api/doctors/0123456789abcdef01234567/fullInfo").cookie(session))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(jsonPath("$.message").exists());
+        } finally {
+            ReflectionTestUtils.setField(fanOutExecutor, "permits", permits);
+            ReflectionTestUtils.setField(fanOutExecutor, "timeoutMillis", timeout);
+        }
+    }
+
+    @Test
+    public void givenDriftedEmployments_WhenReconcile_ThenMatchInstitutionStaff() {
+        Institution institution = new Institution("Institution", true,
+                new Address("Province", "City", "Street", "Number", "00-000"), "", new ArrayList<>(), "");
+        institution.addEmployee(new StaffDigest("employee", "Name", "Surname", new ArrayList<>(), 4, ""));
+        institution = institutionRepository.save(institution);
+        employmentService.syncInstitution(institution);
+        mongoTemplate.remove(new Query(), Employment.class);
+        mongoTemplate.insert(new Employment("stale", "missingInstitution", "Name", "Surname", new ArrayList<>(), 2, ""));
+
+        assertEquals(2, employmentService.reconcile());
+
+        assertEquals(4, employmentService.getCombinedRoleCode("employee"));
+        assertEquals(0, employmentService.getCombinedRoleCode("stale"));
+        assertEquals(0, employmentService.reconcile());
+    }
+
+    @Test
+    public void givenEqualSortKeys_WhenPagedAscending_ThenTiesBrokenByIdWithoutGapsOrRepeats() {
+        LocalDateTime startHour = LocalDateTime.of(2030, 1, 1, 10, 0);
+        List<String> expected = saveSchedules(startHour, startHour, startHour, startHour, startHour.plusHours(1)).stream()
+                .sorted(Comparator.comparing(Schedule::getStartHour).thenComparing(Schedule::getId))
+                .map(Schedule::getId).toList();
+
+        assertEquals(expected, collectPages(KeysetPager.SCHEDULES_BY_START, 2));
+    }
+
+    @Test
+    public void givenEqualSortKeys_WhenPagedDescending_ThenTiesBrokenByIdWithoutGapsOrRepeats() {
+        LocalDateTime startHour = LocalDateTime.of(2030, 1, 1, 10, 0);
+        List<String> expected = saveSchedules(startHour.minusHours(1), startHour, startHour, startHour).stream()
+                .sorted(Comparator.comparing(Schedule::getStartHour).thenComparing(Schedule::getId).reversed())
+                .map(Schedule::getId).toList();
+
+        KeysetPager.Keyset<ScheduleSummary> newestFirst = new KeysetPager.Keyset<>("startHour", Sort.Direction.DESC,
+                ScheduleSummary::startHour, ScheduleSummary::id);
+        assertEquals(expected, collectPages(newestFirst, 3));
+    }
+
+    @Test
+    public void givenEncodedCursor_WhenPaged_ThenResumesAfterPosition() {
+        LocalDateTime startHour = LocalDateTime.of(2030, 1, 1, 10, 0);
+        List<Schedule> schedules = saveSchedules(startHour, startHour.plusHours(1), startHour.plusHours(2));
+
+        CursorPage<ScheduleSummary> first = keysetPager.page(Schedule.class, ScheduleSummary.class, new Criteria(),
+                KeysetPager.SCHEDULES_BY_START, null, 1);
+        String handmade = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                (startHour + "|" + schedules.getFirst().getId()).getBytes(StandardCharsets.UTF_8));
+        assertEquals(handmade, first.nextCursor());
+
+        CursorPage<ScheduleSummary> last = keysetPager.page(Schedule.class, ScheduleSummary.class, new Criteria(),
+                KeysetPager.SCHEDULES_BY_START, handmade, 5);
+        assertEquals(List.of(schedules.get(1).getId(), schedules.get(2).getId()),
+                last.items().stream().map(ScheduleSummary::id).toList());
+        assertNull(last.nextCursor());
+    }
+
+    @Test
+    public void givenMalformedCursor_WhenPaged_ThenRejected() {
+        for(String cursor: List.of("not base64!", Base64.getUrlEncoder().encodeToString("2030-01-01T10:00".getBytes(StandardCharsets.UTF_8)),
+                Base64.getUrlEncoder().encodeToString("yesterday|0123456789abcdef01234567".getBytes(StandardCharsets.UTF_8)),
+                Base64.getUrlEncoder().encodeToString("2030-01-01T10:00|notAnId".getBytes(StandardCharsets.UTF_8)))) {
+            assertThrows(IllegalArgumentException.class, () -> keysetPager.page(Schedule.class, ScheduleSummary.class,
+                    new Criteria(), KeysetPager.SCHEDULES_BY_START, cursor, 10));
+        }
+    }
+
+    @Test
+    public void givenScheduleLongerThanADay_WhenAddingScheduleInsideIt_ThenRejectedAsOverlap() throws Exception {
+        User doctor = userRepository.save(new User("doctor@mail.com", "Doctor", "Doctor", "0987654321",
+                LocalDate.of(1980, 1, 1), new Address("Province", "City", "Street", "Number", "00-000"),
+                "123456789", "", new UserSettings("PL", false, false, 1)));
+        Institution institution = institutionRepository.save(new Institution("Institution", true,
+                new Address("Province", "City", "Street", "Number", "00-000"), "", new ArrayList<>(), ""));
+        employeeManagementService.addEmployeesToInstitution(institution.getId(),
+                new ArrayList<>(List.of(new AddEmployeeForm(doctor.getId(), 6, new ArrayList<>(List.of("Kardiologia"))))));
+        LocalDateTime startHour = LocalDateTime.of(2030, 1, 1, 8, 0);
+
+        scheduleService.addSchedule(new AddScheduleForm(doctor.getId(), institution.getId(),
+                startHour, startHour.plusHours(48), null), doctor.getId());
+
+        assertThrows(IllegalStateException.class, () -> scheduleService.addSchedule(new AddScheduleForm(doctor.getId(),
+                institution.getId(), startHour.plusHours(40), startHour.plusHours(41), null), doctor.getId()));
+        scheduleService.addSchedule(new AddScheduleForm(doctor.getId(), institution.getId(),
+                startHour.plusHours(48), startHour.plusHours(49), null), doctor.getId());
+        assertEquals(2, scheduleRepository.count());
+    }
+
+    @Test
+    public void givenBookedScheduleInWindow_WhenUpdateManySchedules_ThenRejectedAndNothingChanged() throws Exception {
+        User doctor = userRepository.save(new User("doctor@mail.com", "Doctor", "Doctor", "0987654321",
+                LocalDate.of(1980, 1, 1), new Address("Province", "City", "Street", "Number", "00-000"),
+                "123456789", "", new UserSettings("PL", false, false, 1)));
+        Institution institution = institutionRepository.save(new Institution("Institution", true,
+                new Address("Province", "City", "Street", "Number", "00-000"), "", new ArrayList<>(), ""));
+        employeeManagementService.addEmployeesToInstitution(institution.getId(),
+                new ArrayList<>(List.of(new AddEmployeeForm(doctor.getId(), 6, new ArrayList<>(List.of("Kardiologia"))))));
+        LocalDateTime startHour = LocalDateTime.now().plusDays(1).withHour(8).withMinute(0).withSecond(0).withNano(0);
+        scheduleService.addManySchedules(new AddScheduleForm(doctor.getId(), institution.getId(),
+                startHour, startHour.plusMinutes(45), LocalTime.of(0, 15)), doctor.getId());
+        List<Schedule> schedules = scheduleRepository.findAll();
+        User patient = createPatients(1).getFirst();
+        visitService.addVisit(new AddVisitForm(schedules.get(1).getId(), null, ""), patient);
+
+        ManySchedulesUpdateForm update = new ManySchedulesUpdateForm(doctor.getId(), institution.getId(),
+                startHour, startHour.plusMinutes(30), startHour, startHour.plusMinutes(60), LocalTime.of(0, 30));
+        assertThrows(IllegalStateException.class, () -> scheduleService.updateManySchedules(update, doctor.getId()));
+
+        assertEquals(schedules.stream().map(Schedule::getId).toList(),
+                scheduleRepository.findAll().stream().map(Schedule::getId).toList());
+        assertTrue(scheduleRepository.findById(schedules.get(1).getId()).orElseThrow().isBooked());
+
+        visitService.cancelVisit(visitRepository.findAll().getFirst().getId(), patient.getId());
+        scheduleService.updateManySchedules(update, doctor.getId());
+        List<Schedule> updated = scheduleRepository.findAll();
+        assertEquals(2, updated.size());
+        assertEquals(List.of(startHour, startHour.plusMinutes(30)), updated.stream().map(Schedule::getStartHour).sorted().toList());
+    }
+
+    @Test
+    public void givenRatingsAddedEditedAndRemoved_WhenDoctorSaved_ThenStatsUnaffected() {
+        User doctor = userRepository.save(new User("doctor@mail.com", "Doctor", "Doctor", "0987654321",
+                LocalDate.of(1980, 1, 1), new Address("Province", "City", "Street", "Number", "00-000"),
+                "123456789", "", new UserSettings("PL", false, false, 1)));
+
+        ratingStatsRepository.recordDoctorRating(doctor.getId(), 4.5f, null);
+        ratingStatsRepository.recordDoctorRating(doctor.getId(), 3f, null);
+        ratingStatsRepository.recordDoctorRating(doctor.getId(), 5f, 3f);
+        ratingStatsRepository.recordDoctorRating(doctor.getId(), null, 4.5f);
+        doctor.setName("Renamed");
+        userRepository.save(doctor);
+
+        RatingStats stats = ratingStatsRepository.find(doctor.getId());
+        assertEquals(1, stats.getCount());
+        assertEquals(5f, stats.getAverage());
+        assertEquals(1, stats.getHistogram().get("10"));
+        assertEquals(0, stats.getHistogram().get("9"));
+        assertEquals(0, ratingStatsRepository.find("0123456789abcdef01234567").getCount());
+    }
+
+    @Test
+    public void givenComments_WhenRatingStatsRebuilt_ThenRecountedAndStaleStatsRemoved() {
+        DoctorDigest doctor = new DoctorDigest("0123456789abcdef01234567", "Doctor", "Doctor", new ArrayList<>());
+        InstitutionDigest institution = new InstitutionDigest("76543210fedcba9876543210", "Institution");
+        PatientDigest patient = new PatientDigest("patient", "Patient", "Patient", "1234567890");
+        commentRepository.saveAll(List.of(
+                new Comment(4f, 2f, "", doctor, institution, patient, "visit1"),
+                new Comment(5f, 3f, "", doctor, institution, patient, "visit2")));
+        ratingStatsRepository.recordDoctorRating("aaaaaaaaaaaaaaaaaaaaaaaa", 1f, null);
+        ratingStatsRepository.recordDoctorRating(doctor.getUserId(), 1f, null);
+
+        assertEquals(2, ratingStatsRepository.rebuild());
+
+        Map<String, RatingStats> stats = ratingStatsRepository.findAll(
+                List.of(doctor.getUserId(), institution.getInstitutionId(), "aaaaaaaaaaaaaaaaaaaaaaaa"));
+        assertEquals(4.5f, stats.get(doctor.getUserId()).getAverage());
+        assertEquals(2, stats.get(doctor.getUserId()).getCount());
+        assertEquals(2.5f, stats.get(institution.getInstitutionId()).getAverage());
+        assertEquals(0, stats.get("aaaaaaaaaaaaaaaaaaaaaaaa").getCount());
+        assertEquals(2, mongoTemplate.count(new Query(), RatingStats.class));
+    }
+
+    @Test
+    public void givenComment_WhenEditedAndDeletedConcurrently_ThenRatingCountedOnce() throws Exception {
+        int threads = 8;
+        Schedule schedule = scheduleRepository.save(createBookableSchedule(LocalDateTime.now().plusDays(1).withNano(0)));
+        User patient = createPatients(1).getFirst();
+        visitService.addVisit(new AddVisitForm(schedule.getId(), null, ""), patient);
+        String visitId = visitRepository.findAll().getFirst().getId();
+        commentService.addComment(new AddCommentForm(visitId, 3f, 3f, ""), patient.getId());
+        String commentId = commentRepository.findAll().getFirst().getId();
+        String doctorId = schedule.getDoctor().getUserId();
+
+        runConcurrently(threads, threads, i -> {
+            try {
+                commentService.editComment(new AddCommentForm(visitId, 1f + i % 5, 1f + i % 5, ""), commentId, patient.getId());
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        RatingStats edited = ratingStatsRepository.find(doctorId);
+        assertEquals(1, edited.getCount());
+        assertEquals(commentRepository.findById(commentId).orElseThrow().getDoctorRating(), edited.getAverage());
+
+        AtomicInteger deleted = new AtomicInteger();
+        runConcurrently(threads, threads, i -> {
+            try {
+                commentService.deleteComment(commentId, patient.getId());
+                deleted.incrementAndGet();
+            } catch (IllegalAccessException ignored) {
+            }
+        });
+
+        assertEquals(1, deleted.get());
+        assertEquals(0, ratingStatsRepository.find(doctorId).getCount());
+        assertEquals(0, ratingStatsRepository.find(schedule.getInstitution().getInstitutionId()).getCount());
+        assertNull(visitRepository.findById(visitId).orElseThrow().getCommentId());
+    }
+
+    @Test
+    public void givenEmbeddedNotifications_WhenDataLoaderRuns_ThenMovedOnceAndMigrationRecorded() throws Exception {
+        User user = userRepository.save(new User(EXAMPLE_MAIL, "Name", "Surname", "1234567890",
+                LocalDate.of(1990, 1, 1), new Address("Province", "City", "Street", "Number", "00-000"),
+                "123456789", "", new UserSettings("PL", false, false, 1)));
+        List<Document> embedded = List.of(
+                new Document("title", "Past").append("content", "").append("timestamp", LocalDateTime.now().minusDays(1))
+                        .append("isSystem", false).append("isRead", true),
+                new Document("title", "Upcoming").append("content", "").append("timestamp", LocalDateTime.now().plusDays(1))
+                        .append("isSystem", false).append("isRead", false));
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(user.getId())),
+                new Update().set("notifications", embedded), "User");
+
+        dataLoader.run();
+
+        List<Notification> notifications = notificationRepository.getNotificationsForUser(user.getId());
+        assertEquals(2, notifications.size());
+        assertTrue(notifications.getFirst().isSent());
+        assertFalse(notifications.getLast().isSent());
+        assertFalse(mongoTemplate.exists(new Query(Criteria.where("notifications").exists(true)), "User"));
+        assertTrue(mongoTemplate.exists(new Query(Criteria.where("_id").is("embeddedNotifications")), "Migration"));
+
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(user.getId())),
+                new Update().set("notifications", embedded), "User");
+        dataLoader.run();
+
+        assertEquals(2, notificationRepository.getNotificationsForUser(user.getId()).size());
+    }
+
+    private List<Schedule> saveSchedules(LocalDateTime... startHours) {
+        Schedule template = createBookableSchedule(startHours[0]);
+        ArrayList<Schedule> schedules = new ArrayList<>();
+        for(LocalDateTime startHour: startHours) {
+            schedules.add(new Schedule(startHour, startHour.plusMinutes(15), template.getDoctor(), template.getInstitution()));
+        }
+        return scheduleRepository.saveAll(schedules);
+    }
+
+    private List<String> collectPages(KeysetPager.Keyset<ScheduleSummary> keyset, int size) {
+        ArrayList<String> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<ScheduleSummary> page = keysetPager.page(Schedule.class, ScheduleSummary.class, new Criteria(),
+                    keyset, cursor, size);
+            assertTrue(page.items().size() <= size);
+            page.items().forEach(summary -> ids.add(summary.id()));
+            cursor = page.nextCursor();
+        } while(cursor != null);
+        return ids;
+    }
+
+    private Schedule createBookableSchedule(LocalDateTime startHour) {
+        User doctor = userRepository.save(new User("doctor@mail.com", "Doctor", "Doctor", "0987654321",
+                LocalDate.of(1980, 1, 1), new Address("Province", "City", "Street", "Number", "00-000"),
+                "123456789", "", new UserSettings("PL", false, false, 1)));
+        Institution institution = institutionRepository.save(new Institution("Institution", true,
+                new Address("Province", "City", "Street", "Number", "00-000"), "", new ArrayList<>(), ""));
+        return new Schedule(startHour, startHour.plusMinutes(15),
+                new DoctorDigest(doctor.getId(), doctor.getName(), doctor.getSurname(), new ArrayList<>()),
+                new InstitutionDigest(institution.getId(), institution.getName()));
+    }
+
+    private List<User> createPatients(int count) {
+        List<User> patients = new ArrayList<>();
+        for(int i = 0; i < count; i++) {
+            patients.add(new User("patient" + i + "@mail.com", "Patient", "Patient" + i, "1234567890",
+                    LocalDate.of(1990, 1, 1), new Address("Province", "City", "Street", "Number", "00-000"),
+                    "123456789", "", new UserSettings("PL", false, false, 1)));
+        }
+        return userRepository.saveAll(patients);
+    }
+
+    private void runConcurrently(int threads, int tasks, IntConsumer task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for(int i = 0; i < tasks; i++) {
+            int index = i;
+            futures.add(pool.submit(() -> {
+                startSignal.await();
+                task.accept(index);
+                return null;
+            }));
+        }
+        startSignal.countDown();
+        try {
+            for(Future<?> future: futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
 }
@@ -0,0 +1,51 @@
+package com.adam.medipathbackend;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class PasswordHashingBenchmark {
+
+    @Param({"60000,10,1", "47104,1,1", "19456,2,1", "12288,3,1", "7168,5,1"})
+    public String parameters;
+
+    private Argon2PasswordEncoder encoder;
+
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        String[] values = parameters.split(",");
+        encoder = new Argon2PasswordEncoder(16, 32, Integer.parseInt(values[2]),
+                Integer.parseInt(values[0]), Integer.parseInt(values[1]));
+        hash = encoder.encode("correct horse battery staple");
+    }
+
+    @Benchmark
+    public String encode() {
+        return encoder.encode("correct horse battery staple");
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches("correct horse battery staple", hash);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PasswordHashingBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
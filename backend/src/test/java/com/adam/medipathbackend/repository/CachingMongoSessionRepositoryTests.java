@@ -0,0 +1,157 @@
+package com.adam.medipathbackend.repository;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.session.MapSession;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class CachingMongoSessionRepositoryTests {
+
+    private MongoCollection<Document> collection;
+
+    private MongoTemplate mongoTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        collection = mock(MongoCollection.class);
+        mongoTemplate = mock(MongoTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        when(mongoTemplate.getCollection("sessions")).thenReturn(collection);
+    }
+
+    @Test
+    public void givenOnlyAccessTimeChanged_WhenSaved_ThenWriteDeferredUntilFlush() {
+        CachingMongoSessionRepository repository = repository(30000);
+        MapSession session = loggedIn(repository);
+        repository.save(session);
+        verify(collection, times(1)).replaceOne(any(Bson.class), any(Document.class), any(ReplaceOptions.class));
+
+        Instant accessed = session.getLastAccessedTime().plusSeconds(60);
+        session.setLastAccessedTime(accessed);
+        repository.save(session);
+
+        verify(collection, times(1)).replaceOne(any(Bson.class), any(Document.class), any(ReplaceOptions.class));
+        assertEquals(1.0, meterRegistry.get("medipath.session.touches.pending").gauge().value());
+
+        repository.flushTouches();
+
+        List<WriteModel<Document>> updates = capturedBulkWrite();
+        assertEquals(1, updates.size());
+        UpdateOneModel<Document> update = assertInstanceOf(UpdateOneModel.class, updates.getFirst());
+        assertTrue(update.getFilter().toBsonDocument().toJson().contains(session.getId()));
+        assertEquals(0.0, meterRegistry.get("medipath.session.touches.pending").gauge().value());
+
+        repository.flushTouches();
+        verify(collection, times(1)).bulkWrite(anyList());
+    }
+
+    @Test
+    public void givenAttributeChanged_WhenSaved_ThenWrittenImmediatelyAndPendingTouchDropped() {
+        CachingMongoSessionRepository repository = repository(30000);
+        MapSession session = loggedIn(repository);
+        repository.save(session);
+        session.setLastAccessedTime(session.getLastAccessedTime().plusSeconds(60));
+        repository.save(session);
+
+        session.setAttribute("role", "DOCTOR");
+        repository.save(session);
+        repository.flushTouches();
+
+        verify(collection, times(2)).replaceOne(any(Bson.class), any(Document.class), any(ReplaceOptions.class));
+        verify(collection, never()).bulkWrite(anyList());
+    }
+
+    @Test
+    public void givenCachedSession_WhenFound_ThenServedWithoutMongoRead() {
+        CachingMongoSessionRepository repository = repository(30000);
+        MapSession session = loggedIn(repository);
+        repository.save(session);
+
+        MapSession found = repository.findById(session.getId());
+
+        assertEquals("user-id", found.getAttribute("id"));
+        verify(collection, never()).find(any(Bson.class));
+    }
+
+    @Test
+    public void givenDeletedSession_WhenFlushed_ThenPendingTouchNotWritten() {
+        CachingMongoSessionRepository repository = repository(30000);
+        MapSession session = loggedIn(repository);
+        repository.save(session);
+        session.setLastAccessedTime(session.getLastAccessedTime().plusSeconds(60));
+        repository.save(session);
+
+        repository.deleteById(session.getId());
+        repository.flushTouches();
+
+        verify(collection).deleteOne(any(Bson.class));
+        verify(collection, never()).bulkWrite(anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenZeroTtl_WhenFound_ThenAlwaysReadFromMongo() {
+        CachingMongoSessionRepository repository = repository(0);
+        MapSession session = loggedIn(repository);
+        repository.save(session);
+        FindIterable<Document> found = mock(FindIterable.class);
+        when(found.first()).thenReturn(new SessionDocumentCodec().encode(session));
+        when(collection.find(any(Bson.class))).thenReturn(found);
+
+        repository.findById(session.getId());
+        repository.findById(session.getId());
+
+        verify(collection, times(2)).find(any(Bson.class));
+    }
+
+    @Test
+    public void givenAnonymousSession_WhenSaved_ThenNothingWritten() {
+        CachingMongoSessionRepository repository = repository(30000);
+
+        repository.save(repository.createSession());
+
+        verifyNoInteractions(collection);
+    }
+
+    private CachingMongoSessionRepository repository(long ttlMillis) {
+        CachingMongoSessionRepository repository = new CachingMongoSessionRepository(mongoTemplate, meterRegistry,
+                "sessions", 1800, 100, ttlMillis);
+        repository.registerGauges();
+        return repository;
+    }
+
+    private static MapSession loggedIn(CachingMongoSessionRepository repository) {
+        MapSession session = repository.createSession();
+        session.setLastAccessedTime(Instant.now().truncatedTo(ChronoUnit.MILLIS));
+        session.setAttribute("id", "user-id");
+        return session;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<WriteModel<Document>> capturedBulkWrite() {
+        ArgumentCaptor<List<WriteModel<Document>>> captor = ArgumentCaptor.forClass(List.class);
+        verify(collection).bulkWrite(captor.capture());
+        return captor.getValue();
+    }
+}
@@ -0,0 +1,109 @@
+package com.adam.medipathbackend.repository;
+
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.session.MapSession;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionDocumentCodecTests {
+
+    private final SessionDocumentCodec codec = new SessionDocumentCodec();
+
+    @Test
+    public void givenSession_WhenEncodedAndDecoded_ThenRoundTrips() {
+        MapSession session = new MapSession("session-id");
+        session.setCreationTime(Instant.parse("2030-01-01T10:00:00Z"));
+        session.setLastAccessedTime(Instant.parse("2030-01-01T10:05:00Z"));
+        session.setMaxInactiveInterval(Duration.ofMinutes(30));
+        session.setAttribute("id", "user-id");
+        session.setAttribute("count", 3);
+        session.setAttribute("remember", true);
+        session.setAttribute("birthDate", LocalDate.of(1990, 5, 17));
+        session.setAttribute("roles", new ArrayList<>(List.of("PATIENT", "DOCTOR")));
+
+        MapSession decoded = codec.decode(codec.encode(session));
+
+        assertEquals("session-id", decoded.getId());
+        assertEquals(session.getCreationTime(), decoded.getCreationTime());
+        assertEquals(session.getLastAccessedTime(), decoded.getLastAccessedTime());
+        assertEquals(Duration.ofMinutes(30), decoded.getMaxInactiveInterval());
+        assertEquals(session.getAttributeNames(), decoded.getAttributeNames());
+        for(String name: session.getAttributeNames()) {
+            assertEquals((Object) session.getAttribute(name), decoded.getAttribute(name));
+        }
+    }
+
+    @Test
+    public void givenSimpleAndComplexValues_WhenEncoded_ThenOnlyComplexOnesSerialized() {
+        MapSession session = new MapSession("session-id");
+        session.setAttribute("id", "user-id");
+        session.setAttribute("birthDate", LocalDate.of(1990, 5, 17));
+
+        Document attributes = codec.encode(session).get(SessionDocumentCodec.ATTRIBUTES, Document.class);
+
+        assertEquals("user-id", attributes.get("id"));
+        assertInstanceOf(Binary.class, attributes.get("birthDate"));
+    }
+
+    @Test
+    public void givenDottedAttributeName_WhenEncoded_ThenStoredWithoutDotsAndRestored() {
+        MapSession session = new MapSession("session-id");
+        session.setAttribute("org.example.key", "value");
+
+        Document encoded = codec.encode(session);
+
+        assertTrue(encoded.get(SessionDocumentCodec.ATTRIBUTES, Document.class).keySet().stream().noneMatch(key -> key.contains(".")));
+        assertEquals("value", codec.decode(encoded).getAttribute("org.example.key"));
+    }
+
+    @Test
+    public void givenSession_WhenEncoded_ThenExpireAtIsLastAccessPlusInterval() {
+        MapSession session = new MapSession("session-id");
+        session.setLastAccessedTime(Instant.parse("2030-01-01T10:00:00Z"));
+        session.setMaxInactiveInterval(Duration.ofSeconds(1800));
+
+        Document encoded = codec.encode(session);
+
+        assertEquals(Date.from(Instant.parse("2030-01-01T10:30:00Z")), encoded.get(SessionDocumentCodec.EXPIRE_AT));
+        assertEquals(1800L, encoded.get(SessionDocumentCodec.INTERVAL));
+    }
+
+    @Test
+    public void givenLegacyDocument_WhenDecoded_ThenSerializedAttributeMapRead() {
+        HashMap<String, Object> attributes = new HashMap<>();
+        attributes.put("id", "user-id");
+        Document legacy = new Document(SessionDocumentCodec.ID, "legacy-id")
+                .append(SessionDocumentCodec.CREATED, Date.from(Instant.parse("2030-01-01T10:00:00Z")))
+                .append(SessionDocumentCodec.ACCESSED, Date.from(Instant.parse("2030-01-01T10:00:00Z")))
+                .append(SessionDocumentCodec.INTERVAL, "PT15M")
+                .append("attr", new Binary(new SerializingConverter().convert(attributes)));
+
+        MapSession decoded = codec.decode(legacy);
+
+        assertEquals("user-id", decoded.getAttribute("id"));
+        assertEquals(Duration.ofMinutes(15), decoded.getMaxInactiveInterval());
+    }
+
+    @Test
+    public void givenDocumentWithoutTimestamps_WhenDecoded_ThenDefaultsApplied() {
+        Instant before = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+        MapSession decoded = codec.decode(new Document(SessionDocumentCodec.ID, "bare-id"));
+
+        assertFalse(decoded.getLastAccessedTime().isBefore(before));
+        assertEquals(MapSession.DEFAULT_MAX_INACTIVE_INTERVAL, decoded.getMaxInactiveInterval());
+        assertTrue(decoded.getAttributeNames().isEmpty());
+    }
+}
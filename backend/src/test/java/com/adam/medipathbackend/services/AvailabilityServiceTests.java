@@ -0,0 +1,136 @@
+package com.adam.medipathbackend.services;
+
+import com.adam.medipathbackend.models.DoctorDigest;
+import com.adam.medipathbackend.models.InstitutionDigest;
+import com.adam.medipathbackend.models.Schedule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AvailabilityServiceTests {
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(2);
+
+    private AvailabilityService availabilityService;
+
+    private EarliestSlotIndex earliestSlotIndex;
+
+    @BeforeEach
+    void setUp() {
+        earliestSlotIndex = mock(EarliestSlotIndex.class);
+        availabilityService = new AvailabilityService();
+        ReflectionTestUtils.setField(availabilityService, "earliestSlotIndex", earliestSlotIndex);
+    }
+
+    @Test
+    public void givenFreeSchedule_WhenBookedAndReleased_ThenBitsFollowState() {
+        Schedule schedule = schedule("s1", "inst", DAY.atTime(9, 0));
+        availabilityService.addSchedule(schedule);
+        assertEquals(List.of("s1"), freeSlotIds(null));
+        assertEquals(List.of(new AvailabilityService.DaySummary(DAY, 1, 0)), heatmap());
+
+        availabilityService.markBooked(schedule);
+        assertTrue(freeSlotIds(null).isEmpty());
+        assertEquals(List.of(new AvailabilityService.DaySummary(DAY, 0, 1)), heatmap());
+        verify(earliestSlotIndex).remove("s1");
+
+        availabilityService.markFree(schedule);
+        assertEquals(List.of("s1"), freeSlotIds(null));
+        assertEquals(List.of(new AvailabilityService.DaySummary(DAY, 1, 0)), heatmap());
+        verify(earliestSlotIndex, times(2)).add(eq("s1"), any(), eq("inst"), eq(DAY.atTime(9, 0)));
+    }
+
+    @Test
+    public void givenSeveralInstitutions_WhenNextFreeSlot_ThenEarliestUnbookedReturned() {
+        Schedule early = schedule("early", "a", DAY.atTime(8, 30));
+        Schedule later = schedule("later", "b", DAY.atTime(10, 15));
+        Schedule nextDay = schedule("nextDay", "a", DAY.plusDays(1).atTime(7, 0));
+        availabilityService.addSchedules(List.of(later, nextDay, early));
+
+        assertEquals("early", nextFreeId(null));
+        assertEquals("later", nextFreeId("b"));
+
+        availabilityService.markBooked(early);
+        assertEquals("later", nextFreeId(null));
+        assertEquals("nextDay", nextFreeId("a"));
+        assertEquals(List.of("later", "nextDay"), freeSlotIds(null));
+    }
+
+    @Test
+    public void givenSchedule_WhenMoved_ThenOldMinuteClearedAndNewOneSet() {
+        Schedule schedule = schedule("s1", "inst", DAY.atTime(9, 0));
+        availabilityService.addSchedule(schedule);
+
+        availabilityService.moveSchedule(schedule, DAY.atTime(11, 45));
+
+        List<AvailabilityService.Slot> slots = availabilityService.getFreeSlots("doctor", null, DAY, DAY.plusDays(1));
+        assertEquals(1, slots.size());
+        assertEquals("s1", slots.getFirst().scheduleId());
+        assertEquals(DAY.atTime(11, 45), slots.getFirst().startHour());
+    }
+
+    @Test
+    public void givenBookedSchedule_WhenMovedToAnotherDay_ThenStaysBooked() {
+        Schedule schedule = schedule("s1", "inst", DAY.atTime(9, 0));
+        schedule.setBooked(true);
+        availabilityService.addSchedule(schedule);
+
+        availabilityService.moveSchedule(schedule, DAY.plusDays(1).atTime(9, 0));
+
+        assertEquals(List.of(new AvailabilityService.DaySummary(DAY.plusDays(1), 0, 1)), heatmap());
+        assertTrue(freeSlotIds(null).isEmpty());
+    }
+
+    @Test
+    public void givenStaleScheduleId_WhenRemoved_ThenNewerScheduleAtSameMinuteKept() {
+        Schedule replaced = schedule("old", "inst", DAY.atTime(9, 0));
+        availabilityService.addSchedule(replaced);
+        availabilityService.addSchedule(schedule("new", "inst", DAY.atTime(9, 0)));
+
+        availabilityService.removeSchedule(replaced);
+
+        assertEquals(List.of("new"), freeSlotIds(null));
+    }
+
+    @Test
+    public void givenPastSchedule_WhenAdded_ThenIgnored() {
+        availabilityService.addSchedule(schedule("past", "inst", LocalDate.now().minusDays(1).atTime(9, 0)));
+
+        assertTrue(availabilityService.getHeatmap("doctor", null, LocalDate.now().minusDays(2), DAY).isEmpty());
+        verifyNoInteractions(earliestSlotIndex);
+    }
+
+    private List<String> freeSlotIds(String institutionId) {
+        return availabilityService.getFreeSlots("doctor", institutionId, DAY, DAY.plusDays(2)).stream()
+                .map(AvailabilityService.Slot::scheduleId).toList();
+    }
+
+    private String nextFreeId(String institutionId) {
+        Optional<AvailabilityService.Slot> slot = availabilityService.getNextFreeSlot("doctor", institutionId, DAY.atStartOfDay());
+        return slot.map(AvailabilityService.Slot::scheduleId).orElse(null);
+    }
+
+    private List<AvailabilityService.DaySummary> heatmap() {
+        return availabilityService.getHeatmap("doctor", null, DAY, DAY.plusDays(2));
+    }
+
+    private Schedule schedule(String id, String institutionId, LocalDateTime startHour) {
+        Schedule schedule = new Schedule(startHour, startHour.plusMinutes(15),
+                new DoctorDigest("doctor", "Name", "Surname", new ArrayList<>(List.of("Kardiologia"))),
+                new InstitutionDigest(institutionId, "Institution " + institutionId));
+        ReflectionTestUtils.setField(schedule, "id", id);
+        return schedule;
+    }
+}
@@ -0,0 +1,162 @@
+package com.adam.medipathbackend.services;
+
+import com.adam.medipathbackend.models.Address;
+import com.adam.medipathbackend.models.DoctorDigest;
+import com.adam.medipathbackend.models.Institution;
+import com.adam.medipathbackend.repository.InstitutionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EarliestSlotIndexTests {
+
+    private static final LocalDateTime BASE = LocalDateTime.now().plusDays(1).withHour(8).withMinute(0).withSecond(0).withNano(0);
+
+    private EarliestSlotIndex index;
+
+    private InstitutionRepository institutionRepository;
+
+    @BeforeEach
+    void setUp() {
+        institutionRepository = mock(InstitutionRepository.class);
+        when(institutionRepository.findActiveById(anyString())).thenReturn(Optional.empty());
+        when(institutionRepository.findActiveById("lublin")).thenReturn(Optional.of(institution("lublin", "Lublin", "Lubelskie")));
+        when(institutionRepository.findActiveById("warszawa")).thenReturn(Optional.of(institution("warszawa", "Warszawa", "Mazowieckie")));
+        index = new EarliestSlotIndex();
+        ReflectionTestUtils.setField(index, "institutionRepository", institutionRepository);
+    }
+
+    @Test
+    public void givenSlots_WhenQueried_ThenOrderedByStartThenScheduleId() {
+        index.add("c", doctor("d1", "Kardiologia"), "lublin", BASE.plusHours(2));
+        index.add("b", doctor("d2", "Kardiologia"), "warszawa", BASE);
+        index.add("a", doctor("d1", "Kardiologia"), "lublin", BASE);
+
+        assertEquals(List.of("a", "b", "c"), ids(index.query("kardiologia", null, null, 10)));
+        assertEquals(List.of("a", "c"), ids(index.query("Kardiologia", "Lublin", null, 10)));
+        assertEquals(List.of("b"), ids(index.query("kardiologia", "warszawa,mazowieckie", null, 10)));
+        assertEquals(List.of("a"), ids(index.query("kardiologia", null, null, 1)));
+    }
+
+    @Test
+    public void givenEarliestSlotBooked_WhenQueried_ThenNextSlotFirst() {
+        index.add("first", doctor("d1", "Kardiologia"), "lublin", BASE);
+        index.add("second", doctor("d1", "Kardiologia"), "lublin", BASE.plusMinutes(15));
+        index.add("third", doctor("d2", "Kardiologia"), "warszawa", BASE.plusMinutes(30));
+
+        index.remove("first");
+
+        assertEquals(List.of("second", "third"), ids(index.query("kardiologia", null, null, 10)));
+        assertEquals(List.of("second"), ids(index.query("kardiologia", "lublin", null, 10)));
+    }
+
+    @Test
+    public void givenBookedSlotReleased_WhenQueried_ThenBackInItsPlace() {
+        DoctorDigest doctor = doctor("d1", "Kardiologia");
+        index.add("first", doctor, "lublin", BASE);
+        index.add("second", doctor, "lublin", BASE.plusMinutes(15));
+        index.remove("first");
+
+        index.add("first", doctor, "lublin", BASE);
+
+        assertEquals(List.of("first", "second"), ids(index.query("kardiologia", "lublin", null, 10)));
+    }
+
+    @Test
+    public void givenSlotMovedLater_WhenQueried_ThenReordered() {
+        DoctorDigest doctor = doctor("d1", "Kardiologia");
+        index.add("moved", doctor, "lublin", BASE);
+        index.add("fixed", doctor, "lublin", BASE.plusHours(1));
+
+        index.add("moved", doctor, "lublin", BASE.plusHours(2));
+
+        assertEquals(List.of("fixed", "moved"), ids(index.query("kardiologia", null, null, 10)));
+    }
+
+    @Test
+    public void givenAfterTime_WhenQueried_ThenOnlyLaterSlots() {
+        index.add("early", doctor("d1", "Kardiologia"), "lublin", BASE);
+        index.add("late", doctor("d1", "Kardiologia"), "lublin", BASE.plusHours(3));
+
+        assertEquals(List.of("late"), ids(index.query("kardiologia", null, BASE, 10)));
+    }
+
+    @Test
+    public void givenUnknownInstitutionOrNoSpecialisation_WhenAdded_ThenNotIndexed() {
+        index.add("inactive", doctor("d1", "Kardiologia"), "closed", BASE);
+        index.add("generic", doctor("d2"), "lublin", BASE);
+
+        assertTrue(index.query("kardiologia", null, null, 10).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> index.query(" ", null, null, 10));
+    }
+
+    @Test
+    public void givenDoctorRemoved_WhenQueried_ThenOtherDoctorsKept() {
+        index.add("s1", doctor("d1", "Kardiologia"), "lublin", BASE);
+        index.add("s2", doctor("d2", "Kardiologia"), "lublin", BASE.plusMinutes(15));
+
+        index.removeDoctor("d1");
+
+        assertEquals(List.of("s2"), ids(index.query("kardiologia", null, null, 10)));
+    }
+
+    @Test
+    public void givenConcurrentAddAndRemove_WhenFinallyRemoved_ThenNoStaleSlotsLeft() throws Exception {
+        DoctorDigest doctor = doctor("d1", "Kardiologia");
+        List<String> ids = IntStream.range(0, 200).mapToObj(i -> "s" + i).toList();
+        CountDownLatch start = new CountDownLatch(1);
+
+        Thread adder = Thread.ofPlatform().start(() -> {
+            await(start);
+            ids.forEach(id -> index.add(id, doctor, "lublin", BASE));
+        });
+        Thread remover = Thread.ofPlatform().start(() -> {
+            await(start);
+            ids.forEach(index::remove);
+        });
+        start.countDown();
+        adder.join();
+        remover.join();
+        ids.forEach(index::remove);
+
+        assertTrue(index.query("kardiologia", null, null, 10).isEmpty());
+        assertTrue(index.query("kardiologia", "lublin,lubelskie", null, 10).isEmpty());
+    }
+
+    private static List<String> ids(List<EarliestSlotIndex.Slot> slots) {
+        return slots.stream().map(EarliestSlotIndex.Slot::scheduleId).toList();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static DoctorDigest doctor(String id, String... specialisations) {
+        return new DoctorDigest(id, "Name", "Surname", new ArrayList<>(List.of(specialisations)));
+    }
+
+    private static Institution institution(String id, String city, String province) {
+        Institution institution = new Institution("Institution " + id, true,
+                new Address(province, city, "Street", "1", "00-000"), "", new ArrayList<>(), "");
+        institution.setId(id);
+        return institution;
+    }
+}
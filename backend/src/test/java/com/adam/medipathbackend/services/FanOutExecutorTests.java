@@ -0,0 +1,163 @@
+package com.adam.medipathbackend.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FanOutExecutorTests {
+
+    private FanOutExecutor fanOutExecutor;
+
+    @AfterEach
+    void tearDown() {
+        fanOutExecutor.shutdown();
+    }
+
+    @Test
+    public void givenItems_WhenMapped_ThenResultsKeepInputOrder() {
+        fanOutExecutor = executor(5000, 4);
+
+        List<Integer> results = fanOutExecutor.map(List.of(30, 10, 20), delay -> {
+            sleep(delay);
+            return delay;
+        });
+
+        assertEquals(List.of(30, 10, 20), results);
+    }
+
+    @Test
+    public void givenSlowSubtask_WhenDeadlinePasses_ThenJoinTimesOutAndSubtaskInterrupted() throws Exception {
+        fanOutExecutor = executor(200, 4);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        CompletionException thrown;
+        long started = System.nanoTime();
+        try(FanOutExecutor.Scope scope = fanOutExecutor.scope()) {
+            scope.fork(() -> {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return null;
+            });
+            thrown = assertThrows(CompletionException.class, scope::join);
+        }
+
+        assertInstanceOf(TimeoutException.class, thrown.getCause());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < 5000);
+        assertTrue(interrupted.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void givenFailingSubtask_WhenJoined_ThenFailureThrownAndSiblingsCancelled() throws Exception {
+        fanOutExecutor = executor(5000, 4);
+        CountDownLatch siblingStarted = new CountDownLatch(1);
+        CountDownLatch siblingInterrupted = new CountDownLatch(1);
+
+        try(FanOutExecutor.Scope scope = fanOutExecutor.scope()) {
+            scope.fork(() -> {
+                siblingStarted.countDown();
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    siblingInterrupted.countDown();
+                }
+                return null;
+            });
+            scope.fork(() -> {
+                await(siblingStarted);
+                throw new IllegalArgumentException("not found");
+            });
+
+            IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, scope::join);
+            assertEquals("not found", thrown.getMessage());
+        }
+
+        assertTrue(siblingInterrupted.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void givenUnjoinedScope_WhenSubtaskRead_ThenRejected() {
+        fanOutExecutor = executor(5000, 4);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try(FanOutExecutor.Scope scope = fanOutExecutor.scope()) {
+            FanOutExecutor.Subtask<String> subtask = scope.fork(() -> {
+                await(release);
+                return "done";
+            });
+
+            assertThrows(IllegalStateException.class, subtask::get);
+            release.countDown();
+            scope.join();
+            assertEquals("done", subtask.get());
+        }
+    }
+
+    @Test
+    public void givenJoinedScope_WhenForked_ThenRejected() {
+        fanOutExecutor = executor(5000, 4);
+
+        try(FanOutExecutor.Scope scope = fanOutExecutor.scope()) {
+            scope.join();
+            assertThrows(IllegalStateException.class, () -> scope.fork(() -> "late"));
+        }
+    }
+
+    @Test
+    public void givenConcurrentScopes_WhenForked_ThenLimitSharedAcrossExecutor() throws Exception {
+        fanOutExecutor = executor(5000, 2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        ArrayList<Thread> requests = new ArrayList<>();
+        for(int i = 0; i < 3; i++) {
+            requests.add(Thread.ofVirtual().start(() -> fanOutExecutor.map(List.of(1, 2, 3), item -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(20);
+                running.decrementAndGet();
+                return item;
+            })));
+        }
+        for(Thread request: requests) {
+            request.join();
+        }
+
+        assertEquals(2, maxRunning.get());
+    }
+
+    private static FanOutExecutor executor(long timeoutMillis, int maxConcurrency) {
+        FanOutExecutor executor = new FanOutExecutor();
+        ReflectionTestUtils.setField(executor, "timeoutMillis", timeoutMillis);
+        ReflectionTestUtils.setField(executor, "maxConcurrency", maxConcurrency);
+        executor.init();
+        return executor;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.adam.medipathbackend.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HierarchicalTimingWheelTests {
+
+    private static final long START = 1_000_000;
+
+    private HierarchicalTimingWheel<String, String> wheel;
+
+    private List<String> fired;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new HierarchicalTimingWheel<>(1000, START, 60, 60, 24);
+        fired = new ArrayList<>();
+    }
+
+    @Test
+    public void givenTimer_WhenAdvancedToDeadline_ThenFiresExactlyThen() {
+        wheel.add("a", "a", START + 5000);
+
+        wheel.advanceTo(START + 4999, fired::add);
+        assertTrue(fired.isEmpty());
+
+        wheel.advanceTo(START + 5000, fired::add);
+        assertEquals(List.of("a"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void givenTimersOnHigherLevels_WhenAdvanced_ThenCascadeAndFireAtTheirDeadline() {
+        Map<String, Long> deadlines = Map.of(
+                "seconds", START + 30_000,
+                "minute", START + 61_000,
+                "hour", START + 3_602_000);
+        deadlines.forEach((key, deadline) -> wheel.add(key, key, deadline));
+
+        Map<String, Long> firedAt = new HashMap<>();
+        for(long now = START; now <= START + 3_700_000; now += 1000) {
+            long tick = now;
+            wheel.advanceTo(now, value -> firedAt.put(value, tick));
+        }
+
+        assertEquals(deadlines, firedAt);
+    }
+
+    @Test
+    public void givenLargeJump_WhenAdvanced_ThenEveryTimerFiresOnce() {
+        for(int i = 1; i <= 200; i++) {
+            wheel.add("t" + i, "t" + i, START + i * 37_000L);
+        }
+
+        wheel.advanceTo(START + 200 * 37_000L, fired::add);
+
+        assertEquals(200, fired.size());
+        assertEquals(200, fired.stream().distinct().count());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void givenCancelledTimer_WhenAdvancedPastDeadline_ThenNotFired() {
+        wheel.add("kept", "kept", START + 90_000);
+        wheel.add("cancelled", "cancelled", START + 90_000);
+
+        assertEquals("cancelled", wheel.remove("cancelled"));
+        assertNull(wheel.remove("cancelled"));
+        wheel.advanceTo(START + 120_000, fired::add);
+
+        assertEquals(List.of("kept"), fired);
+    }
+
+    @Test
+    public void givenRescheduledKey_WhenAdvanced_ThenOnlyLatestDeadlineFires() {
+        wheel.add("a", "early", START + 2000);
+        wheel.add("a", "late", START + 10_000);
+
+        wheel.advanceTo(START + 5000, fired::add);
+        assertTrue(fired.isEmpty());
+
+        wheel.advanceTo(START + 10_000, fired::add);
+        assertEquals(List.of("late"), fired);
+    }
+
+    @Test
+    public void givenPastOrCurrentDeadline_WhenAdded_ThenRejectedForImmediateDelivery() {
+        assertFalse(wheel.add("past", "past", START - 60_000));
+        assertFalse(wheel.add("now", "now", START));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void givenDeadlineBeyondHorizon_WhenAdded_ThenThrows() {
+        assertThrows(IllegalArgumentException.class,
+                () -> wheel.add("far", "far", START + wheel.getHorizonMillis() + 1000));
+    }
+}
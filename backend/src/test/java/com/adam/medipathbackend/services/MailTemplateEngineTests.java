@@ -0,0 +1,78 @@
+package com.adam.medipathbackend.services;
+
+import com.adam.medipathbackend.services.MailTemplateEngine.RenderedMail;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MailTemplateEngineTests {
+
+    private final MailTemplateEngine engine = new MailTemplateEngine("https://medipath.example");
+
+    @Test
+    public void givenTemplate_WhenRendered_ThenLayoutHeaderParamsAndGlobalsFilledIn() {
+        RenderedMail mail = engine.render("password-reset", "user@mail.com", "EN", Map.of("token", "abc123"));
+
+        assertEquals("user@mail.com", mail.recipient());
+        assertEquals("Medipath password change request", mail.subject());
+        assertTrue(mail.content().startsWith("<!DOCTYPE html>"));
+        assertTrue(mail.content().contains("Medipath password change"));
+        assertTrue(mail.content().contains("href=\"https://medipath.example/auth/forgot-password/abc123\""));
+        assertFalse(mail.content().contains("{{"));
+    }
+
+    @Test
+    public void givenMarkupInParams_WhenRendered_ThenEscapedInContent() {
+        RenderedMail mail = engine.render("employee-registration", "user@mail.com", "EN",
+                Map.of("institution", "<script>\"Tom & Jerry's\"</script>", "token", "abc123"));
+
+        assertTrue(mail.content().contains("&lt;script&gt;&quot;Tom &amp; Jerry&#39;s&quot;&lt;/script&gt;"));
+        assertFalse(mail.content().contains("<script>"));
+    }
+
+    @Test
+    public void givenMissingParam_WhenRendered_ThenLeftEmpty() {
+        RenderedMail mail = engine.render("visit-cancellation", "user@mail.com", "EN",
+                Map.of("institution", "Institution", "time", "2030-01-01T10:00"));
+
+        assertTrue(mail.content().contains("with <strong></strong> has been cancelled"));
+    }
+
+    @Test
+    public void givenLanguageVariant_WhenRendered_ThenMatchedIgnoringCase() {
+        RenderedMail mail = engine.render("visit-cancellation", "user@mail.com", "pl", Map.of());
+
+        assertEquals("Twoja wizyta została odwołana", mail.subject());
+        assertTrue(engine.hasTemplate("visit-cancellation", "PL"));
+    }
+
+    @Test
+    public void givenUnknownOrMissingLanguage_WhenRendered_ThenFallsBackToEnglish() {
+        assertFalse(engine.hasTemplate("visit-cancellation", "DE"));
+
+        assertEquals("Your visit has been cancelled",
+                engine.render("visit-cancellation", "user@mail.com", "DE", Map.of()).subject());
+        assertEquals("Your visit has been cancelled",
+                engine.render("visit-cancellation", "user@mail.com", null, Map.of()).subject());
+    }
+
+    @Test
+    public void givenMissingTemplate_WhenRendered_ThenRejected() {
+        assertFalse(engine.hasTemplate("no-such-template", "EN"));
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.render("no-such-template", "user@mail.com", "EN", Map.of()));
+    }
+
+    @Test
+    public void givenLargeParam_WhenRenderedRepeatedly_ThenEachMailIndependent() {
+        String large = "x".repeat(100 * 1024);
+        RenderedMail first = engine.render("password-reset", "first@mail.com", "EN", Map.of("token", large));
+        RenderedMail second = engine.render("password-reset", "second@mail.com", "EN", Map.of("token", "short"));
+
+        assertTrue(first.content().contains(large));
+        assertFalse(second.content().contains(large));
+        assertTrue(second.content().contains("/auth/forgot-password/short"));
+    }
+}
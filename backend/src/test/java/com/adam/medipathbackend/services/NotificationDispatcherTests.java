@@ -0,0 +1,126 @@
+package com.adam.medipathbackend.services;
+
+import com.adam.medipathbackend.models.Notification;
+import com.adam.medipathbackend.repository.NotificationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class NotificationDispatcherTests {
+
+    private NotificationDispatcher dispatcher;
+
+    private NotificationRepository notificationRepository;
+
+    private NotificationService notificationService;
+
+    @BeforeEach
+    void setUp() {
+        notificationRepository = mock(NotificationRepository.class);
+        notificationService = mock(NotificationService.class);
+        dispatcher = new NotificationDispatcher();
+        ReflectionTestUtils.setField(dispatcher, "notificationRepository", notificationRepository);
+        ReflectionTestUtils.setField(dispatcher, "notificationService", notificationService);
+        when(notificationRepository.getUnsentNotificationsBetween(any(), any())).thenReturn(new ArrayList<>());
+        when(notificationRepository.claimForSending(anyString())).thenReturn(1L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.stop();
+    }
+
+    @Test
+    public void givenMissedNotification_WhenStarted_ThenDeliveredImmediately() {
+        Notification missed = notification("missed", LocalDateTime.now().minusMinutes(2));
+        when(notificationRepository.getUnsentNotificationsBetween(any(), any())).thenReturn(new ArrayList<>(List.of(missed)));
+
+        dispatcher.start();
+
+        verify(notificationService, timeout(500)).sendNotificationToUser("user", missed);
+    }
+
+    @Test
+    public void givenScheduledNotification_WhenDue_ThenDeliveredOnce() {
+        dispatcher.start();
+        Notification due = notification("due", LocalDateTime.now().plusSeconds(1));
+        dispatcher.schedule(due);
+
+        verify(notificationService, timeout(3000)).sendNotificationToUser("user", due);
+        verify(notificationRepository, after(1500).times(1)).claimForSending("due");
+        verify(notificationService, times(1)).sendNotificationToUser(anyString(), any());
+    }
+
+    @Test
+    public void givenCancelledNotification_WhenDeadlinePasses_ThenNotDelivered() {
+        dispatcher.start();
+        dispatcher.schedule(notification("cancelled", LocalDateTime.now().plusSeconds(1)));
+        dispatcher.cancel("cancelled");
+
+        verify(notificationRepository, after(2500).never()).claimForSending("cancelled");
+        verify(notificationService, never()).sendNotificationToUser(anyString(), any());
+    }
+
+    @Test
+    public void givenNotificationClaimedElsewhere_WhenDue_ThenNotSent() {
+        when(notificationRepository.claimForSending("taken")).thenReturn(0L);
+        dispatcher.start();
+        dispatcher.schedule(notification("taken", LocalDateTime.now().minusSeconds(1)));
+
+        verify(notificationRepository, timeout(500)).claimForSending("taken");
+        verify(notificationService, after(200).never()).sendNotificationToUser(anyString(), any());
+    }
+
+    @Test
+    public void givenSendFailure_WhenDelivered_ThenClaimReleasedForRetry() {
+        doThrow(new IllegalStateException("broker down")).when(notificationService).sendNotificationToUser(anyString(), any());
+        dispatcher.start();
+        Notification failing = notification("failing", LocalDateTime.now().minusSeconds(1));
+        dispatcher.schedule(failing);
+
+        verify(notificationRepository, timeout(500)).releaseClaim("failing");
+        verify(notificationService, times(1)).sendNotificationToUser(eq("user"), any());
+    }
+
+    @Test
+    public void givenNotificationsPastGrace_WhenStarted_ThenMarkedMissedBeforeLoading() {
+        LocalDateTime before = LocalDateTime.now().minusMinutes(10);
+        dispatcher.start();
+
+        InOrder inOrder = inOrder(notificationRepository);
+        inOrder.verify(notificationRepository, timeout(500)).markMissedBefore(argThat(cutoff -> !cutoff.isBefore(before)));
+        inOrder.verify(notificationRepository, timeout(500)).getUnsentNotificationsBetween(any(), any());
+    }
+
+    @Test
+    public void givenSendFailurePastGrace_WhenDelivered_ThenMarkedMissed() {
+        doThrow(new IllegalStateException("broker down")).when(notificationService).sendNotificationToUser(anyString(), any());
+        Notification stale = notification("stale", LocalDateTime.now().minusMinutes(11));
+        when(notificationRepository.getUnsentNotificationsBetween(any(), any())).thenReturn(new ArrayList<>(List.of(stale)));
+        when(notificationRepository.releaseClaim("stale")).thenReturn(1L);
+
+        dispatcher.start();
+
+        verify(notificationRepository, timeout(500)).markMissed("stale");
+        verify(notificationService, after(200).times(1)).sendNotificationToUser(eq("user"), any());
+    }
+
+    private Notification notification(String id, LocalDateTime timestamp) {
+        Notification notification = new Notification("title", "content", timestamp, false, false);
+        notification.setId(id);
+        notification.setUserId("user");
+        return notification;
+    }
+}
@@ -0,0 +1,143 @@
+package com.adam.medipathbackend.services;
+
+import com.adam.medipathbackend.models.DoctorDigest;
+import com.adam.medipathbackend.models.InstitutionDigest;
+import com.adam.medipathbackend.models.Schedule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ScheduleBookingServiceTests {
+
+    private static final String SCHEDULE_ID = "0123456789abcdef01234567";
+
+    private MongoTemplate mongoTemplate;
+
+    private AvailabilityService availabilityService;
+
+    private ScheduleBookingService bookingService;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        availabilityService = mock(AvailabilityService.class);
+        bookingService = new ScheduleBookingService();
+        ReflectionTestUtils.setField(bookingService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(bookingService, "availabilityService", availabilityService);
+        ReflectionTestUtils.setField(bookingService, "knownBookedTtlMillis", 30000L);
+        ReflectionTestUtils.setField(bookingService, "knownBookedMax", 100);
+    }
+
+    @Test
+    public void givenFreeSlot_WhenClaimed_ThenBookedForVisit() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), eq(Schedule.class)))
+                .thenReturn(schedule(false, null));
+
+        Optional<Schedule> claimed = bookingService.claim(SCHEDULE_ID, "visit");
+
+        assertTrue(claimed.isPresent());
+        assertTrue(claimed.get().isBooked());
+        assertEquals("visit", claimed.get().getVisitId());
+        verify(availabilityService).markBooked(claimed.get());
+    }
+
+    @Test
+    public void givenClaimedSlot_WhenClaimedAgain_ThenRejectedWithoutMongo() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), eq(Schedule.class)))
+                .thenReturn(schedule(false, null));
+        bookingService.claim(SCHEDULE_ID, "visit");
+
+        assertTrue(bookingService.claim(SCHEDULE_ID, "other").isEmpty());
+
+        verify(mongoTemplate, times(1)).findAndModify(any(Query.class), any(UpdateDefinition.class), eq(Schedule.class));
+        assertTrue(bookingService.isKnownBooked(SCHEDULE_ID));
+    }
+
+    @Test
+    public void givenSlotBookedElsewhere_WhenClaimed_ThenRejectedInOneRoundTripAndRemembered() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), eq(Schedule.class)))
+                .thenReturn(schedule(true, "visit"));
+
+        assertTrue(bookingService.claim(SCHEDULE_ID, "other").isEmpty());
+
+        verify(mongoTemplate, times(1)).findAndModify(any(Query.class), any(UpdateDefinition.class), eq(Schedule.class));
+        verifyNoMoreInteractions(mongoTemplate);
+        verifyNoInteractions(availabilityService);
+        assertTrue(bookingService.isKnownBooked(SCHEDULE_ID));
+    }
+
+    @Test
+    public void givenMissingSlot_WhenClaimed_ThenRejectedAndNotRemembered() {
+        assertTrue(bookingService.claim(SCHEDULE_ID, "visit").isEmpty());
+
+        assertFalse(bookingService.isKnownBooked(SCHEDULE_ID));
+    }
+
+    @Test
+    public void givenKnownBookedSlot_WhenReleased_ThenClaimableAgain() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), eq(Schedule.class)))
+                .thenReturn(schedule(true, "visit"));
+        bookingService.claim(SCHEDULE_ID, "other");
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class),
+                eq(Schedule.class))).thenReturn(schedule(false, null));
+
+        assertTrue(bookingService.release(SCHEDULE_ID, "visit"));
+
+        assertFalse(bookingService.isKnownBooked(SCHEDULE_ID));
+    }
+
+    @Test
+    public void givenBookingChanges_WhenApplied_ThenAvailabilityUpdatedUnderSlotLock() {
+        doAnswer(invocation -> assertSlotLocked()).when(availabilityService).markBooked(any());
+        doAnswer(invocation -> assertSlotLocked()).when(availabilityService).markFree(any());
+        doAnswer(invocation -> assertSlotLocked()).when(availabilityService).moveSchedule(any(), any());
+        doAnswer(invocation -> assertSlotLocked()).when(availabilityService).removeSchedule(any());
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), eq(Schedule.class)))
+                .thenReturn(schedule(false, null));
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class),
+                eq(Schedule.class))).thenReturn(schedule(false, null));
+        when(mongoTemplate.findAndRemove(any(Query.class), eq(Schedule.class))).thenReturn(schedule(false, null));
+
+        assertTrue(bookingService.claim(SCHEDULE_ID, "visit").isPresent());
+        assertTrue(bookingService.release(SCHEDULE_ID, "visit"));
+        assertTrue(bookingService.rescheduleIfFree(SCHEDULE_ID, LocalDateTime.of(2030, 1, 1, 11, 0),
+                LocalDateTime.of(2030, 1, 1, 11, 15)));
+        assertTrue(bookingService.deleteIfFree(SCHEDULE_ID));
+
+        verify(availabilityService).markBooked(any());
+        verify(availabilityService).markFree(any());
+        verify(availabilityService).moveSchedule(any(), any());
+        verify(availabilityService).removeSchedule(any());
+    }
+
+    private Object assertSlotLocked() {
+        ReentrantLock[] locks = (ReentrantLock[]) ReflectionTestUtils.getField(bookingService, "locks");
+        assertTrue(Arrays.stream(locks).anyMatch(ReentrantLock::isHeldByCurrentThread));
+        return null;
+    }
+
+    private static Schedule schedule(boolean booked, String visitId) {
+        Schedule schedule = new Schedule(LocalDateTime.of(2030, 1, 1, 10, 0), LocalDateTime.of(2030, 1, 1, 10, 15),
+                new DoctorDigest("doctor", "Doctor", "Doctor", new ArrayList<>()),
+                new InstitutionDigest("institution", "Institution"));
+        ReflectionTestUtils.setField(schedule, "id", SCHEDULE_ID);
+        schedule.setBooked(booked);
+        schedule.setVisitId(visitId);
+        return schedule;
+    }
+}
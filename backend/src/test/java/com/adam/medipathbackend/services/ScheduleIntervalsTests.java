@@ -0,0 +1,86 @@
+package com.adam.medipathbackend.services;
+
+import com.adam.medipathbackend.models.ScheduleSummary;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScheduleIntervalsTests {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 3, 1, 8, 0);
+
+    @Test
+    public void givenTouchingInterval_WhenOverlaps_ThenBoundariesAreExclusive() {
+        ScheduleIntervals intervals = new ScheduleIntervals(List.of(schedule("a", BASE, BASE.plusHours(1))));
+
+        assertFalse(intervals.overlaps(BASE.minusHours(1), BASE, Set.of()));
+        assertFalse(intervals.overlaps(BASE.plusHours(1), BASE.plusHours(2), Set.of()));
+        assertTrue(intervals.overlaps(BASE.minusMinutes(1), BASE.plusMinutes(1), Set.of()));
+        assertTrue(intervals.overlaps(BASE.plusMinutes(59), BASE.plusHours(2), Set.of()));
+        assertTrue(intervals.overlaps(BASE.plusMinutes(15), BASE.plusMinutes(30), Set.of()));
+        assertTrue(intervals.overlaps(BASE.minusHours(1), BASE.plusHours(2), Set.of()));
+    }
+
+    @Test
+    public void givenScheduleLongerThanADay_WhenWindowStartsInsideIt_ThenOverlapFound() {
+        ScheduleIntervals intervals = new ScheduleIntervals(List.of(
+                schedule("long", BASE, BASE.plusHours(48)),
+                schedule("short", BASE.plusHours(30), BASE.plusHours(31))));
+
+        assertTrue(intervals.overlaps(BASE.plusHours(40), BASE.plusHours(41), Set.of()));
+        assertTrue(intervals.overlaps(BASE.plusHours(47), BASE.plusHours(50), Set.of()));
+        assertFalse(intervals.overlaps(BASE.plusHours(48), BASE.plusHours(50), Set.of()));
+    }
+
+    @Test
+    public void givenLongScheduleBeforeShortOnes_WhenLaterShortOnesEnd_ThenMaxEndStillCoversWindow() {
+        ScheduleIntervals intervals = new ScheduleIntervals(List.of(
+                schedule("short1", BASE.plusHours(1), BASE.plusHours(2)),
+                schedule("long", BASE, BASE.plusDays(3)),
+                schedule("short2", BASE.plusHours(5), BASE.plusHours(6))));
+
+        assertTrue(intervals.overlaps(BASE.plusDays(2), BASE.plusDays(2).plusMinutes(15), Set.of()));
+        assertFalse(intervals.overlaps(BASE.plusDays(2), BASE.plusDays(2).plusMinutes(15), Set.of("long")));
+    }
+
+    @Test
+    public void givenOmittedIds_WhenOverlaps_ThenIgnored() {
+        ScheduleIntervals intervals = new ScheduleIntervals(List.of(
+                schedule("moving", BASE, BASE.plusHours(1)),
+                schedule("other", BASE.plusHours(2), BASE.plusHours(3))));
+
+        assertFalse(intervals.overlaps(BASE.plusMinutes(30), BASE.plusMinutes(90), Set.of("moving")));
+        assertTrue(intervals.overlaps(BASE.plusMinutes(30), BASE.plusMinutes(150), Set.of("moving")));
+    }
+
+    @Test
+    public void givenBatch_WhenOverlapsAny_ThenChecksExistingAndEachOther() {
+        ScheduleIntervals intervals = new ScheduleIntervals(List.of(schedule("a", BASE, BASE.plusHours(1))));
+
+        assertFalse(intervals.overlapsAny(List.of(
+                new ScheduleIntervals.Interval(BASE.plusHours(2), BASE.plusHours(3)),
+                new ScheduleIntervals.Interval(BASE.plusHours(1), BASE.plusHours(2))), Set.of()));
+        assertTrue(intervals.overlapsAny(List.of(
+                new ScheduleIntervals.Interval(BASE.plusHours(3), BASE.plusHours(5)),
+                new ScheduleIntervals.Interval(BASE.plusHours(2), BASE.plusHours(4))), Set.of()));
+        assertTrue(intervals.overlapsAny(List.of(
+                new ScheduleIntervals.Interval(BASE.plusMinutes(30), BASE.plusHours(2))), Set.of()));
+    }
+
+    @Test
+    public void givenNoSchedules_WhenOverlaps_ThenFalse() {
+        ScheduleIntervals intervals = new ScheduleIntervals(List.of());
+
+        assertFalse(intervals.overlaps(BASE, BASE.plusHours(1), Set.of()));
+        assertFalse(intervals.overlapsAny(List.of(), Set.of()));
+    }
+
+    private static ScheduleSummary schedule(String id, LocalDateTime start, LocalDateTime end) {
+        return new ScheduleSummary(id, start, end, false, null, null, null);
+    }
+}
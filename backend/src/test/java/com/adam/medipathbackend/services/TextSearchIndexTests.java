@@ -0,0 +1,87 @@
+package com.adam.medipathbackend.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextSearchIndexTests {
+
+    private TextSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TextSearchIndex();
+    }
+
+    @Test
+    public void givenEntries_WhenSearch_ThenExactBeforePrefixBeforeWordPrefixBeforeSubstring() {
+        index.put("substring", "Aklinika", "aklinika");
+        index.put("wordPrefix", "Nowa Klinika", "nowa klinika");
+        index.put("prefix", "Klinika Zdrowia", "klinika zdrowia");
+        index.put("exact", "Klinika", "klinika");
+
+        assertEquals(List.of("exact", "prefix", "wordPrefix", "substring"), index.search("klinika", 10));
+    }
+
+    @Test
+    public void givenEqualRanks_WhenSearch_ThenInsertionOrderKeptAcrossUpdates() {
+        index.put("first", "Szpital A", "szpital a");
+        index.put("second", "Szpital B", "szpital b");
+        index.put("first", "Szpital C", "szpital c");
+
+        assertEquals(List.of("first", "second"), index.search("szpital", 10));
+        assertEquals("Szpital C", index.getDisplay("first"));
+    }
+
+    @Test
+    public void givenDiacritics_WhenSearchFolded_ThenFound() {
+        index.put("lodz", "Łódź", "Łódź");
+        index.put("krakow", "Kraków", "Kraków");
+
+        assertEquals(List.of("lodz"), index.search("lodz", 10));
+        assertEquals(List.of("krakow"), index.search("KRAKOW", 10));
+    }
+
+    @Test
+    public void givenShortQuery_WhenSearch_ThenOnlyWordPrefixesMatch() {
+        index.put("dwor", "Dwór", "dwor");
+        index.put("nowaWola", "Nowa Wola", "nowa wola");
+        index.put("wolomin", "Wołomin", "wolomin");
+
+        assertEquals(List.of("wolomin", "nowaWola"), index.search("wo", 10));
+    }
+
+    @Test
+    public void givenMissingTrigram_WhenSearch_ThenNoFuzzyMatch() {
+        index.put("gdansk", "Gdańsk", "gdansk");
+
+        assertTrue(index.search("gdnsk", 10).isEmpty());
+        assertTrue(index.search("xyz", 10).isEmpty());
+    }
+
+    @Test
+    public void givenRemovedEntry_WhenSearch_ThenNotReturned() {
+        index.put("a", "Poznań", "poznan");
+        index.put("b", "Poznańska Klinika", "poznanska klinika");
+        index.remove("a");
+
+        assertEquals(List.of("b"), index.search("poznan", 10));
+        assertNull(index.getDisplay("a"));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void givenLimit_WhenSearch_ThenTruncated() {
+        for(int i = 0; i < 5; i++) {
+            index.put("id" + i, "Kardiologia " + i, "kardiologia " + i);
+        }
+
+        assertEquals(List.of("id0", "id1"), index.search("kardio", 2));
+        assertEquals(5, index.search("", 0).size());
+    }
+}
@@ -29,3 +29,11 @@ export interface PaginationConfig {
  * Type alias for PrimeNG PaginatorState
  */
 export type { PaginatorState };
+
+/**
+ * Page returned by cursor-paginated list endpoints,
+ * nextCursor is null on the last page
+ */
+export interface CursorPage {
+  nextCursor?: string | null;
+}
@@ -1,3 +1,5 @@
+import { CursorPage } from './pagination.model';
+
 export interface StarRatingOption {
   label: string;
   value: number;
@@ -22,7 +24,7 @@ export interface AddComentRequest {
   institutionRating: string;
 }
 
-export interface InstitutionCommentResponse {
+export interface InstitutionCommentResponse extends CursorPage {
   comments: {
     id: string;
     author: string;
@@ -1,3 +1,5 @@
+import { CursorPage } from './pagination.model';
+
 export interface VisitPageModel {
   id: string;
   doctorName: string;
@@ -88,7 +90,7 @@ export interface VisitCode {
 }
 
 export type VisitResponseArray = VisitResponse[];
-export interface UpcomingVisitsResponse {
+export interface UpcomingVisitsResponse extends CursorPage {
   visits: VisitResponse[];
 }
 
@@ -107,6 +109,6 @@ export interface FinishVisitResponse {
   note: string;
 }
 
-export interface VisitApiResponseArray {
+export interface VisitApiResponseArray extends CursorPage {
   visits: VisitResponse[];
 }
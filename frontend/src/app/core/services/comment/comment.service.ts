@@ -2,6 +2,7 @@ import { HttpClient } from '@angular/common/http';
 import { inject, Injectable } from '@angular/core';
 import { map, Observable } from 'rxjs';
 import { API_URL } from '../../../utils/constants';
+import { cursorParams, fetchAllPages } from '../../../utils/cursorPages';
 
 import { Comment } from '../../models/doctor.model';
 import {
@@ -49,42 +50,45 @@ export class CommentService {
   }
 
   public getCommentByInstitution(institutionId: string): Observable<Comment[]> {
-    return this.http
-      .get<InstitutionCommentResponse>(
+    return fetchAllPages((cursor) =>
+      this.http.get<InstitutionCommentResponse>(
         `${API_URL}/comments/institution/${institutionId}`,
-      )
-      .pipe(
-        map((response) =>
-          response.comments.map((resp) => {
-            return {
-              id: resp.id,
-              userName: resp.author,
-              visitedInstitution: resp.institution,
-              content: resp.content,
-              numberOfStars: resp.institutionRating,
-              dateOfVisit: new Date(resp.createdAt),
-            };
-          }),
-        ),
-      );
+        { params: cursorParams(cursor) },
+      ),
+    ).pipe(
+      map((pages) =>
+        pages.flatMap((page) => page.comments).map((resp) => {
+          return {
+            id: resp.id,
+            userName: resp.author,
+            visitedInstitution: resp.institution,
+            content: resp.content,
+            numberOfStars: resp.institutionRating,
+            dateOfVisit: new Date(resp.createdAt),
+          };
+        }),
+      ),
+    );
   }
 
   public getCommentByDoctor(doctorId: string): Observable<Comment[]> {
-    return this.http
-      .get<InstitutionCommentResponse>(`${API_URL}/comments/doctor/${doctorId}`)
-      .pipe(
-        map((response) =>
-          response.comments.map((resp) => {
-            return {
-              id: resp.id,
-              userName: resp.author,
-              visitedInstitution: resp.institution,
-              content: resp.content,
-              numberOfStars: resp.doctorRating,
-              dateOfVisit: new Date(resp.createdAt),
-            };
-          }),
-        ),
-      );
+    return fetchAllPages((cursor) =>
+      this.http.get<InstitutionCommentResponse>(`${API_URL}/comments/doctor/${doctorId}`, {
+        params: cursorParams(cursor),
+      }),
+    ).pipe(
+      map((pages) =>
+        pages.flatMap((page) => page.comments).map((resp) => {
+          return {
+            id: resp.id,
+            userName: resp.author,
+            visitedInstitution: resp.institution,
+            content: resp.content,
+            numberOfStars: resp.doctorRating,
+            dateOfVisit: new Date(resp.createdAt),
+          };
+        }),
+      ),
+    );
   }
 }
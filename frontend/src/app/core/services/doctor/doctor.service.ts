@@ -2,6 +2,7 @@ import { HttpClient, HttpParams } from '@angular/common/http';
 import { inject, Injectable } from '@angular/core';
 import { map, Observable } from 'rxjs';
 import { API_URL } from '../../../utils/constants';
+import { cursorParams, fetchAllPages } from '../../../utils/cursorPages';
 import {
   DoctorDetailsApiResponse,
   DoctorPageModel,
@@ -104,11 +105,12 @@ export class DoctorService {
   }
 
   public getDoctorVisits(): Observable<VisitResponse[]> {
-    return this.http
-      .get<VisitApiResponseArray>(`${API_URL}/doctors/me/visits`, {
+    return fetchAllPages((cursor) =>
+      this.http.get<VisitApiResponseArray>(`${API_URL}/doctors/me/visits`, {
+        params: cursorParams(cursor),
         withCredentials: true,
-      })
-      .pipe(map((response) => response.visits));
+      }),
+    ).pipe(map((pages) => pages.flatMap((page) => page.visits)));
   }
 
   public getDoctorPatients(): Observable<PatientForDoctor[]> {
@@ -3,6 +3,7 @@ import { inject, Injectable } from '@angular/core';
 import { map, Observable } from 'rxjs';
 import { UpcomingVisitItem } from '../../../modules/admin/components/admin-dashboard/widgets/upcoming-visits-card';
 import { API_URL } from '../../../utils/constants';
+import { cursorParams, fetchAllPages } from '../../../utils/cursorPages';
 import { AddDoctorRequest } from '../../models/add-docotr.model';
 import {
   DoctorApiResponse,
@@ -179,9 +180,7 @@ export class InstitutionService {
   }
 
   public getVisits(institutionId: string): Observable<unknown> {
-    return this.http.get(`${API_URL}/institution/${institutionId}/visits`, {
-      withCredentials: true,
-    });
+    return this.getVisitsForInstitution(institutionId);
   }
 
   public updateEmployee(
@@ -219,14 +218,15 @@ export class InstitutionService {
   public getVisitsForInstitution(
     institutionId: string,
   ): Observable<VisitResponse[]> {
-    return this.http
-      .get<VisitApiResponseArray>(
+    return fetchAllPages((cursor) =>
+      this.http.get<VisitApiResponseArray>(
         `${API_URL}/institution/${institutionId}/visits`,
         {
+          params: cursorParams(cursor),
           withCredentials: true,
         },
-      )
-      .pipe(map((response) => response.visits));
+      ),
+    ).pipe(map((pages) => pages.flatMap((page) => page.visits)));
   }
 
   public findUserByGovId(govId: string): Observable<FindedEmployee> {
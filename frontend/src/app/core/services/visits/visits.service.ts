@@ -2,6 +2,7 @@ import { HttpClient } from '@angular/common/http';
 import { inject, Injectable } from '@angular/core';
 import { map, Observable } from 'rxjs';
 import { API_URL } from '../../../utils/constants';
+import { cursorParams, fetchAllPages } from '../../../utils/cursorPages';
 import {
   ScheduleResponse,
   ScheduleVisitRequest,
@@ -20,23 +21,21 @@ export class VisitsService {
   private http = inject(HttpClient);
 
   public getUpcomingVisits() {
-    return this.http
-      .get<UpcomingVisitsResponse>(`${API_URL}/users/me/visits?upcoming=true`, {
+    return fetchAllPages((cursor) =>
+      this.http.get<UpcomingVisitsResponse>(`${API_URL}/users/me/visits`, {
+        params: { upcoming: 'true', ...cursorParams(cursor) },
         withCredentials: true,
-      })
-      .pipe(map((response) => response.visits ?? []));
+      }),
+    ).pipe(map((pages) => pages.flatMap((page) => page.visits ?? [])));
   }
 
   public getAllVisits() {
-    return this.http
-      .get<UpcomingVisitsResponse>(`${API_URL}/users/me/visits`, {
+    return fetchAllPages((cursor) =>
+      this.http.get<UpcomingVisitsResponse>(`${API_URL}/users/me/visits`, {
+        params: cursorParams(cursor),
         withCredentials: true,
-      })
-      .pipe(
-        map((response) => {
-          return response.visits ?? [];
-        }),
-      );
+      }),
+    ).pipe(map((pages) => pages.flatMap((page) => page.visits ?? [])));
   }
 
   public getVisitDetails(visitId: string) {
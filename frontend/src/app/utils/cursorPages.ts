@@ -0,0 +1,15 @@
+import { EMPTY, expand, Observable, toArray } from 'rxjs';
+import { CursorPage } from '../core/models/pagination.model';
+
+export function cursorParams(cursor: string | null): Record<string, string> {
+  return cursor ? { cursor } : {};
+}
+
+export function fetchAllPages<T extends CursorPage>(
+  fetchPage: (cursor: string | null) => Observable<T>,
+): Observable<T[]> {
+  return fetchPage(null).pipe(
+    expand((page) => (page.nextCursor ? fetchPage(page.nextCursor) : EMPTY)),
+    toArray(),
+  );
+}
@@ -1,8 +1,9 @@
 package com.medipath.core.models
 
 data class DoctorCommentsResponse(
-    val comments: List<Comment>
-)
+    val comments: List<Comment>,
+    override val nextCursor: String? = null
+) : CursorPage
 
 data class Comment(
     val doctor: String,
@@ -16,8 +17,9 @@ data class Comment(
 )
 
 data class InstitutionCommentsResponse(
-    val comments: List<Comment>
-)
+    val comments: List<Comment>,
+    override val nextCursor: String? = null
+) : CursorPage
 
 data class CommentResponse(
     val comment: Comment
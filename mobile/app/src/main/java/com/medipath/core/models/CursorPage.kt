@@ -0,0 +1,5 @@
+package com.medipath.core.models
+
+interface CursorPage {
+    val nextCursor: String?
+}
@@ -1,5 +1,6 @@
 package com.medipath.core.models
 
 data class VisitsResponse(
-    val visits: List<Visit>
-)
\ No newline at end of file
+    val visits: List<Visit>,
+    override val nextCursor: String? = null
+) : CursorPage
\ No newline at end of file
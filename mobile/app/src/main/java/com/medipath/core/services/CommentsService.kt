@@ -12,13 +12,17 @@ import retrofit2.http.PUT
 import retrofit2.http.GET
 import retrofit2.http.HTTP
 import retrofit2.http.Path
+import retrofit2.http.Query
 
 interface CommentsService {
     @POST("/api/comments/add")
     suspend fun addComment(@Body comment: AddCommentRequest): Response<Unit>
 
     @GET("/api/comments/institution/{id}")
-    suspend fun getInstitutionComments(@Path("id") institutionId: String): Response<InstitutionCommentsResponse>
+    suspend fun getInstitutionComments(
+        @Path("id") institutionId: String,
+        @Query("cursor") cursor: String? = null
+    ): Response<InstitutionCommentsResponse>
 
     @GET("/api/users/me/comments")
     suspend fun getUserComments(): Response<UserCommentsResponse>
@@ -8,13 +8,14 @@ import com.medipath.core.models.VisitsResponse
 import retrofit2.Response
 import retrofit2.http.GET
 import retrofit2.http.Path
+import retrofit2.http.Query
 
 interface DoctorService {
     @GET("/api/doctors/me/visits/{date}")
     suspend fun getDoctorVisitsByDate(@Path("date") date: String): Response<VisitsResponse>
 
     @GET("/api/doctors/me/visits")
-    suspend fun getDoctorVisits(): Response<VisitsResponse>
+    suspend fun getDoctorVisits(@Query("cursor") cursor: String? = null): Response<VisitsResponse>
 
     @GET("/api/doctors/me/patients")
     suspend fun getPatients(): Response<PatientsResponse>
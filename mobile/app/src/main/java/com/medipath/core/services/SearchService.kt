@@ -28,7 +28,8 @@ interface SearchService {
     
     @GET("/api/comments/doctor/{id}")
     suspend fun getDoctorComments(
-        @Path("id") doctorId: String
+        @Path("id") doctorId: String,
+        @Query("cursor") cursor: String? = null
     ): Response<DoctorCommentsResponse>
 
     @GET("/api/institution/{institutionId}/doctors")
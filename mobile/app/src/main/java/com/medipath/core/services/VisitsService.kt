@@ -15,10 +15,13 @@ import retrofit2.http.Query
 
 interface VisitsService {
     @GET("/api/users/me/visits")
-    suspend fun getAllVisits(): Response<VisitsResponse>
+    suspend fun getAllVisits(@Query("cursor") cursor: String? = null): Response<VisitsResponse>
 
     @GET("/api/users/me/visits")
-    suspend fun getUpcomingVisits(@Query("upcoming") upcoming: String = "true"): Response<VisitsResponse>
+    suspend fun getUpcomingVisits(
+        @Query("upcoming") upcoming: String = "true",
+        @Query("cursor") cursor: String? = null
+    ): Response<VisitsResponse>
 
     @GET("/api/visits/{id}")
     suspend fun getVisitDetails(@Path("id") visitId: String): Response<VisitDetailsResponse>
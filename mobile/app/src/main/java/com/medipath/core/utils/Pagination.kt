@@ -0,0 +1,23 @@
+package com.medipath.core.utils
+
+import com.medipath.core.models.CursorPage
+import retrofit2.Response
+
+object Pagination {
+
+    suspend fun <T : CursorPage> fetchAllPages(
+        fetchPage: suspend (cursor: String?) -> Response<T>,
+        merge: (T, T) -> T
+    ): Response<T> {
+        var response = fetchPage(null)
+        var merged = response.body() ?: return response
+        var cursor = merged.nextCursor
+        while (cursor != null) {
+            response = fetchPage(cursor)
+            val page = response.body() ?: return response
+            merged = merge(merged, page)
+            cursor = page.nextCursor
+        }
+        return Response.success(merged, response.raw())
+    }
+}
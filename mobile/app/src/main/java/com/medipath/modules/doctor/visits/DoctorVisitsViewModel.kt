@@ -7,6 +7,7 @@ import androidx.lifecycle.AndroidViewModel
 import com.medipath.R
 import com.medipath.core.models.Visit
 import com.medipath.core.network.RetrofitInstance
+import com.medipath.core.utils.Pagination
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
@@ -50,7 +51,10 @@ class DoctorVisitsViewModel(
             _isLoading.value = true
             _error.value = null
             try {
-                val response = doctorService.getDoctorVisits()
+                val response = Pagination.fetchAllPages(
+                    { cursor -> doctorService.getDoctorVisits(cursor) },
+                    { visits, page -> visits.copy(visits = visits.visits + page.visits) }
+                )
                 
                 if (response.isSuccessful) {
                     val visits = response.body()?.visits ?: emptyList()
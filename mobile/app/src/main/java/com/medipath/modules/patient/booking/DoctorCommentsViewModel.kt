@@ -6,6 +6,7 @@ import androidx.lifecycle.viewModelScope
 import com.medipath.R
 import com.medipath.core.models.Comment
 import com.medipath.core.network.RetrofitInstance
+import com.medipath.core.utils.Pagination
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
@@ -32,7 +33,10 @@ class DoctorCommentsViewModel(
         viewModelScope.launch {
             _isLoading.value = true
             try {
-                val response = searchService.getDoctorComments(doctorId)
+                val response = Pagination.fetchAllPages(
+                    { cursor -> searchService.getDoctorComments(doctorId, cursor) },
+                    { comments, page -> comments.copy(comments = comments.comments + page.comments) }
+                )
                 if (response.isSuccessful) {
                     _comments.value = response.body()?.comments ?: emptyList()
                 } else{
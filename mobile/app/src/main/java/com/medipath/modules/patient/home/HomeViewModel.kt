@@ -7,6 +7,7 @@ import androidx.lifecycle.AndroidViewModel
 import com.medipath.R
 import com.medipath.core.models.Visit
 import com.medipath.core.network.RetrofitInstance
+import com.medipath.core.utils.Pagination
 import com.medipath.core.utils.RoleManager
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
@@ -85,7 +86,10 @@ class HomeViewModel(
 
     private suspend fun fetchUpcomingVisits() {
         try {
-            val visitsResponse = visitsService.getUpcomingVisits("true")
+            val visitsResponse = Pagination.fetchAllPages(
+                { cursor -> visitsService.getUpcomingVisits("true", cursor) },
+                { visits, page -> visits.copy(visits = visits.visits + page.visits) }
+            )
             if(visitsResponse.isSuccessful) {
                 _upcomingVisits.value = visitsResponse.body()?.visits ?: emptyList()
             } else {
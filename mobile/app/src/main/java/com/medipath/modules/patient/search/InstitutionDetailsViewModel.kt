@@ -5,6 +5,7 @@ import androidx.lifecycle.viewModelScope
 import com.medipath.core.models.InstitutionDoctor
 import com.medipath.core.models.InstitutionDetail
 import com.medipath.core.network.RetrofitInstance
+import com.medipath.core.utils.Pagination
 import com.medipath.core.models.Comment
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
@@ -101,7 +102,10 @@ class InstitutionDetailsViewModel(
 
     private suspend fun fetchComments(institutionId: String) {
         try {
-            val response = RetrofitInstance.commentsService.getInstitutionComments(institutionId)
+            val response = Pagination.fetchAllPages(
+                { cursor -> RetrofitInstance.commentsService.getInstitutionComments(institutionId, cursor) },
+                { comments, page -> comments.copy(comments = comments.comments + page.comments) }
+            )
 
             if (response.isSuccessful) {
                 _comments.value = response.body()?.comments ?: emptyList()
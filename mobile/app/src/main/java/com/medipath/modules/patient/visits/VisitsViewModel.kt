@@ -6,6 +6,7 @@ import androidx.lifecycle.viewModelScope
 import com.medipath.R
 import com.medipath.core.models.Visit
 import com.medipath.core.network.RetrofitInstance
+import com.medipath.core.utils.Pagination
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
@@ -76,11 +77,16 @@ class VisitsViewModel(
                 _error.value = null
                 _shouldRedirectToLogin.value = false
 
-                val response = if (upcoming) {
-                    visitsService.getUpcomingVisits("true")
-                } else {
-                    visitsService.getAllVisits()
-                }
+                val response = Pagination.fetchAllPages(
+                    { cursor ->
+                        if (upcoming) {
+                            visitsService.getUpcomingVisits("true", cursor)
+                        } else {
+                            visitsService.getAllVisits(cursor)
+                        }
+                    },
+                    { visits, page -> visits.copy(visits = visits.visits + page.visits) }
+                )
 
                 if (response.isSuccessful) {
                     _visits.value = response.body()?.visits ?: emptyList()